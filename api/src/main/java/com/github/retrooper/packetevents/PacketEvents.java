@@ -18,6 +18,7 @@
 
 package com.github.retrooper.packetevents;
 
+import com.github.retrooper.packetevents.util.adventure.ComponentEncodingCache;
 import org.jetbrains.annotations.ApiStatus;
 
 public final class PacketEvents {
@@ -34,5 +35,7 @@ public final class PacketEvents {
 
     public static void setAPI(PacketEventsAPI<?> api) {
         API = api;
+        // the cache depends on the settings of the api
+        ComponentEncodingCache.reset();
     }
 }
@@ -19,7 +19,14 @@
 package com.github.retrooper.packetevents.event;
 
 import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.PacketEventsAPI;
+import com.github.retrooper.packetevents.event.metrics.PacketMetrics;
 import com.github.retrooper.packetevents.exception.InvalidHandshakeException;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.PacketSide;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.settings.PacketEventsSettings;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
@@ -43,6 +50,10 @@ import java.util.logging.Level;
 
 public class EventManager {
 
+    private static final PacketListenerCommon[] NO_LISTENERS = new PacketListenerCommon[0];
+    //All packet types, indexed by [PacketSide#ordinal()][ConnectionState#ordinal()][packet type ordinal]
+    private static final PacketTypeCommon[][][] PACKET_TYPES = createPacketTypeTable();
+
     //Using a ConcurrentHashMap is faster and more secure here, compared to Collections.synchronizedMap(new EnumMap<>(PacketListenerPriority.class))
     //This is mainly due to:
     //1. On each modification Collections.synchronizedMap synchronizes the whole Map object, while ConcurrentHashMap only it's internal, currently modified Node
@@ -51,7 +62,15 @@ public class EventManager {
     private final Map<PacketListenerPriority, Set<PacketListenerCommon>> listenersMap = new ConcurrentHashMap<>();
     //Since reads greatly outnumber writes, create an array for the best possible iteration time
     //Updated as a whole on writes, no index modifications are allowed
-    private volatile PacketListenerCommon[] listeners = new PacketListenerCommon[0];
+    private volatile PacketListenerCommon[] listeners = NO_LISTENERS;
+    //The listeners interested in each packet type, indexed the same way as PACKET_TYPES and already sorted by priority
+    //Updated as a whole on writes together with 'listeners', so dispatching a packet is a plain array lookup
+    private volatile PacketListenerCommon[][][][] packetListeners = createPacketListenerTable(NO_LISTENERS);
+    //One bit per packet type ordinal, set if any listener is interested in that packet type
+    //Lets the injectors skip event creation entirely for packets nobody listens to
+    private volatile long[][][] interestMasks = createInterestMasks(this.packetListeners);
+    //Only filled while metrics are enabled in the settings
+    private final PacketMetrics metrics = new PacketMetrics();
 
 
     /**
@@ -79,18 +98,17 @@ public class EventManager {
      * @param postCallListenerAction The action to be ran after all the listeners have finished processing
      */
     public void callEvent(PacketEvent event, @Nullable Runnable postCallListenerAction) {
-        for (PacketListenerCommon listener : listeners) {
-            try {
-                event.call(listener);
-            } catch (Exception t) {
-                // ignore handshake exceptions
-                if (t.getClass() != InvalidHandshakeException.class) {
-                    PacketEvents.getAPI().getLogger().log(Level.WARNING, "PacketEvents caught an unhandled exception while calling your listener.", t);
+        PacketListenerCommon[] listeners = event instanceof ProtocolPacketEvent
+                ? this.getListeners((ProtocolPacketEvent) event) : this.listeners;
+        if (listeners.length != 0 && event instanceof ProtocolPacketEvent && isMetricsEnabled()) {
+            this.callEventMeasured((ProtocolPacketEvent) event, listeners, postCallListenerAction);
+        } else {
+            for (PacketListenerCommon listener : listeners) {
+                callListener(event, listener);
+                if (postCallListenerAction != null) {
+                    postCallListenerAction.run();
                 }
             }
-            if (postCallListenerAction != null) {
-                postCallListenerAction.run();
-            }
         }
         // For performance reasons, we don't want to re-encode the packet if it's not needed.
         if (event instanceof ProtocolPacketEvent && !((ProtocolPacketEvent) event).needsReEncode()) {
@@ -98,6 +116,100 @@ public class EventManager {
         }
     }
 
+    private void callEventMeasured(ProtocolPacketEvent event, PacketListenerCommon[] listeners,
+                                   @Nullable Runnable postCallListenerAction) {
+        PacketTypeCommon packetType = event.getPacketType();
+        for (PacketListenerCommon listener : listeners) {
+            boolean cancelled = event.isCancelled();
+            boolean reEncode = willReEncode(event);
+            long start = System.nanoTime();
+            callListener(event, listener);
+            long nanos = System.nanoTime() - start;
+            if (packetType != null) {
+                this.metrics.record(listener, packetType, nanos,
+                        !cancelled && event.isCancelled(), !reEncode && willReEncode(event));
+            }
+            if (postCallListenerAction != null) {
+                postCallListenerAction.run();
+            }
+        }
+    }
+
+    private static void callListener(PacketEvent event, PacketListenerCommon listener) {
+        try {
+            event.call(listener);
+        } catch (Exception t) {
+            // ignore handshake exceptions
+            if (t.getClass() != InvalidHandshakeException.class) {
+                PacketEvents.getAPI().getLogger().log(Level.WARNING, "PacketEvents caught an unhandled exception while calling your listener.", t);
+            }
+        }
+    }
+
+    private static boolean willReEncode(ProtocolPacketEvent event) {
+        return event.needsReEncode() && event.getLastUsedWrapper() != null;
+    }
+
+    private static boolean isMetricsEnabled() {
+        PacketEventsAPI<?> api = PacketEvents.getAPI();
+        return api != null && api.getSettings().isMetricsEnabled();
+    }
+
+    /**
+     * Get the metrics recorded for the listeners.
+     * They are only recorded while {@link PacketEventsSettings#isMetricsEnabled()} is true.
+     *
+     * @return the metrics of all listeners which handled a packet since the last reset
+     */
+    public PacketMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Get the listeners which will be called for a packet, sorted by priority.
+     *
+     * @param side       the side sending the packet
+     * @param state      the connection state the packet is sent in
+     * @param packetType the type of the packet
+     * @return the listeners interested in the packet type, do not modify the returned array
+     */
+    public PacketListenerCommon[] getListeners(PacketSide side, ConnectionState state, PacketTypeCommon packetType) {
+        int ordinal = ((Enum<?>) packetType).ordinal();
+        PacketTypeCommon[] packetTypes = PACKET_TYPES[side.ordinal()][state.ordinal()];
+        //Make sure the packet type actually belongs to this side and state, otherwise fall back to everyone
+        if (ordinal >= packetTypes.length || packetTypes[ordinal] != packetType) {
+            return this.listeners;
+        }
+        return this.packetListeners[side.ordinal()][state.ordinal()][ordinal];
+    }
+
+    /**
+     * Check whether any registered listener is interested in a packet.
+     * If this returns false, the packet can be passed on without creating an event for it.
+     *
+     * @param side       the side sending the packet
+     * @param state      the connection state the packet is sent in
+     * @param packetType the type of the packet
+     * @return true if at least one listener would be called for the packet
+     */
+    public boolean isListening(PacketSide side, ConnectionState state, PacketTypeCommon packetType) {
+        int ordinal = ((Enum<?>) packetType).ordinal();
+        PacketTypeCommon[] packetTypes = PACKET_TYPES[side.ordinal()][state.ordinal()];
+        if (ordinal >= packetTypes.length || packetTypes[ordinal] != packetType) {
+            return this.listeners.length != 0;
+        }
+        long[] mask = this.interestMasks[side.ordinal()][state.ordinal()];
+        return (mask[ordinal >>> 6] & (1L << ordinal)) != 0L;
+    }
+
+    private PacketListenerCommon[] getListeners(ProtocolPacketEvent event) {
+        PacketTypeCommon packetType = event.getPacketType();
+        if (packetType == null) {
+            return this.listeners;
+        }
+        return this.getListeners(packetType.getSide(), event.getConnectionState(), packetType);
+    }
+
     /**
      * Register the dynamic packet event listener.
      *
@@ -152,7 +264,9 @@ public class EventManager {
     public void unregisterAllListeners() {
         this.listenersMap.clear();
         synchronized (this) {//like booky10 said, the synchronization is necessary here
-            this.listeners = new PacketListenerCommon[0];
+            this.listeners = NO_LISTENERS;
+            this.packetListeners = createPacketListenerTable(NO_LISTENERS);
+            this.interestMasks = createInterestMasks(this.packetListeners);
         }
     }
 
@@ -166,8 +280,73 @@ public class EventManager {
                 Set<PacketListenerCommon> set = this.listenersMap.get(priority);
                 if (set != null) list.addAll(set);
             }
-            this.listeners = list.toArray(new PacketListenerCommon[0]);
+            PacketListenerCommon[] listeners = list.toArray(new PacketListenerCommon[0]);
+            this.packetListeners = createPacketListenerTable(listeners);
+            this.interestMasks = createInterestMasks(this.packetListeners);
+            this.listeners = listeners;
+        }
+    }
+
+    private static PacketTypeCommon[][][] createPacketTypeTable() {
+        PacketSide[] sides = PacketSide.values();
+        ConnectionState[] states = ConnectionState.values();
+        PacketTypeCommon[][][] table = new PacketTypeCommon[sides.length][states.length][];
+        for (PacketSide side : sides) {
+            for (ConnectionState state : states) {
+                table[side.ordinal()][state.ordinal()] = PacketType.getPacketTypes(side, state);
+            }
+        }
+        return table;
+    }
+
+    //The listeners have to be passed sorted by priority, as the per packet type arrays keep their order
+    private static PacketListenerCommon[][][][] createPacketListenerTable(PacketListenerCommon[] listeners) {
+        //Resolve the interests once, instead of once per packet type
+        List<Collection<PacketTypeCommon>> interests = new ArrayList<>(listeners.length);
+        for (PacketListenerCommon listener : listeners) {
+            interests.add(listener.getPacketTypes());
+        }
+
+        PacketListenerCommon[][][][] table = new PacketListenerCommon[PACKET_TYPES.length][][][];
+        //Most packet types will end up with the same listeners, so share equal arrays between them
+        Map<List<PacketListenerCommon>, PacketListenerCommon[]> cache = new HashMap<>();
+        for (int side = 0; side < PACKET_TYPES.length; side++) {
+            table[side] = new PacketListenerCommon[PACKET_TYPES[side].length][][];
+            for (int state = 0; state < PACKET_TYPES[side].length; state++) {
+                PacketTypeCommon[] packetTypes = PACKET_TYPES[side][state];
+                PacketListenerCommon[][] row = new PacketListenerCommon[packetTypes.length][];
+                for (int ordinal = 0; ordinal < packetTypes.length; ordinal++) {
+                    List<PacketListenerCommon> matching = new ArrayList<>();
+                    for (int i = 0; i < listeners.length; i++) {
+                        Collection<PacketTypeCommon> interest = interests.get(i);
+                        if (interest == null || interest.contains(packetTypes[ordinal])) {
+                            matching.add(listeners[i]);
+                        }
+                    }
+                    row[ordinal] = cache.computeIfAbsent(matching, l -> l.toArray(NO_LISTENERS));
+                }
+                table[side][state] = row;
+            }
+        }
+        return table;
+    }
+
+    private static long[][][] createInterestMasks(PacketListenerCommon[][][][] packetListeners) {
+        long[][][] masks = new long[packetListeners.length][][];
+        for (int side = 0; side < packetListeners.length; side++) {
+            masks[side] = new long[packetListeners[side].length][];
+            for (int state = 0; state < packetListeners[side].length; state++) {
+                PacketListenerCommon[][] row = packetListeners[side][state];
+                long[] mask = new long[(row.length + 63) >>> 6];
+                for (int ordinal = 0; ordinal < row.length; ordinal++) {
+                    if (row[ordinal].length != 0) {
+                        mask[ordinal >>> 6] |= 1L << ordinal;
+                    }
+                }
+                masks[side][state] = mask;
+            }
         }
+        return masks;
     }
 
     //Internal registration methods, specifically separated for lesser overhead when registering an array of Listeners
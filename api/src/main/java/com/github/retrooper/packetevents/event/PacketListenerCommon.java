@@ -18,7 +18,11 @@
 
 package com.github.retrooper.packetevents.event;
 
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import org.jetbrains.annotations.Nullable;
+
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +47,17 @@ public abstract class PacketListenerCommon {
         return priority;
     }
 
+    /**
+     * The packet types this listener should be called for. Packets of any other type skip this
+     * listener entirely, while user connect, login, disconnect and external events are always delivered.
+     * This is only queried when the listener gets registered, so the result must not change afterwards.
+     *
+     * @return the packet types this listener is interested in, or null to receive every packet
+     */
+    public @Nullable Collection<PacketTypeCommon> getPacketTypes() {
+        return null;
+    }
+
     public void onUserConnect(UserConnectEvent event) {
     }
 
@@ -30,6 +30,7 @@ import com.github.retrooper.packetevents.protocol.PacketSide;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.player.ProtocolContext;
 import com.github.retrooper.packetevents.protocol.player.User;
 import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import org.jetbrains.annotations.NotNull;
@@ -61,11 +62,11 @@ public abstract class ProtocolPacketEvent extends PacketEvent implements PlayerE
         this.channel = channel;
         this.user = user;
         this.player = player;
-        if (autoProtocolTranslation || user.getClientVersion() == null) {
+        ProtocolContext context = user.getProtocolContext();
+        if (autoProtocolTranslation || context.getServerVersion() == null) {
             this.serverVersion = PacketEvents.getAPI().getServerManager().getVersion();
         } else {
-            //TODO Optimize
-            this.serverVersion = user.getClientVersion().toServerVersion();
+            this.serverVersion = context.getServerVersion();
         }
 
         this.byteBuf = byteBuf;
@@ -79,9 +80,8 @@ public abstract class ProtocolPacketEvent extends PacketEvent implements PlayerE
             throw new PacketProcessException("Failed to read the Packet ID of a packet. (Size: " + size + ")");
         }
         ClientVersion version = serverVersion.toClientVersion();
-        ConnectionState state = packetSide == PacketSide.CLIENT ? user.getDecoderState() : user.getEncoderState();
-        this.packetType = PacketType.getById(packetSide, state,
-                version, packetID);
+        ConnectionState state = context.getState(packetSide);
+        this.packetType = PacketType.getById(user.getPacketIdTable(packetSide, state, version), packetID);
         if (this.packetType == null) {
             // mojang messed up and keeps sending disconnect packets in the wrong protocol state
             if (PacketType.getById(packetSide, ConnectionState.PLAY, version, packetID) == PacketType.Play.Server.DISCONNECT) {
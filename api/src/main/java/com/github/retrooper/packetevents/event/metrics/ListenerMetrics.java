@@ -0,0 +1,84 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.event.metrics;
+
+import com.github.retrooper.packetevents.event.PacketListenerCommon;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics of a single listener, split up by the packet types it handled.
+ */
+public final class ListenerMetrics {
+
+    private final PacketListenerCommon listener;
+    private final Map<PacketTypeCommon, PacketTypeMetrics> packetTypes = new ConcurrentHashMap<>();
+
+    ListenerMetrics(PacketListenerCommon listener) {
+        this.listener = listener;
+    }
+
+    PacketTypeMetrics getOrCreate(PacketTypeCommon packetType) {
+        // plain get first, computeIfAbsent locks even if the mapping exists on java 8
+        PacketTypeMetrics metrics = this.packetTypes.get(packetType);
+        if (metrics == null) {
+            metrics = this.packetTypes.computeIfAbsent(packetType, PacketTypeMetrics::new);
+        }
+        return metrics;
+    }
+
+    public PacketListenerCommon getListener() {
+        return this.listener;
+    }
+
+    /**
+     * @return the metrics of the given packet type, or null if the listener hasn't handled it yet
+     */
+    public @Nullable PacketTypeMetrics getMetrics(PacketTypeCommon packetType) {
+        return this.packetTypes.get(packetType);
+    }
+
+    public Collection<PacketTypeMetrics> getPacketTypeMetrics() {
+        return Collections.unmodifiableCollection(this.packetTypes.values());
+    }
+
+    public long getInvocations() {
+        long invocations = 0L;
+        for (PacketTypeMetrics metrics : this.packetTypes.values()) {
+            invocations += metrics.getInvocations();
+        }
+        return invocations;
+    }
+
+    /**
+     * @return the time spent in this listener over all packet types
+     */
+    public long getTotalNanos() {
+        long totalNanos = 0L;
+        for (PacketTypeMetrics metrics : this.packetTypes.values()) {
+            totalNanos += metrics.getTotalNanos();
+        }
+        return totalNanos;
+    }
+}
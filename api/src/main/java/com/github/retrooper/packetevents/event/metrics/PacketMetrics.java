@@ -0,0 +1,92 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.event.metrics;
+
+import com.github.retrooper.packetevents.event.PacketListenerCommon;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invocation count, latency, cancellations and re-encodes of every listener, per packet type.
+ * Only recorded while {@link com.github.retrooper.packetevents.settings.PacketEventsSettings#isMetricsEnabled()} is true.
+ * <p>
+ * The metrics of a listener are kept after it has been unregistered, until {@link #reset()} is called.
+ *
+ * @see com.github.retrooper.packetevents.event.EventManager#getMetrics()
+ */
+public final class PacketMetrics {
+
+    private final Map<PacketListenerCommon, ListenerMetrics> listeners = new ConcurrentHashMap<>();
+
+    @ApiStatus.Internal
+    public void record(PacketListenerCommon listener, PacketTypeCommon packetType,
+                       long nanos, boolean cancelled, boolean reEncoded) {
+        ListenerMetrics metrics = this.listeners.get(listener);
+        if (metrics == null) {
+            metrics = this.listeners.computeIfAbsent(listener, ListenerMetrics::new);
+        }
+        metrics.getOrCreate(packetType).record(nanos, cancelled, reEncoded);
+    }
+
+    /**
+     * @return the metrics of the given listener, or null if it hasn't handled any packet yet
+     */
+    public @Nullable ListenerMetrics getMetrics(PacketListenerCommon listener) {
+        return this.listeners.get(listener);
+    }
+
+    public @Nullable PacketTypeMetrics getMetrics(PacketListenerCommon listener, PacketTypeCommon packetType) {
+        ListenerMetrics metrics = this.listeners.get(listener);
+        return metrics != null ? metrics.getMetrics(packetType) : null;
+    }
+
+    public Collection<ListenerMetrics> getListenerMetrics() {
+        return Collections.unmodifiableCollection(this.listeners.values());
+    }
+
+    /**
+     * @return the metrics of all listeners, sorted by the time spent in them, the slowest first
+     */
+    public List<ListenerMetrics> getSlowestListeners() {
+        List<ListenerMetrics> list = new ArrayList<>(this.listeners.values());
+        // sum up once, the totals keep changing while sorting
+        Map<ListenerMetrics, Long> totals = new HashMap<>();
+        for (ListenerMetrics metrics : list) {
+            totals.put(metrics, metrics.getTotalNanos());
+        }
+        list.sort((a, b) -> Long.compare(totals.get(b), totals.get(a)));
+        return list;
+    }
+
+    /**
+     * Resets all recorded metrics and forgets about unregistered listeners.
+     */
+    public void reset() {
+        this.listeners.clear();
+    }
+}
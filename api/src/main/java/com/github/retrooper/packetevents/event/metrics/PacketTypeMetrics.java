@@ -0,0 +1,101 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.event.metrics;
+
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a single listener handling a single packet type.
+ * Counters are striped, so network threads recording at the same time don't contend on them.
+ */
+public final class PacketTypeMetrics {
+
+    private final PacketTypeCommon packetType;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder reEncodes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    PacketTypeMetrics(PacketTypeCommon packetType) {
+        this.packetType = packetType;
+    }
+
+    void record(long nanos, boolean cancelled, boolean reEncoded) {
+        this.invocations.increment();
+        this.totalNanos.add(nanos);
+        this.latency.record(nanos);
+        if (cancelled) {
+            this.cancellations.increment();
+        }
+        if (reEncoded) {
+            this.reEncodes.increment();
+        }
+    }
+
+    public PacketTypeCommon getPacketType() {
+        return this.packetType;
+    }
+
+    public long getInvocations() {
+        return this.invocations.sum();
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    public long getAverageNanos() {
+        long invocations = this.getInvocations();
+        return invocations == 0L ? 0L : this.getTotalNanos() / invocations;
+    }
+
+    /**
+     * @param percentile the percentile, from 0 to 100
+     * @return an upper bound of the percentile in nanoseconds
+     * @see LatencyHistogram#getPercentile(double)
+     */
+    public long getPercentileNanos(double percentile) {
+        return this.latency.getPercentile(percentile);
+    }
+
+    public long getMaxNanos() {
+        return this.latency.getMax();
+    }
+
+    /**
+     * @return how often the listener cancelled a packet which wasn't cancelled before
+     */
+    public long getCancellations() {
+        return this.cancellations.sum();
+    }
+
+    /**
+     * @return how often the listener caused a packet to be re-encoded which wouldn't have been before
+     */
+    public long getReEncodes() {
+        return this.reEncodes.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+}
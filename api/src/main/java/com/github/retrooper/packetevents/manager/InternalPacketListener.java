@@ -27,6 +27,7 @@ import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
 import com.github.retrooper.packetevents.manager.server.ServerVersion;
 import com.github.retrooper.packetevents.protocol.ConnectionState;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 import com.github.retrooper.packetevents.protocol.player.User;
 import com.github.retrooper.packetevents.protocol.player.UserProfile;
@@ -38,8 +39,26 @@ import com.github.retrooper.packetevents.wrapper.login.server.WrapperLoginServer
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerJoinGame;
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerRespawn;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
 public class InternalPacketListener extends PacketListenerAbstract {
 
+    private static final Collection<PacketTypeCommon> PACKET_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            PacketType.Login.Server.LOGIN_SUCCESS,
+            PacketType.Configuration.Server.REGISTRY_DATA,
+            PacketType.Play.Server.JOIN_GAME,
+            PacketType.Play.Server.RESPAWN,
+            PacketType.Play.Server.CONFIGURATION_START,
+            PacketType.Configuration.Server.CONFIGURATION_END,
+            PacketType.Handshaking.Client.HANDSHAKE,
+            PacketType.Login.Client.LOGIN_SUCCESS_ACK,
+            PacketType.Play.Client.CONFIGURATION_ACK,
+            PacketType.Configuration.Client.CONFIGURATION_END_ACK
+    )));
+
     public InternalPacketListener() {
         this(PacketListenerPriority.LOWEST);
     }
@@ -48,6 +67,11 @@ public class InternalPacketListener extends PacketListenerAbstract {
         super(priority);
     }
 
+    @Override
+    public Collection<PacketTypeCommon> getPacketTypes() {
+        return PACKET_TYPES;
+    }
+
     @Override
     public void onPacketSend(PacketSendEvent event) {
         User user = event.getUser();
@@ -23,6 +23,7 @@ import com.github.retrooper.packetevents.netty.channel.ChannelHelper;
 import com.github.retrooper.packetevents.protocol.ProtocolVersion;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.util.PacketBroadcastUtil;
 import com.github.retrooper.packetevents.util.PacketTransformationUtil;
 import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import org.jetbrains.annotations.ApiStatus;
@@ -54,7 +55,6 @@ public interface ProtocolManager {
     void receivePacket(Object channel, Object byteBuf);
     void receivePacketSilently(Object channel, Object byteBuf);
     ClientVersion getClientVersion(Object channel);
-    //TODO Define method that accepts an array of channels/set/list of channels.
 
     default void sendPackets(Object channel, Object... byteBuf) {
         for (Object buf : byteBuf) {
@@ -125,6 +125,27 @@ public interface ProtocolManager {
         sendPacketsSilently(channel, transformed);
     }
 
+    /**
+     * Sends the wrapper to all of the users, serializing it only once for every group of users
+     * sharing a protocol version and connection state. The users of a group all receive the same bytes.
+     *
+     * @param users   the users to send the packet to
+     * @param wrapper the packet
+     */
+    default void broadcastPacket(Collection<User> users, PacketWrapper<?> wrapper) {
+        PacketBroadcastUtil.broadcast(this, users, wrapper, false);
+    }
+
+    /**
+     * Like {@link #broadcastPacket(Collection, PacketWrapper)}, but without calling any listeners.
+     *
+     * @param users   the users to send the packet to
+     * @param wrapper the packet
+     */
+    default void broadcastPacketSilently(Collection<User> users, PacketWrapper<?> wrapper) {
+        PacketBroadcastUtil.broadcast(this, users, wrapper, true);
+    }
+
     default void writePacket(Object channel, PacketWrapper<?> wrapper) {
         Object[] transformed = transformWrappers(wrapper, channel, true);
         writePackets(channel, transformed);
@@ -127,6 +127,10 @@ public class ByteBufHelper {
         return PacketEvents.getAPI().getNettyManager().getByteBufOperator().readLong(buffer);
     }
 
+    public static void readLongs(Object buffer, long[] destination, int offset, int length) {
+        PacketEvents.getAPI().getNettyManager().getByteBufOperator().readLongs(buffer, destination, offset, length);
+    }
+
     public static void writeLong(Object buffer, long value) {
         PacketEvents.getAPI().getNettyManager().getByteBufOperator().writeLong(buffer, value);
     }
@@ -240,29 +244,27 @@ public class ByteBufHelper {
     }
 
     public static int readVarInt(Object buffer) {
-        int value = 0;
-        int length = 0;
-        byte currentByte;
-        do {
-            currentByte = readByte(buffer);
-            value |= (currentByte & 0x7F) << (length * 7);
-            length++;
-            if (length > 5) {
-                throw new RuntimeException("VarInt is too large. Must be smaller than 5 bytes.");
-            }
-        } while ((currentByte & 0x80) == 0x80);
-        return value;
+        return PacketEvents.getAPI().getNettyManager().getByteBufOperator().readVarInt(buffer);
     }
 
     public static void writeVarInt(Object buffer, int value) {
-        while (true) {
-            if ((value & ~0x7F) == 0) {
-                writeByte(buffer, value);
-                return;
-            }
-            writeByte(buffer, (value & 0x7F) | 0x80);
-            value >>>= 7;
-        }
+        PacketEvents.getAPI().getNettyManager().getByteBufOperator().writeVarInt(buffer, value);
+    }
+
+    public static long readVarLong(Object buffer) {
+        return PacketEvents.getAPI().getNettyManager().getByteBufOperator().readVarLong(buffer);
+    }
+
+    public static void writeVarLong(Object buffer, long value) {
+        PacketEvents.getAPI().getNettyManager().getByteBufOperator().writeVarLong(buffer, value);
+    }
+
+    public static int getVarIntSize(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    public static int getVarLongSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1L)) / 7 + 1;
     }
 
     public static byte[] copyBytes(Object buffer) {
@@ -115,4 +115,59 @@ public interface ByteBufOperator {
     default void writeBoolean(Object buffer, boolean value) {
         writeByte(buffer, value ? 1 : 0);
     }
+
+    // Platforms are expected to override the VarInt codecs with ones operating on the buffer memory directly
+
+    default int readVarInt(Object buffer) {
+        int value = 0;
+        int length = 0;
+        byte currentByte;
+        do {
+            currentByte = readByte(buffer);
+            value |= (currentByte & 0x7F) << (length * 7);
+            length++;
+            if (length > 5) {
+                throw new RuntimeException("VarInt is too large. Must be smaller than 5 bytes.");
+            }
+        } while ((currentByte & 0x80) == 0x80);
+        return value;
+    }
+
+    default void writeVarInt(Object buffer, int value) {
+        while (true) {
+            if ((value & ~0x7F) == 0) {
+                writeByte(buffer, value);
+                return;
+            }
+            writeByte(buffer, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+    }
+
+    default long readVarLong(Object buffer) {
+        long value = 0;
+        int size = 0;
+        int b;
+        while (((b = readByte(buffer)) & 0x80) == 0x80) {
+            value |= (long) (b & 0x7F) << (size++ * 7);
+        }
+        return value | ((long) (b & 0x7F) << (size * 7));
+    }
+
+    default void writeVarLong(Object buffer, long value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte(buffer, (int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(buffer, (int) value);
+    }
+
+    /**
+     * Reads {@code length} big endian longs into the given array, starting at {@code offset}.
+     */
+    default void readLongs(Object buffer, long[] destination, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            destination[i] = readLong(buffer);
+        }
+    }
 }
@@ -23,6 +23,7 @@ import com.github.retrooper.packetevents.PacketEvents;
 import java.net.SocketAddress;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class ChannelHelper {
     public static SocketAddress remoteAddress(Object channel) {
@@ -100,4 +101,8 @@ public class ChannelHelper {
     public static void runInEventLoop(Object channel, Runnable runnable) {
         PacketEvents.getAPI().getNettyManager().getChannelOperator().runInEventLoop(channel, runnable);
     }
+
+    public static void scheduleInEventLoop(Object channel, Runnable runnable, long delay, TimeUnit unit) {
+        PacketEvents.getAPI().getNettyManager().getChannelOperator().scheduleInEventLoop(channel, runnable, delay, unit);
+    }
 }
@@ -20,6 +20,7 @@ package com.github.retrooper.packetevents.netty.channel;
 
 import java.net.SocketAddress;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public interface ChannelOperator {
     SocketAddress remoteAddress(Object channel);
@@ -56,5 +57,13 @@ public interface ChannelOperator {
 
     void runInEventLoop(Object channel, Runnable runnable);
 
+    /**
+     * Runs the task on the event loop of the channel after the delay.
+     * Operators without scheduling support run it right away instead.
+     */
+    default void scheduleInEventLoop(Object channel, Runnable runnable, long delay, TimeUnit unit) {
+        this.runInEventLoop(channel, runnable);
+    }
+
     Object pooledByteBuf(Object channel);
 }
@@ -38,6 +38,7 @@ import com.github.retrooper.packetevents.util.mappings.TypesBuilder;
 import com.github.retrooper.packetevents.util.mappings.TypesBuilderData;
 import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
 
 import java.util.*;
 import java.util.function.BiConsumer;
@@ -50,8 +51,9 @@ public class EntityDataTypes {
     //nbt was added in 1.12
 
     private static final Map<String, EntityDataType<?>> ENTITY_DATA_TYPE_MAP = new HashMap<>();
-    private static final Map<Byte, Map<Integer, EntityDataType<?>>> ENTITY_DATA_TYPE_ID_MAP = new HashMap<>();
     protected static final TypesBuilder TYPES_BUILDER = new TypesBuilder("entity/entity_data_type_mappings");
+    // entity data types indexed by their id, per mapping index
+    private static final EntityDataType<?>[][] ENTITY_DATA_TYPE_IDS = new EntityDataType<?>[TYPES_BUILDER.getVersions().length][0];
 
     public static final EntityDataType<Byte> BYTE = define("byte", PacketWrapper::readByte, PacketWrapper::writeByte);
 
@@ -215,9 +217,18 @@ public class EntityDataTypes {
     }
 
     public static EntityDataType<?> getById(ClientVersion version, int id) {
-        int index = TYPES_BUILDER.getDataIndex(version);
-        Map<Integer, EntityDataType<?>> typeIdMap = ENTITY_DATA_TYPE_ID_MAP.get((byte) index);
-        return typeIdMap.get(id);
+        EntityDataType<?>[] types = getTypeTable(version);
+        return id >= 0 && id < types.length ? types[id] : null;
+    }
+
+    /**
+     * Returns the entity data types of a version indexed by their id, so they can be resolved once
+     * for all entries of an entity metadata packet. Ids without a type are null.
+     * The returned array must not be modified.
+     */
+    @ApiStatus.Internal
+    public static EntityDataType<?>[] getTypeTable(ClientVersion version) {
+        return ENTITY_DATA_TYPE_IDS[TYPES_BUILDER.getDataIndex(version)];
     }
 
     public static EntityDataType<?> getByName(String name) {
@@ -231,10 +242,14 @@ public class EntityDataTypes {
         ENTITY_DATA_TYPE_MAP.put(type.getName(), type);
         for (ClientVersion version : TYPES_BUILDER.getVersions()) {
             int index = TYPES_BUILDER.getDataIndex(version);
-            if (index == -1) continue;
-            Map<Integer, EntityDataType<?>> typeIdMap = ENTITY_DATA_TYPE_ID_MAP
-                    .computeIfAbsent((byte) index, k -> new HashMap<>());
-            typeIdMap.put(type.getId(version), type);
+            int id = type.getId(version);
+            if (index == -1 || id < 0) continue;
+            EntityDataType<?>[] types = ENTITY_DATA_TYPE_IDS[index];
+            if (id >= types.length) {
+                types = Arrays.copyOf(types, id + 1);
+                ENTITY_DATA_TYPE_IDS[index] = types;
+            }
+            types[id] = type;
         }
         return type;
     }
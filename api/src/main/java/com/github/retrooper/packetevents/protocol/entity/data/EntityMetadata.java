@@ -0,0 +1,560 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.entity.data;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact alternative to a list of {@link EntityData}, addressed by entity data index.
+ * <p>
+ * Entries are kept in parallel arrays in insertion order. Values of the byte, short, int,
+ * long, float and boolean types are stored unboxed, so reading and writing metadata which only
+ * consists of flags, health or pose does not allocate per entry.
+ * Setting an index which is already present replaces its type and value in place.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class EntityMetadata implements EntityMetadataProvider {
+
+    private static final byte KIND_OBJECT = 0;
+    private static final byte KIND_BYTE = 1;
+    private static final byte KIND_SHORT = 2;
+    private static final byte KIND_INT = 3;
+    private static final byte KIND_LONG = 4;
+    private static final byte KIND_FLOAT = 5;
+    private static final byte KIND_BOOLEAN = 6;
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private byte[] indexes;
+    private EntityDataType<?>[] types;
+    private byte[] kinds;
+    private long[] primitives;
+    private Object @Nullable [] values;
+    private int size;
+
+    public EntityMetadata() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EntityMetadata(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        this.indexes = new byte[capacity];
+        this.types = new EntityDataType<?>[capacity];
+        this.kinds = new byte[capacity];
+        this.primitives = new long[capacity];
+        this.values = null; // only allocated once a non-primitive value is stored
+    }
+
+    public EntityMetadata(EntityMetadata other) {
+        this.indexes = Arrays.copyOf(other.indexes, Math.max(other.size, 1));
+        this.types = Arrays.copyOf(other.types, this.indexes.length);
+        this.kinds = Arrays.copyOf(other.kinds, this.indexes.length);
+        this.primitives = Arrays.copyOf(other.primitives, this.indexes.length);
+        this.values = other.values == null ? null : Arrays.copyOf(other.values, this.indexes.length);
+        this.size = other.size;
+    }
+
+    public static EntityMetadata fromList(List<EntityData> list) {
+        EntityMetadata metadata = new EntityMetadata(list.size());
+        for (EntityData data : list) {
+            metadata.setUnchecked(data.getIndex(), data.getType(), data.getValue());
+        }
+        return metadata;
+    }
+
+    /**
+     * Reads entity metadata up to and including its end marker. The entity data types
+     * are resolved once for the server version of the wrapper.
+     */
+    public static EntityMetadata read(PacketWrapper<?> wrapper) {
+        ServerVersion serverVersion = wrapper.getServerVersion();
+        ClientVersion version = serverVersion.toClientVersion();
+        EntityDataType<?>[] typeTable = EntityDataTypes.getTypeTable(version);
+        EntityMetadata metadata = new EntityMetadata();
+        if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9)) {
+            boolean v1_10 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_10);
+            short index;
+            while ((index = wrapper.readUnsignedByte()) != 255) {
+                int typeId = v1_10 ? wrapper.readVarInt() : wrapper.readUnsignedByte();
+                metadata.readEntry(wrapper, index, lookupType(typeTable, typeId, version));
+            }
+        } else {
+            for (byte data = wrapper.readByte(); data != Byte.MAX_VALUE; data = wrapper.readByte()) {
+                int typeId = (data & 0xE0) >> 5;
+                metadata.readEntry(wrapper, data & 0x1F, lookupType(typeTable, typeId, version));
+            }
+        }
+        return metadata;
+    }
+
+    @ApiStatus.Internal
+    public static EntityDataType<?> lookupType(EntityDataType<?>[] typeTable, int typeId, ClientVersion version) {
+        EntityDataType<?> type = typeId >= 0 && typeId < typeTable.length ? typeTable[typeId] : null;
+        if (type == null) {
+            throw new IllegalStateException("Unknown entity metadata type id: " + typeId + " version " + version);
+        }
+        return type;
+    }
+
+    private void readEntry(PacketWrapper<?> wrapper, int index, EntityDataType<?> type) {
+        byte kind = kindOf(type);
+        long primitive;
+        switch (kind) {
+            case KIND_BYTE:
+                primitive = wrapper.readByte();
+                break;
+            case KIND_SHORT:
+                primitive = wrapper.readShort();
+                break;
+            case KIND_INT:
+                primitive = readInt(wrapper);
+                break;
+            case KIND_LONG:
+                primitive = wrapper.readVarLong();
+                break;
+            case KIND_FLOAT:
+                primitive = Float.floatToRawIntBits(wrapper.readFloat());
+                break;
+            case KIND_BOOLEAN:
+                primitive = wrapper.readBoolean() ? 1L : 0L;
+                break;
+            default:
+                this.setObject(this.slotFor(index), type, type.getDataDeserializer().apply(wrapper));
+                return;
+        }
+        this.setPrimitive(this.slotFor(index), type, kind, primitive);
+    }
+
+    /**
+     * Writes all entries in insertion order, followed by the end marker.
+     */
+    public void write(PacketWrapper<?> wrapper) {
+        ServerVersion serverVersion = wrapper.getServerVersion();
+        ClientVersion version = serverVersion.toClientVersion();
+        boolean v1_9 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9);
+        boolean v1_10 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_10);
+        for (int slot = 0; slot < this.size; slot++) {
+            EntityDataType<?> type = this.types[slot];
+            int typeId = type.getId(version);
+            if (v1_10) {
+                wrapper.writeByte(this.indexes[slot]);
+                wrapper.writeVarInt(typeId);
+            } else if (v1_9) {
+                wrapper.writeByte(this.indexes[slot]);
+                wrapper.writeByte(typeId);
+            } else {
+                wrapper.writeByte((typeId << 5 | this.indexes[slot] & 31) & 255);
+            }
+            this.writeValue(wrapper, slot);
+        }
+        wrapper.writeByte(v1_9 ? 255 : 127); // End of metadata array
+    }
+
+    private void writeValue(PacketWrapper<?> wrapper, int slot) {
+        long primitive = this.primitives[slot];
+        switch (this.kinds[slot]) {
+            case KIND_BYTE:
+                wrapper.writeByte((byte) primitive);
+                break;
+            case KIND_SHORT:
+                wrapper.writeShort((short) primitive);
+                break;
+            case KIND_INT:
+                writeInt(wrapper, (int) primitive);
+                break;
+            case KIND_LONG:
+                wrapper.writeVarLong(primitive);
+                break;
+            case KIND_FLOAT:
+                wrapper.writeFloat(Float.intBitsToFloat((int) primitive));
+                break;
+            case KIND_BOOLEAN:
+                wrapper.writeBoolean(primitive != 0L);
+                break;
+            default:
+                this.types[slot].getDataSerializer().accept(wrapper, this.values[slot]);
+                break;
+        }
+    }
+
+    /**
+     * Overwrites the value of an index directly in the buffer of the wrapper, starting at its reader index.
+     * This only works if the index is present with the same type and the value has a fixed size on
+     * the server version, as the rest of the buffer would have to be moved otherwise.
+     * The reader index of the wrapper is left at an unspecified position.
+     *
+     * @return whether the value has been overwritten
+     */
+    @ApiStatus.Internal
+    public static boolean patchInPlace(PacketWrapper<?> wrapper, int index, EntityDataType<?> type, Object value) {
+        ServerVersion serverVersion = wrapper.getServerVersion();
+        byte kind = kindOf(type);
+        boolean fixedSize = kind == KIND_BYTE || kind == KIND_SHORT || kind == KIND_FLOAT || kind == KIND_BOOLEAN
+                || (kind == KIND_INT && serverVersion.isOlderThan(ServerVersion.V_1_9));
+        if (!fixedSize) {
+            return false;
+        }
+        ClientVersion version = serverVersion.toClientVersion();
+        EntityDataType<?>[] typeTable = EntityDataTypes.getTypeTable(version);
+        boolean v1_9 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9);
+        boolean v1_10 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_10);
+        while (true) {
+            int entryIndex;
+            int typeId;
+            if (v1_9) {
+                entryIndex = wrapper.readUnsignedByte();
+                if (entryIndex == 255) {
+                    return false;
+                }
+                typeId = v1_10 ? wrapper.readVarInt() : wrapper.readUnsignedByte();
+            } else {
+                byte data = wrapper.readByte();
+                if (data == Byte.MAX_VALUE) {
+                    return false;
+                }
+                entryIndex = data & 0x1F;
+                typeId = (data & 0xE0) >> 5;
+            }
+            EntityDataType<?> entryType = lookupType(typeTable, typeId, version);
+            if (entryIndex == index) {
+                if (entryType != type) {
+                    return false;
+                }
+                Object buffer = wrapper.getBuffer();
+                int writerIndex = ByteBufHelper.writerIndex(buffer);
+                ByteBufHelper.writerIndex(buffer, ByteBufHelper.readerIndex(buffer));
+                type.getDataSerializer().accept(wrapper, value);
+                ByteBufHelper.writerIndex(buffer, writerIndex);
+                return true;
+            }
+            skipValue(wrapper, entryType);
+        }
+    }
+
+    private static void skipValue(PacketWrapper<?> wrapper, EntityDataType<?> type) {
+        switch (kindOf(type)) {
+            case KIND_BYTE:
+            case KIND_BOOLEAN:
+                ByteBufHelper.skipBytes(wrapper.getBuffer(), 1);
+                break;
+            case KIND_SHORT:
+                ByteBufHelper.skipBytes(wrapper.getBuffer(), 2);
+                break;
+            case KIND_FLOAT:
+                ByteBufHelper.skipBytes(wrapper.getBuffer(), 4);
+                break;
+            case KIND_INT:
+                readInt(wrapper);
+                break;
+            case KIND_LONG:
+                wrapper.readVarLong();
+                break;
+            default:
+                type.getDataDeserializer().apply(wrapper);
+                break;
+        }
+    }
+
+    // mirrors EntityDataTypes#INT
+    static int readInt(PacketWrapper<?> wrapper) {
+        return wrapper.getServerVersion().isNewerThanOrEquals(ServerVersion.V_1_9)
+                ? wrapper.readVarInt() : wrapper.readInt();
+    }
+
+    static void writeInt(PacketWrapper<?> wrapper, int value) {
+        if (wrapper.getServerVersion().isNewerThanOrEquals(ServerVersion.V_1_9)) {
+            wrapper.writeVarInt(value);
+        } else {
+            wrapper.writeInt(value);
+        }
+    }
+
+    static byte kindOf(EntityDataType<?> type) {
+        if (type == EntityDataTypes.BYTE) {
+            return KIND_BYTE;
+        } else if (type == EntityDataTypes.SHORT) {
+            return KIND_SHORT;
+        } else if (type == EntityDataTypes.INT) {
+            return KIND_INT;
+        } else if (type == EntityDataTypes.LONG) {
+            return KIND_LONG;
+        } else if (type == EntityDataTypes.FLOAT) {
+            return KIND_FLOAT;
+        } else if (type == EntityDataTypes.BOOLEAN) {
+            return KIND_BOOLEAN;
+        }
+        return KIND_OBJECT;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean has(int index) {
+        return this.slotOf(index) != -1;
+    }
+
+    public @Nullable EntityDataType<?> getType(int index) {
+        int slot = this.slotOf(index);
+        return slot == -1 ? null : this.types[slot];
+    }
+
+    /**
+     * Returns the value of the index, boxing it if it is stored as primitive.
+     */
+    public @Nullable Object getValue(int index) {
+        int slot = this.slotOf(index);
+        return slot == -1 ? null : this.boxed(slot);
+    }
+
+    public byte getByte(int index, byte fallback) {
+        int slot = this.slotOf(index, KIND_BYTE);
+        return slot == -1 ? fallback : (byte) this.primitives[slot];
+    }
+
+    public short getShort(int index, short fallback) {
+        int slot = this.slotOf(index, KIND_SHORT);
+        return slot == -1 ? fallback : (short) this.primitives[slot];
+    }
+
+    public int getInt(int index, int fallback) {
+        int slot = this.slotOf(index, KIND_INT);
+        return slot == -1 ? fallback : (int) this.primitives[slot];
+    }
+
+    public long getLong(int index, long fallback) {
+        int slot = this.slotOf(index, KIND_LONG);
+        return slot == -1 ? fallback : this.primitives[slot];
+    }
+
+    public float getFloat(int index, float fallback) {
+        int slot = this.slotOf(index, KIND_FLOAT);
+        return slot == -1 ? fallback : Float.intBitsToFloat((int) this.primitives[slot]);
+    }
+
+    public boolean getBoolean(int index, boolean fallback) {
+        int slot = this.slotOf(index, KIND_BOOLEAN);
+        return slot == -1 ? fallback : this.primitives[slot] != 0L;
+    }
+
+    public EntityMetadata setByte(int index, byte value) {
+        this.setPrimitive(this.slotFor(index), EntityDataTypes.BYTE, KIND_BYTE, value);
+        return this;
+    }
+
+    public EntityMetadata setShort(int index, short value) {
+        this.setPrimitive(this.slotFor(index), EntityDataTypes.SHORT, KIND_SHORT, value);
+        return this;
+    }
+
+    public EntityMetadata setInt(int index, int value) {
+        this.setPrimitive(this.slotFor(index), EntityDataTypes.INT, KIND_INT, value);
+        return this;
+    }
+
+    public EntityMetadata setLong(int index, long value) {
+        this.setPrimitive(this.slotFor(index), EntityDataTypes.LONG, KIND_LONG, value);
+        return this;
+    }
+
+    public EntityMetadata setFloat(int index, float value) {
+        this.setPrimitive(this.slotFor(index), EntityDataTypes.FLOAT, KIND_FLOAT, Float.floatToRawIntBits(value));
+        return this;
+    }
+
+    public EntityMetadata setBoolean(int index, boolean value) {
+        this.setPrimitive(this.slotFor(index), EntityDataTypes.BOOLEAN, KIND_BOOLEAN, value ? 1L : 0L);
+        return this;
+    }
+
+    public <T> EntityMetadata set(int index, EntityDataType<T> type, T value) {
+        this.setUnchecked(index, type, value);
+        return this;
+    }
+
+    void setUnchecked(int index, EntityDataType<?> type, @Nullable Object value) {
+        int slot = this.slotFor(index);
+        byte kind = kindOf(type);
+        if (kind == KIND_OBJECT || value == null) {
+            this.setObject(slot, type, value);
+            return;
+        }
+        long primitive;
+        switch (kind) {
+            case KIND_FLOAT:
+                primitive = Float.floatToRawIntBits((Float) value);
+                break;
+            case KIND_BOOLEAN:
+                primitive = (Boolean) value ? 1L : 0L;
+                break;
+            default:
+                primitive = ((Number) value).longValue();
+                break;
+        }
+        this.setPrimitive(slot, type, kind, primitive);
+    }
+
+    /**
+     * Removes the index, keeping the insertion order of the remaining entries.
+     *
+     * @return whether the index was present
+     */
+    public boolean remove(int index) {
+        int slot = this.slotOf(index);
+        if (slot == -1) {
+            return false;
+        }
+        int moved = this.size - slot - 1;
+        System.arraycopy(this.indexes, slot + 1, this.indexes, slot, moved);
+        System.arraycopy(this.types, slot + 1, this.types, slot, moved);
+        System.arraycopy(this.kinds, slot + 1, this.kinds, slot, moved);
+        System.arraycopy(this.primitives, slot + 1, this.primitives, slot, moved);
+        if (this.values != null) {
+            System.arraycopy(this.values, slot + 1, this.values, slot, moved);
+            this.values[this.size - 1] = null;
+        }
+        this.types[--this.size] = null;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(this.types, 0, this.size, null);
+        if (this.values != null) {
+            Arrays.fill(this.values, 0, this.size, null);
+        }
+        this.size = 0;
+    }
+
+    public List<EntityData> toList() {
+        List<EntityData> list = new ArrayList<>(this.size);
+        for (int slot = 0; slot < this.size; slot++) {
+            list.add(new EntityData(this.indexes[slot] & 0xFF, this.types[slot], this.boxed(slot)));
+        }
+        return list;
+    }
+
+    @Override
+    public List<EntityData> entityData(ClientVersion version) {
+        return this.toList();
+    }
+
+    private @Nullable Object boxed(int slot) {
+        long primitive = this.primitives[slot];
+        switch (this.kinds[slot]) {
+            case KIND_BYTE:
+                return (byte) primitive;
+            case KIND_SHORT:
+                return (short) primitive;
+            case KIND_INT:
+                return (int) primitive;
+            case KIND_LONG:
+                return primitive;
+            case KIND_FLOAT:
+                return Float.intBitsToFloat((int) primitive);
+            case KIND_BOOLEAN:
+                return primitive != 0L;
+            default:
+                return this.values[slot];
+        }
+    }
+
+    private int slotOf(int index) {
+        // entities have few entries, a linear scan beats hashing
+        byte key = (byte) index;
+        for (int slot = 0; slot < this.size; slot++) {
+            if (this.indexes[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slotOf(int index, byte kind) {
+        int slot = this.slotOf(index);
+        return slot != -1 && this.kinds[slot] == kind ? slot : -1;
+    }
+
+    private int slotFor(int index) {
+        if (index < 0 || index > 254) {
+            throw new IllegalArgumentException("Entity data index must be between 0 and 254, got " + index);
+        }
+        int slot = this.slotOf(index);
+        if (slot != -1) {
+            return slot;
+        }
+        if (this.size == this.indexes.length) {
+            int capacity = this.size * 2;
+            this.indexes = Arrays.copyOf(this.indexes, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.primitives = Arrays.copyOf(this.primitives, capacity);
+            if (this.values != null) {
+                this.values = Arrays.copyOf(this.values, capacity);
+            }
+        }
+        slot = this.size++;
+        this.indexes[slot] = (byte) index;
+        return slot;
+    }
+
+    private void setPrimitive(int slot, EntityDataType<?> type, byte kind, long primitive) {
+        this.types[slot] = type;
+        this.kinds[slot] = kind;
+        this.primitives[slot] = primitive;
+        if (this.values != null) {
+            this.values[slot] = null;
+        }
+    }
+
+    private void setObject(int slot, EntityDataType<?> type, @Nullable Object value) {
+        if (this.values == null) {
+            this.values = new Object[this.indexes.length];
+        }
+        this.types[slot] = type;
+        this.kinds[slot] = KIND_OBJECT;
+        this.primitives[slot] = 0L;
+        this.values[slot] = value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("EntityMetadata{");
+        for (int slot = 0; slot < this.size; slot++) {
+            if (slot != 0) {
+                builder.append(", ");
+            }
+            builder.append(this.indexes[slot] & 0xFF).append('=').append(this.boxed(slot));
+        }
+        return builder.append('}').toString();
+    }
+}
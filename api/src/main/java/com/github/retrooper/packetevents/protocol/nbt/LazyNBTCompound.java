@@ -0,0 +1,158 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.nbt;
+
+import com.github.retrooper.packetevents.netty.buffer.UnpooledByteBufAllocationHelper;
+import com.github.retrooper.packetevents.protocol.nbt.codec.NBTCodec;
+import com.github.retrooper.packetevents.protocol.nbt.serializer.ByteBufNBTSerializer;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compound read from the network which only keeps its encoded bytes until any of its tags is accessed.
+ * As long as that doesn't happen, it is written back exactly as it was read.
+ * <p>
+ * Tags of a parsed compound may be modified through any of the accessors,
+ * so it is always encoded again once it has been parsed.
+ *
+ * @see NBTCodec#readLazyNBTFromBuffer(Object, com.github.retrooper.packetevents.manager.server.ServerVersion)
+ */
+public class LazyNBTCompound extends NBTCompound {
+
+    private byte @Nullable [] encoded;
+    private final boolean named;
+
+    /**
+     * @param encoded the complete tag including its type id, and its name if named is set
+     * @param named   whether the root tag is followed by a name, which is the case before 1.20.2
+     */
+    @ApiStatus.Internal
+    public LazyNBTCompound(byte[] encoded, boolean named) {
+        this.encoded = encoded;
+        this.named = named;
+    }
+
+    /**
+     * @return whether this compound hasn't been parsed yet
+     */
+    public boolean isLazy() {
+        return this.encoded != null;
+    }
+
+    /**
+     * Returns the bytes this compound was read from, if it can still be written back as it is.
+     *
+     * @param named whether the root tag needs to be followed by a name
+     * @return the encoded tag, or null if it has to be encoded again
+     */
+    @ApiStatus.Internal
+    public byte @Nullable [] getEncoded(boolean named) {
+        return this.named == named ? this.encoded : null;
+    }
+
+    private void parse() {
+        byte[] encoded = this.encoded;
+        if (encoded == null) {
+            return;
+        }
+        NBT tag;
+        try {
+            Object buffer = UnpooledByteBufAllocationHelper.wrappedBuffer(encoded);
+            tag = ByteBufNBTSerializer.INSTANCE.deserializeTag(NBTLimiter.forBuffer(buffer), buffer, this.named);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        this.tags.putAll(((NBTCompound) tag).tags);
+        this.encoded = null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        this.parse();
+        return super.isEmpty();
+    }
+
+    @Override
+    public Set<String> getTagNames() {
+        this.parse();
+        return super.getTagNames();
+    }
+
+    @Override
+    public Map<String, NBT> getTags() {
+        this.parse();
+        return super.getTags();
+    }
+
+    @Override
+    public int size() {
+        this.parse();
+        return super.size();
+    }
+
+    @Override
+    public @Nullable NBT getTagOrNull(String key) {
+        this.parse();
+        return super.getTagOrNull(key);
+    }
+
+    @Override
+    public NBT removeTag(String key) {
+        this.parse();
+        return super.removeTag(key);
+    }
+
+    @Override
+    public void setTag(String key, NBT tag) {
+        this.parse();
+        super.setTag(key, tag);
+    }
+
+    @Override
+    public NBTCompound copy() {
+        byte[] encoded = this.encoded;
+        if (encoded != null) {
+            // the bytes are never modified, so they can be shared
+            return new LazyNBTCompound(encoded, this.named);
+        }
+        return super.copy();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        this.parse();
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        this.parse();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        this.parse();
+        return super.toString();
+    }
+}
@@ -218,7 +218,7 @@ public class NBTCompound extends NBT {
             if (isEmpty() && ((NBTCompound) other).isEmpty()) {
                 return true;
             }
-            return tags.equals(((NBTCompound) other).tags);
+            return tags.equals(((NBTCompound) other).getTags());
         }
         return false;
     }
@@ -23,6 +23,7 @@ import com.github.retrooper.packetevents.netty.buffer.ByteBufInputStream;
 import com.github.retrooper.packetevents.netty.buffer.ByteBufOutputStream;
 import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
 import com.github.retrooper.packetevents.protocol.nbt.*;
+import com.github.retrooper.packetevents.protocol.nbt.serializer.ByteBufNBTSerializer;
 import com.github.retrooper.packetevents.protocol.nbt.serializer.DefaultNBTSerializer;
 import com.google.gson.*;
 import com.google.gson.internal.LazilyParsedNumber;
@@ -38,6 +39,8 @@ import java.util.zip.GZIPOutputStream;
 
 public class NBTCodec {
 
+    private static final int NBT_COMPOUND_ID = 10;
+
     //PacketEvents start: JSON -> NBT conversion method
     @Deprecated
     public static NBT jsonToNBT(JsonElement element) {
@@ -158,8 +161,7 @@ public class NBTCodec {
         if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_8)) {
             try {
                 final boolean named = serverVersion.isOlderThan(ServerVersion.V_1_20_2);
-                return DefaultNBTSerializer.INSTANCE.deserializeTag(
-                        limiter, new ByteBufInputStream(byteBuf), named);
+                return ByteBufNBTSerializer.INSTANCE.deserializeTag(limiter, byteBuf, named);
             } catch (IOException ex) {
                 throw new IllegalStateException(ex);
             }
@@ -182,18 +184,69 @@ public class NBTCodec {
         }
     }
 
+    /**
+     * Reads the next nbt tag like {@link #readNBTFromBuffer(Object, ServerVersion)}, but compounds are only
+     * copied as they are and parsed once any of their tags is accessed. If that never happens,
+     * they are written back without being encoded again.
+     *
+     * @see LazyNBTCompound
+     */
+    public static NBT readLazyNBTFromBuffer(Object byteBuf, ServerVersion serverVersion) {
+        int start = ByteBufHelper.readerIndex(byteBuf);
+        if (serverVersion.isOlderThan(ServerVersion.V_1_8)
+                || ByteBufHelper.getUnsignedByte(byteBuf, start) != NBT_COMPOUND_ID) {
+            return readNBTFromBuffer(byteBuf, serverVersion);
+        }
+        boolean named = serverVersion.isOlderThan(ServerVersion.V_1_20_2);
+        try {
+            ByteBufNBTSerializer.INSTANCE.skipTag(NBTLimiter.forBuffer(byteBuf), byteBuf, named);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] encoded = new byte[ByteBufHelper.readerIndex(byteBuf) - start];
+        ByteBufHelper.getBytes(byteBuf, start, encoded);
+        return new LazyNBTCompound(encoded, named);
+    }
+
+    /**
+     * Moves the reader index of the buffer past the next nbt tag, without creating any tag instances.
+     */
+    public static void skipNBTFromBuffer(Object byteBuf, ServerVersion serverVersion) {
+        if (serverVersion.isOlderThan(ServerVersion.V_1_8)) {
+            // gzipped tags are prefixed with their length
+            short length = ByteBufHelper.readShort(byteBuf);
+            if (length > 0) {
+                ByteBufHelper.skipBytes(byteBuf, length);
+            }
+            return;
+        }
+        try {
+            boolean named = serverVersion.isOlderThan(ServerVersion.V_1_20_2);
+            ByteBufNBTSerializer.INSTANCE.skipTag(NBTLimiter.forBuffer(byteBuf), byteBuf, named);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
     public static void writeNBTToBuffer(Object byteBuf, ServerVersion serverVersion, NBTCompound tag) {
         writeNBTToBuffer(byteBuf, serverVersion, (NBT) tag);
     }
 
     public static void writeNBTToBuffer(Object byteBuf, ServerVersion serverVersion, NBT tag) {
         if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_8)) {
-            try (ByteBufOutputStream outputStream = new ByteBufOutputStream(byteBuf)) {
+            if (tag instanceof LazyNBTCompound) {
+                byte[] encoded = ((LazyNBTCompound) tag).getEncoded(serverVersion.isOlderThan(ServerVersion.V_1_20_2));
+                if (encoded != null) {
+                    ByteBufHelper.writeBytes(byteBuf, encoded);
+                    return;
+                }
+            }
+            try {
                 if (tag != null) {
                     boolean named = serverVersion.isOlderThan(ServerVersion.V_1_20_2);
-                    DefaultNBTSerializer.INSTANCE.serializeTag(outputStream, tag, named);
+                    ByteBufNBTSerializer.INSTANCE.serializeTag(byteBuf, tag, named);
                 } else {
-                    DefaultNBTSerializer.INSTANCE.serializeTag(outputStream, NBTEnd.INSTANCE);
+                    ByteBufNBTSerializer.INSTANCE.serializeTag(byteBuf, NBTEnd.INSTANCE);
                 }
             } catch (IOException e) {
                 throw new IllegalStateException(e);
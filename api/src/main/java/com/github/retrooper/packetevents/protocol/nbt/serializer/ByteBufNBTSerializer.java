@@ -0,0 +1,439 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.nbt.serializer;
+
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.nbt.*;
+
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Reads and writes network nbt straight from and to a buffer, without going through stream wrappers.
+ * Arrays are copied in bulk, and strings made of ASCII characters only, which includes nearly all tag names,
+ * skip the modified UTF-8 decoding.
+ * <p>
+ * The binary format is the same as the one of {@link DefaultNBTSerializer}.
+ */
+public class ByteBufNBTSerializer extends NBTSerializer<Object, Object> {
+
+    public static final ByteBufNBTSerializer INSTANCE = new ByteBufNBTSerializer();
+
+    @SuppressWarnings("unchecked")
+    public ByteBufNBTSerializer() {
+        super(
+                (limiter, buffer) -> {
+                    limiter.increment(1);
+                    return ByteBufHelper.readByte(buffer);
+                },
+                ByteBufHelper::writeByte,
+                (limiter, buffer) -> {
+                    String name = readString(buffer);
+                    limiter.increment(name.length() * 2 + 28);
+                    return name;
+                },
+                ByteBufNBTSerializer::writeString
+        );
+        registerType(NBTType.END, 0, (limiter, buffer) -> {
+            limiter.increment(8);
+            return NBTEnd.INSTANCE;
+        }, (buffer, tag) -> {
+        });
+        registerType(NBTType.BYTE, 1, (limiter, buffer) -> {
+            limiter.increment(9);
+            return new NBTByte(ByteBufHelper.readByte(buffer));
+        }, (buffer, tag) -> ByteBufHelper.writeByte(buffer, tag.getAsByte()));
+        registerType(NBTType.SHORT, 2, (limiter, buffer) -> {
+            limiter.increment(10);
+            return new NBTShort(ByteBufHelper.readShort(buffer));
+        }, (buffer, tag) -> ByteBufHelper.writeShort(buffer, tag.getAsShort()));
+        registerType(NBTType.INT, 3, (limiter, buffer) -> {
+            limiter.increment(12);
+            return new NBTInt(ByteBufHelper.readInt(buffer));
+        }, (buffer, tag) -> ByteBufHelper.writeInt(buffer, tag.getAsInt()));
+        registerType(NBTType.LONG, 4, (limiter, buffer) -> {
+            limiter.increment(16);
+            return new NBTLong(ByteBufHelper.readLong(buffer));
+        }, (buffer, tag) -> ByteBufHelper.writeLong(buffer, tag.getAsLong()));
+        registerType(NBTType.FLOAT, 5, (limiter, buffer) -> {
+            limiter.increment(12);
+            return new NBTFloat(ByteBufHelper.readFloat(buffer));
+        }, (buffer, tag) -> ByteBufHelper.writeFloat(buffer, tag.getAsFloat()));
+        registerType(NBTType.DOUBLE, 6, (limiter, buffer) -> {
+            limiter.increment(16);
+            return new NBTDouble(ByteBufHelper.readDouble(buffer));
+        }, (buffer, tag) -> ByteBufHelper.writeDouble(buffer, tag.getAsDouble()));
+        registerType(
+                NBTType.BYTE_ARRAY, 7,
+                (limiter, buffer) -> {
+                    limiter.increment(24);
+                    int length = ByteBufHelper.readInt(buffer);
+
+                    if (length >= 1 << 24)
+                        throw new IllegalArgumentException("Byte array length is too large: " + length);
+
+                    limiter.checkReadability(length);
+                    limiter.increment(length);
+
+                    byte[] array = new byte[length];
+                    ByteBufHelper.readBytes(buffer, array);
+                    return new NBTByteArray(array);
+                },
+                (buffer, tag) -> {
+                    byte[] array = tag.getValue();
+                    ByteBufHelper.writeInt(buffer, array.length);
+                    ByteBufHelper.writeBytes(buffer, array);
+                }
+        );
+        registerType(NBTType.STRING, 8, (limiter, buffer) -> {
+            limiter.increment(36);
+            String string = readString(buffer);
+            limiter.increment(string.length() * 2);
+            return new NBTString(string);
+        }, (buffer, tag) -> writeString(buffer, tag.getValue()));
+        registerType(
+                NBTType.LIST, 9,
+                (limiter, buffer) -> {
+                    limiter.increment(37);
+
+                    NBTType<? extends NBT> valueType = readTagType(limiter, buffer);
+                    int size = ByteBufHelper.readInt(buffer);
+
+                    if ((valueType == NBTType.END) && (size > 0)) {
+                        throw new IllegalStateException("Missing nbt list values tag type");
+                    }
+                    limiter.increment(4 * size);
+                    NBTList<NBT> list = new NBTList<>((NBTType<NBT>) valueType, size);
+                    for (int i = 0; i < size; i++) {
+                        list.addTag(readTag(limiter, buffer, valueType));
+                    }
+                    return list;
+                },
+                (buffer, tag) -> {
+                    writeTagType(buffer, tag.getTagsType());
+                    ByteBufHelper.writeInt(buffer, tag.size());
+                    for (NBT value : ((List<NBT>) tag.getTags())) {
+                        writeTag(buffer, value);
+                    }
+                }
+        );
+        registerType(
+                NBTType.COMPOUND, 10,
+                (limiter, buffer) -> {
+                    limiter.increment(48);
+
+                    NBTCompound compound = new NBTCompound();
+                    NBTType<?> valueType;
+                    while ((valueType = readTagType(limiter, buffer)) != NBTType.END) {
+                        String name = readTagName(limiter, buffer);
+                        NBT nbt = readTag(limiter, buffer, valueType);
+                        if (!compound.getTags().containsKey(name)) limiter.increment(36);
+                        compound.setTag(name, nbt);
+                    }
+                    return compound;
+                },
+                (buffer, tag) -> {
+                    for (Entry<String, NBT> entry : tag.getTags().entrySet()) {
+                        NBT value = entry.getValue();
+                        writeTagType(buffer, value.getType());
+                        writeTagName(buffer, entry.getKey());
+                        writeTag(buffer, value);
+                    }
+                    writeTagType(buffer, NBTType.END);
+                }
+        );
+        registerType(
+                NBTType.INT_ARRAY, 11,
+                (limiter, buffer) -> {
+                    limiter.increment(24);
+                    int length = ByteBufHelper.readInt(buffer);
+
+                    if (length >= 1 << 24)
+                        throw new IllegalArgumentException("Int array length is too large: " + length);
+
+                    limiter.checkReadability(length * 4);
+                    limiter.increment(length * 4);
+
+                    byte[] bytes = new byte[length * 4];
+                    ByteBufHelper.readBytes(buffer, bytes);
+                    int[] array = new int[length];
+                    for (int i = 0, j = 0; i < length; i++, j += 4) {
+                        array[i] = (bytes[j] << 24) | ((bytes[j + 1] & 0xFF) << 16)
+                                | ((bytes[j + 2] & 0xFF) << 8) | (bytes[j + 3] & 0xFF);
+                    }
+                    return new NBTIntArray(array);
+                },
+                (buffer, tag) -> {
+                    int[] array = tag.getValue();
+                    byte[] bytes = new byte[array.length * 4];
+                    for (int i = 0, j = 0; i < array.length; i++, j += 4) {
+                        int value = array[i];
+                        bytes[j] = (byte) (value >>> 24);
+                        bytes[j + 1] = (byte) (value >>> 16);
+                        bytes[j + 2] = (byte) (value >>> 8);
+                        bytes[j + 3] = (byte) value;
+                    }
+                    ByteBufHelper.writeInt(buffer, array.length);
+                    ByteBufHelper.writeBytes(buffer, bytes);
+                }
+        );
+        registerType(
+                NBTType.LONG_ARRAY, 12,
+                (limiter, buffer) -> {
+                    limiter.increment(24);
+                    int length = ByteBufHelper.readInt(buffer);
+
+                    if (length >= 1 << 24)
+                        throw new IllegalArgumentException("Long array length is too large: " + length);
+
+                    limiter.checkReadability(length * 8);
+                    limiter.increment(length * 8);
+
+                    long[] array = new long[length];
+                    ByteBufHelper.readLongs(buffer, array, 0, length);
+                    return new NBTLongArray(array);
+                },
+                (buffer, tag) -> {
+                    long[] array = tag.getValue();
+                    byte[] bytes = new byte[array.length * 8];
+                    int j = 0;
+                    for (long value : array) {
+                        for (int shift = 56; shift >= 0; shift -= 8) {
+                            bytes[j++] = (byte) (value >>> shift);
+                        }
+                    }
+                    ByteBufHelper.writeInt(buffer, array.length);
+                    ByteBufHelper.writeBytes(buffer, bytes);
+                }
+        );
+    }
+
+    /**
+     * Moves the reader index of the buffer past the next tag, without creating any tag instances.
+     *
+     * @return false if the next tag is an end tag, which stands for no tag at all
+     */
+    public boolean skipTag(NBTLimiter limiter, Object buffer, boolean named) throws IOException {
+        int id = this.idReader.readId(limiter, buffer);
+        if (id == 0) {
+            return false;
+        }
+        if (named) {
+            skipString(buffer);
+        }
+        skipPayload(limiter, buffer, id);
+        return true;
+    }
+
+    private static void skipPayload(NBTLimiter limiter, Object buffer, int id) throws IOException {
+        int width = fixedWidth(id);
+        if (width >= 0) {
+            ByteBufHelper.skipBytes(buffer, width);
+            return;
+        }
+        switch (id) {
+            case 7:
+                skipArray(limiter, buffer, 1);
+                break;
+            case 8:
+                skipString(buffer);
+                break;
+            case 9: {
+                limiter.increment(37);
+                int valueId = ByteBufHelper.readByte(buffer);
+                int size = ByteBufHelper.readInt(buffer);
+                if (valueId == 0 && size > 0) {
+                    throw new IllegalStateException("Missing nbt list values tag type");
+                }
+                int valueWidth = fixedWidth(valueId);
+                if (valueWidth >= 0) {
+                    long length = (long) size * valueWidth;
+                    limiter.checkReadability((int) Math.min(length, Integer.MAX_VALUE));
+                    ByteBufHelper.skipBytes(buffer, (int) length);
+                } else {
+                    limiter.increment(4 * size);
+                    for (int i = 0; i < size; i++) {
+                        skipPayload(limiter, buffer, valueId);
+                    }
+                }
+                break;
+            }
+            case 10: {
+                limiter.increment(48);
+                int valueId;
+                while ((valueId = ByteBufHelper.readByte(buffer)) != 0) {
+                    skipString(buffer);
+                    skipPayload(limiter, buffer, valueId);
+                }
+                break;
+            }
+            case 11:
+                skipArray(limiter, buffer, 4);
+                break;
+            case 12:
+                skipArray(limiter, buffer, 8);
+                break;
+            default:
+                throw new IOException(MessageFormat.format("Unknown nbt type id {0}", id));
+        }
+    }
+
+    private static int fixedWidth(int id) {
+        switch (id) {
+            case 0:
+                return 0;
+            case 1:
+                return 1;
+            case 2:
+                return 2;
+            case 3:
+            case 5:
+                return 4;
+            case 4:
+            case 6:
+                return 8;
+            default:
+                return -1;
+        }
+    }
+
+    private static void skipArray(NBTLimiter limiter, Object buffer, int width) {
+        int length = ByteBufHelper.readInt(buffer);
+        if (length >= 1 << 24)
+            throw new IllegalArgumentException("Array length is too large: " + length);
+        limiter.checkReadability(length * width);
+        ByteBufHelper.skipBytes(buffer, length * width);
+    }
+
+    private static void skipString(Object buffer) {
+        ByteBufHelper.skipBytes(buffer, ByteBufHelper.readUnsignedShort(buffer));
+    }
+
+    /**
+     * Reads a string in the format of {@link java.io.DataInput#readUTF()}.
+     */
+    static String readString(Object buffer) throws UTFDataFormatException {
+        int length = ByteBufHelper.readUnsignedShort(buffer);
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        ByteBufHelper.readBytes(buffer, bytes);
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] < 0) {
+                return decodeModifiedUtf8(bytes, i);
+            }
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String decodeModifiedUtf8(byte[] bytes, int asciiLength) throws UTFDataFormatException {
+        char[] chars = new char[bytes.length];
+        for (int i = 0; i < asciiLength; i++) {
+            chars[i] = (char) bytes[i];
+        }
+        int count = asciiLength;
+        int charCount = asciiLength;
+        while (count < bytes.length) {
+            int c = bytes[count] & 0xFF;
+            switch (c >> 4) {
+                case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                    // 0xxxxxxx
+                    count++;
+                    chars[charCount++] = (char) c;
+                    break;
+                case 12: case 13: {
+                    // 110x xxxx 10xx xxxx
+                    count += 2;
+                    if (count > bytes.length) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+                    int c2 = bytes[count - 1];
+                    if ((c2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + count);
+                    }
+                    chars[charCount++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    break;
+                }
+                case 14: {
+                    // 1110 xxxx 10xx xxxx 10xx xxxx
+                    count += 3;
+                    if (count > bytes.length) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+                    int c2 = bytes[count - 2];
+                    int c3 = bytes[count - 1];
+                    if (((c2 & 0xC0) != 0x80) || ((c3 & 0xC0) != 0x80)) {
+                        throw new UTFDataFormatException("malformed input around byte " + (count - 1));
+                    }
+                    chars[charCount++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    break;
+                }
+                default:
+                    // 10xx xxxx, 1111 xxxx
+                    throw new UTFDataFormatException("malformed input around byte " + count);
+            }
+        }
+        return new String(chars, 0, charCount);
+    }
+
+    /**
+     * Writes a string in the format of {@link java.io.DataOutput#writeUTF(String)}.
+     */
+    static void writeString(Object buffer, String string) throws UTFDataFormatException {
+        int length = string.length();
+        int utfLength = length;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= 0x800) {
+                utfLength += 2;
+            } else if (c >= 0x80 || c == 0) {
+                utfLength++;
+            }
+        }
+        if (utfLength > 0xFFFF) {
+            throw new UTFDataFormatException("encoded string too long: " + utfLength + " bytes");
+        }
+        ByteBufHelper.writeShort(buffer, utfLength);
+        if (utfLength == length) {
+            ByteBufHelper.writeBytes(buffer, string.getBytes(StandardCharsets.ISO_8859_1));
+            return;
+        }
+        byte[] bytes = new byte[utfLength];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80 && c != 0) {
+                bytes[count++] = (byte) c;
+            } else if (c >= 0x800) {
+                bytes[count++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                bytes[count++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ByteBufHelper.writeBytes(buffer, bytes);
+    }
+}
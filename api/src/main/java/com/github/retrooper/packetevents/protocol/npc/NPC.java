@@ -28,11 +28,15 @@ import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import com.github.retrooper.packetevents.wrapper.play.server.*;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class NPC {
+    static final PacketWrapper<?>[] NO_PACKETS = new PacketWrapper<?>[0];
+
     private final int id;
     private final UserProfile profile;
     private GameMode gamemode;
@@ -49,7 +53,7 @@ public class NPC {
     private ItemStack chestPlate = null;
     private ItemStack leggings = null;
     private ItemStack boots = null;
-    private final Set<Object> channels = new HashSet<>();
+    private final Set<Object> channels = ConcurrentHashMap.newKeySet();
 
     public NPC(UserProfile profile, int entityId, GameMode gamemode, @Nullable Component tabName, @Nullable NamedTextColor nameColor,
                @Nullable Component prefixName, @Nullable Component suffixName) {
@@ -127,75 +131,59 @@ public class NPC {
 
     public void teleport(Location to) {
         setLocation(to);
-        for (Object channel : channels) {
-            WrapperPlayServerEntityTeleport entityTeleport = new WrapperPlayServerEntityTeleport(getId(), to, true);
-            PacketEvents.getAPI().getProtocolManager().sendPacket(channel, entityTeleport);
-        }
+        sendToAll(new WrapperPlayServerEntityTeleport(getId(), to, true));
     }
 
     public void updateLocation(Location to) {
         Location from = getLocation();
         setLocation(to);
-        double distXAbs = Math.abs(to.getPosition().getX() - from.getPosition().getX());
-        double distYAbs = Math.abs(to.getPosition().getY() - from.getPosition().getY());
-        double distZAbs = Math.abs(to.getPosition().getZ() - from.getPosition().getZ());
-        boolean shouldUseEntityTeleport = distXAbs > 8 ||
-                distYAbs > 8 ||
-                distZAbs > 8;
-        for (Object channel : channels) {
-            if (shouldUseEntityTeleport) {
-                WrapperPlayServerEntityTeleport entityTeleport =
-                        new WrapperPlayServerEntityTeleport(getId(), to, true);
-                PacketEvents.getAPI().getProtocolManager().sendPacket(channel, entityTeleport);
-            } else {
-                boolean rotationChanged =
-                        to.getYaw() != from.getYaw() || to.getPitch() != from.getPitch();
-                boolean positionChanged =
-                        to.getPosition().getX() != from.getPosition().getX() ||
-                                to.getPosition().getY() != from.getPosition().getY() ||
-                                to.getPosition().getZ() != from.getPosition().getZ();
-                double deltaX = positionChanged ? (to.getPosition().getX() - from.getPosition().getX()) : 0;
-                double deltaY = positionChanged ? (to.getPosition().getY() - from.getPosition().getY()) : 0;
-                double deltaZ = positionChanged ? (to.getPosition().getZ() - from.getPosition().getZ()) : 0;
-                if (positionChanged && rotationChanged) {
-                    WrapperPlayServerEntityRelativeMoveAndRotation entityRelativeMoveAndRotation =
-                            new WrapperPlayServerEntityRelativeMoveAndRotation(getId(), deltaX, deltaY, deltaZ,
-                                    to.getYaw(), to.getPitch(), true);
-                    PacketEvents.getAPI().getProtocolManager()
-                            .sendPacket(channel, entityRelativeMoveAndRotation);
-
-                    WrapperPlayServerEntityHeadLook headYaw =
-                            new WrapperPlayServerEntityHeadLook(getId(), to.getYaw());
-                    PacketEvents.getAPI().getProtocolManager().sendPacket(channel, headYaw);
-                } else if (positionChanged) {
-                    WrapperPlayServerEntityRelativeMove entityRelativeMove =
-                            new WrapperPlayServerEntityRelativeMove(getId(), deltaX, deltaY, deltaZ, true);
-                    PacketEvents.getAPI().getProtocolManager().sendPacket(channel, entityRelativeMove);
-                } else if (rotationChanged) {
-                    WrapperPlayServerEntityRotation entityRotation =
-                            new WrapperPlayServerEntityRotation(getId(), to.getYaw(), to.getPitch(), true);
-                    PacketEvents.getAPI().getProtocolManager().sendPacket(channel, entityRotation);
-
-                    WrapperPlayServerEntityHeadLook headYaw =
-                            new WrapperPlayServerEntityHeadLook(getId(), to.getYaw());
-                    PacketEvents.getAPI().getProtocolManager().sendPacket(channel, headYaw);
-                }
-            }
-        }
+        sendToAll(createMovePackets(getId(), from, to));
     }
 
     public void updateRotation(float yaw, float pitch) {
         getLocation().setYaw(yaw);
         getLocation().setPitch(pitch);
+        sendToAll(new WrapperPlayServerEntityRotation(getId(), yaw, pitch, true),
+                new WrapperPlayServerEntityHeadLook(getId(), yaw));
+    }
+
+    // the wrappers are serialized again for every channel, so they can be shared
+    private void sendToAll(PacketWrapper<?>... packets) {
         for (Object channel : channels) {
-            WrapperPlayServerEntityRotation entityRotation =
-                    new WrapperPlayServerEntityRotation(getId(), yaw, pitch, true);
-            PacketEvents.getAPI().getProtocolManager().sendPacket(channel, entityRotation);
+            for (PacketWrapper<?> packet : packets) {
+                PacketEvents.getAPI().getProtocolManager().sendPacket(channel, packet);
+            }
+        }
+    }
 
-            WrapperPlayServerEntityHeadLook headYaw =
-                    new WrapperPlayServerEntityHeadLook(getId(), yaw);
-            PacketEvents.getAPI().getProtocolManager().sendPacket(channel, headYaw);
+    /**
+     * Creates the packets moving an entity from one location to another, using relative moves
+     * where possible. No packets are created if the locations are equal.
+     */
+    @ApiStatus.Internal
+    public static PacketWrapper<?>[] createMovePackets(int entityId, Location from, Location to) {
+        double deltaX = to.getX() - from.getX();
+        double deltaY = to.getY() - from.getY();
+        double deltaZ = to.getZ() - from.getZ();
+        if (Math.abs(deltaX) > 8 || Math.abs(deltaY) > 8 || Math.abs(deltaZ) > 8) {
+            return new PacketWrapper<?>[]{new WrapperPlayServerEntityTeleport(entityId, to, true)};
+        }
+        boolean rotationChanged = to.getYaw() != from.getYaw() || to.getPitch() != from.getPitch();
+        boolean positionChanged = deltaX != 0 || deltaY != 0 || deltaZ != 0;
+        if (positionChanged && rotationChanged) {
+            return new PacketWrapper<?>[]{
+                    new WrapperPlayServerEntityRelativeMoveAndRotation(entityId, deltaX, deltaY, deltaZ,
+                            to.getYaw(), to.getPitch(), true),
+                    new WrapperPlayServerEntityHeadLook(entityId, to.getYaw())};
+        } else if (positionChanged) {
+            return new PacketWrapper<?>[]{
+                    new WrapperPlayServerEntityRelativeMove(entityId, deltaX, deltaY, deltaZ, true)};
+        } else if (rotationChanged) {
+            return new PacketWrapper<?>[]{
+                    new WrapperPlayServerEntityRotation(entityId, to.getYaw(), to.getPitch(), true),
+                    new WrapperPlayServerEntityHeadLook(entityId, to.getYaw())};
         }
+        return NO_PACKETS;
     }
 
     public void updateTabPing(int ping) {
@@ -0,0 +1,248 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.npc;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
+import com.github.retrooper.packetevents.netty.channel.ChannelHelper;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.protocol.world.Location;
+import com.github.retrooper.packetevents.util.Vector3d;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps many NPCs in sync with their viewers, sending updates once per tick instead of per change.
+ * <p>
+ * Changes to the location of an NPC are made with {@link NPC#setLocation(Location)}, or by modifying
+ * its location, without sending anything. {@link #tick()} compares every NPC with the location last sent
+ * to its viewers, so all changes within a tick result in a single movement update. Every update is
+ * serialized once per protocol and the same bytes are sent to all viewers,
+ * see {@link ProtocolManager#broadcastPacket(Collection, PacketWrapper)}.
+ * <p>
+ * Viewers are only sent an NPC while they are within the view distance of it, if their position is known.
+ * NPCs and viewers can be added and removed from any thread, {@link #tick()} must not run concurrently with itself.
+ */
+public class NPCManager {
+
+    private final Map<Integer, TrackedNPC> npcs = new ConcurrentHashMap<>();
+    private final Map<User, Vector3d> viewerPositions = new ConcurrentHashMap<>();
+    private volatile double viewDistanceSquared;
+    // reused by every tick, which only ever runs on one thread at a time
+    private final List<User> recipients = new ArrayList<>();
+
+    /**
+     * @param viewDistance the distance in blocks up to which NPCs are shown to viewers with a known position
+     */
+    public NPCManager(double viewDistance) {
+        this.setViewDistance(viewDistance);
+    }
+
+    public NPCManager() {
+        this(64D);
+    }
+
+    public double getViewDistance() {
+        return Math.sqrt(this.viewDistanceSquared);
+    }
+
+    public void setViewDistance(double viewDistance) {
+        this.viewDistanceSquared = viewDistance * viewDistance;
+    }
+
+    /**
+     * Starts tracking the NPC. It is spawned for its viewers on the next tick.
+     */
+    public void register(NPC npc) {
+        this.npcs.putIfAbsent(npc.getId(), new TrackedNPC(npc));
+    }
+
+    /**
+     * Stops tracking the NPC and despawns it for everyone it has been spawned for.
+     */
+    public void unregister(NPC npc) {
+        if (this.npcs.remove(npc.getId()) != null) {
+            npc.despawnAll();
+        }
+    }
+
+    public @Nullable NPC getNPC(int entityId) {
+        TrackedNPC tracked = this.npcs.get(entityId);
+        return tracked == null ? null : tracked.npc;
+    }
+
+    public Collection<NPC> getNPCs() {
+        List<NPC> list = new ArrayList<>(this.npcs.size());
+        for (TrackedNPC tracked : this.npcs.values()) {
+            list.add(tracked.npc);
+        }
+        return list;
+    }
+
+    /**
+     * Lets the user see the NPC, once it is within the view distance.
+     */
+    public void addViewer(NPC npc, User user) {
+        TrackedNPC tracked = this.npcs.get(npc.getId());
+        if (tracked == null) {
+            throw new IllegalArgumentException("NPC " + npc.getId() + " is not registered");
+        }
+        tracked.viewers.add(user);
+    }
+
+    /**
+     * The NPC is despawned for the user on the next tick.
+     */
+    public void removeViewer(NPC npc, User user) {
+        TrackedNPC tracked = this.npcs.get(npc.getId());
+        if (tracked != null && tracked.viewers.remove(user)) {
+            tracked.viewersRemoved = true;
+        }
+    }
+
+    public Set<User> getViewers(NPC npc) {
+        TrackedNPC tracked = this.npcs.get(npc.getId());
+        return tracked == null ? Collections.emptySet() : Collections.unmodifiableSet(tracked.viewers);
+    }
+
+    /**
+     * Updates the position used to cull NPCs for the user. Users without a position see all NPCs they view.
+     */
+    public void updateViewerPosition(User user, Vector3d position) {
+        this.viewerPositions.put(user, position);
+    }
+
+    /**
+     * Forgets the user, e.g. once it disconnected. Users with a closed channel are also forgotten on the next tick.
+     */
+    public void removeUser(User user) {
+        this.viewerPositions.remove(user);
+        for (TrackedNPC tracked : this.npcs.values()) {
+            tracked.viewers.remove(user);
+            // nothing can be sent anymore to a disconnected user
+            tracked.npc.getChannels().remove(user.getChannel());
+        }
+    }
+
+    /**
+     * Spawns and despawns NPCs as viewers move in and out of range, then sends the
+     * movement of every NPC since the last tick to the viewers it is spawned for.
+     */
+    public void tick() {
+        ProtocolManager protocolManager = PacketEvents.getAPI().getProtocolManager();
+        for (TrackedNPC tracked : this.npcs.values()) {
+            this.tick(protocolManager, tracked);
+        }
+    }
+
+    private void tick(ProtocolManager protocolManager, TrackedNPC tracked) {
+        NPC npc = tracked.npc;
+        Location location = npc.getLocation();
+        Location sent = tracked.sent;
+        PacketWrapper<?>[] movement = NPC.NO_PACKETS;
+        if (sent == null || !isSameLocation(sent, location)) {
+            if (sent != null) {
+                movement = NPC.createMovePackets(npc.getId(), sent, location);
+            }
+            tracked.sent = location.clone();
+        }
+
+        List<User> recipients = this.recipients;
+        recipients.clear();
+        for (User viewer : tracked.viewers) {
+            Object channel = viewer.getChannel();
+            if (channel == null || !ChannelHelper.isOpen(channel)) {
+                this.removeUser(viewer);
+                continue;
+            }
+            boolean spawned = npc.hasSpawned(channel);
+            if (!this.isInRange(viewer, location)) {
+                if (spawned) {
+                    npc.despawn(channel);
+                }
+            } else if (!spawned) {
+                // spawned at the current location, so no movement is needed
+                npc.spawn(channel);
+            } else if (movement.length != 0) {
+                recipients.add(viewer);
+            }
+        }
+        if (tracked.viewersRemoved) {
+            tracked.viewersRemoved = false;
+            for (Object channel : npc.getChannels()) {
+                if (!this.isViewer(tracked, channel)) {
+                    npc.despawn(channel);
+                }
+            }
+        }
+
+        if (!recipients.isEmpty()) {
+            for (PacketWrapper<?> packet : movement) {
+                protocolManager.broadcastPacket(recipients, packet);
+            }
+        }
+        recipients.clear();
+    }
+
+    private static boolean isSameLocation(Location first, Location second) {
+        return first.getX() == second.getX() && first.getY() == second.getY() && first.getZ() == second.getZ()
+                && first.getYaw() == second.getYaw() && first.getPitch() == second.getPitch();
+    }
+
+    private boolean isViewer(TrackedNPC tracked, Object channel) {
+        for (User viewer : tracked.viewers) {
+            if (viewer.getChannel() == channel) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInRange(User viewer, Location location) {
+        Vector3d position = this.viewerPositions.get(viewer);
+        if (position == null) {
+            return true;
+        }
+        double x = position.getX() - location.getX();
+        double y = position.getY() - location.getY();
+        double z = position.getZ() - location.getZ();
+        return x * x + y * y + z * z <= this.viewDistanceSquared;
+    }
+
+    private static final class TrackedNPC {
+
+        private final NPC npc;
+        private final Set<User> viewers = ConcurrentHashMap.newKeySet();
+        // the location last sent to the viewers, null before the first tick
+        private @Nullable Location sent;
+        private volatile boolean viewersRemoved;
+
+        private TrackedNPC(NPC npc) {
+            this.npc = npc;
+        }
+    }
+}
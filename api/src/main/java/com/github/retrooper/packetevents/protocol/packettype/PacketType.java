@@ -76,8 +76,6 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 public final class PacketType {
 
@@ -144,6 +142,14 @@ public final class PacketType {
             ClientVersion.V_1_20_2,
             ClientVersion.V_1_20_5);
 
+    // packets of these states have the same ids on all versions
+    private static final PacketTypeCommon[] HANDSHAKING_CLIENT_ID_TABLE = createIdTable(Handshaking.Client.values());
+    private static final PacketTypeCommon[] HANDSHAKING_SERVER_ID_TABLE = createIdTable(Handshaking.Server.values());
+    private static final PacketTypeCommon[] STATUS_CLIENT_ID_TABLE = createIdTable(Status.Client.values());
+    private static final PacketTypeCommon[] STATUS_SERVER_ID_TABLE = createIdTable(Status.Server.values());
+    private static final PacketTypeCommon[] LOGIN_CLIENT_ID_TABLE = createIdTable(Login.Client.values());
+    private static final PacketTypeCommon[] LOGIN_SERVER_ID_TABLE = createIdTable(Login.Server.values());
+
     public static void prepare() {
         PacketType.Play.Client.load();
         PacketType.Play.Server.load();
@@ -157,39 +163,84 @@ public final class PacketType {
     }
 
     public static PacketTypeCommon getById(PacketSide side, ConnectionState state, ClientVersion version, int packetID) {
+        return getById(getIdTable(side, state, version), packetID);
+    }
+
+    /**
+     * Looks up a packet type in a table returned by {@link #getIdTable(PacketSide, ConnectionState, ClientVersion)}.
+     */
+    public static @Nullable PacketTypeCommon getById(PacketTypeCommon[] idTable, int packetID) {
+        return packetID >= 0 && packetID < idTable.length ? idTable[packetID] : null;
+    }
+
+    /**
+     * Returns the packet types of a side in a connection state for the given version,
+     * indexed by their packet id. Unused ids map to null.
+     * <p>
+     * The returned array is shared and must not be modified.
+     */
+    @ApiStatus.Internal
+    public static PacketTypeCommon[] getIdTable(PacketSide side, ConnectionState state, ClientVersion version) {
         switch (state) {
             case HANDSHAKING:
-                if (side == PacketSide.CLIENT) {
-                    return PacketType.Handshaking.Client.getById(packetID);
-                } else {
-                    return PacketType.Handshaking.Server.getById(packetID);
-                }
+                return side == PacketSide.CLIENT ? HANDSHAKING_CLIENT_ID_TABLE : HANDSHAKING_SERVER_ID_TABLE;
             case STATUS:
-                if (side == PacketSide.CLIENT) {
-                    return Status.Client.getById(packetID);
-                } else {
-                    return Status.Server.getById(packetID);
-                }
+                return side == PacketSide.CLIENT ? STATUS_CLIENT_ID_TABLE : STATUS_SERVER_ID_TABLE;
             case LOGIN:
-                if (side == PacketSide.CLIENT) {
-                    return Login.Client.getById(packetID);
-                } else {
-                    return Login.Server.getById(packetID);
-                }
+                return side == PacketSide.CLIENT ? LOGIN_CLIENT_ID_TABLE : LOGIN_SERVER_ID_TABLE;
             case PLAY:
+                if (!PREPARED) {
+                    PacketType.prepare();
+                }
                 if (side == PacketSide.CLIENT) {
-                    return Play.Client.getById(version, packetID);
+                    return Play.Client.PACKET_TYPE_ID_TABLE[SERVERBOUND_PLAY_VERSION_MAPPER.getIndex(version)];
                 } else {
-                    return Play.Server.getById(version, packetID);
+                    return Play.Server.PACKET_TYPE_ID_TABLE[CLIENTBOUND_PLAY_VERSION_MAPPER.getIndex(version)];
                 }
             case CONFIGURATION:
+                if (!PREPARED) {
+                    PacketType.prepare();
+                }
                 if (side == PacketSide.CLIENT) {
-                    return Configuration.Client.getById(version, packetID);
+                    return Configuration.Client.PACKET_TYPE_ID_TABLE[SERVERBOUND_CONFIG_VERSION_MAPPER.getIndex(version)];
                 } else {
-                    return Configuration.Server.getById(version, packetID);
+                    return Configuration.Server.PACKET_TYPE_ID_TABLE[CLIENTBOUND_CONFIG_VERSION_MAPPER.getIndex(version)];
                 }
             default:
-                return null;
+                return new PacketTypeCommon[0];
+        }
+    }
+
+    private static PacketTypeCommon[] createIdTable(PacketTypeConstant[] constants) {
+        int length = 0;
+        for (PacketTypeConstant constant : constants) {
+            length = Math.max(length, constant.getId() + 1);
+        }
+        PacketTypeCommon[] table = new PacketTypeCommon[length];
+        for (PacketTypeConstant constant : constants) {
+            table[constant.getId()] = constant;
+        }
+        return table;
+    }
+
+    /**
+     * Returns all packet type constants of a side in a connection state, where the
+     * array index of each constant equals its ordinal.
+     */
+    public static PacketTypeCommon[] getPacketTypes(PacketSide side, ConnectionState state) {
+        switch (state) {
+            case HANDSHAKING:
+                return side == PacketSide.CLIENT ? Handshaking.Client.values() : Handshaking.Server.values();
+            case STATUS:
+                return side == PacketSide.CLIENT ? Status.Client.values() : Status.Server.values();
+            case LOGIN:
+                return side == PacketSide.CLIENT ? Login.Client.values() : Login.Server.values();
+            case PLAY:
+                return side == PacketSide.CLIENT ? Play.Client.values() : Play.Server.values();
+            case CONFIGURATION:
+                return side == PacketSide.CLIENT ? Configuration.Client.values() : Configuration.Server.values();
+            default:
+                return new PacketTypeCommon[0];
         }
     }
 
@@ -443,7 +494,7 @@ public final class PacketType {
             SELECT_KNOWN_PACKS;
 
             private static int INDEX = 0;
-            private static final Map<Byte, Map<Integer, PacketTypeCommon>> PACKET_TYPE_ID_MAP = new HashMap<>();
+            private static final PacketTypeCommon[][] PACKET_TYPE_ID_TABLE = new PacketTypeCommon[SERVERBOUND_CONFIG_VERSION_MAPPER.getVersions().length][];
             private final int[] ids;
 
             Client() {
@@ -460,13 +511,14 @@ public final class PacketType {
 
             private static void loadPacketIds(Enum<?>[] enumConstants) {
                 int index = INDEX;
+                PacketTypeCommon[] table = new PacketTypeCommon[enumConstants.length];
                 for (Enum<?> constant : enumConstants) {
                     int id = constant.ordinal();
                     Configuration.Client value = Configuration.Client.valueOf(constant.name());
                     value.ids[index] = id;
-                    Map<Integer, PacketTypeCommon> packetIdMap = PACKET_TYPE_ID_MAP.computeIfAbsent((byte) index, k -> new HashMap<>());
-                    packetIdMap.put(id, value);
+                    table[id] = value;
                 }
+                PACKET_TYPE_ID_TABLE[index] = table;
                 INDEX++;
             }
 
@@ -479,8 +531,7 @@ public final class PacketType {
                     PacketType.prepare();
                 }
                 int index = SERVERBOUND_CONFIG_VERSION_MAPPER.getIndex(version);
-                Map<Integer, PacketTypeCommon> map = PACKET_TYPE_ID_MAP.get((byte) index);
-                return map.get(packetId);
+                return PacketType.getById(PACKET_TYPE_ID_TABLE[index], packetId);
             }
 
             @Deprecated
@@ -530,7 +581,7 @@ public final class PacketType {
             SERVER_LINKS;
 
             private static int INDEX = 0;
-            private static final Map<Byte, Map<Integer, PacketTypeCommon>> PACKET_TYPE_ID_MAP = new HashMap<>();
+            private static final PacketTypeCommon[][] PACKET_TYPE_ID_TABLE = new PacketTypeCommon[CLIENTBOUND_CONFIG_VERSION_MAPPER.getVersions().length][];
             private final int[] ids;
 
             Server() {
@@ -549,13 +600,14 @@ public final class PacketType {
 
             private static void loadPacketIds(Enum<?>[] enumConstants) {
                 int index = INDEX;
+                PacketTypeCommon[] table = new PacketTypeCommon[enumConstants.length];
                 for (Enum<?> constant : enumConstants) {
                     int id = constant.ordinal();
                     Configuration.Server value = Configuration.Server.valueOf(constant.name());
                     value.ids[index] = id;
-                    Map<Integer, PacketTypeCommon> packetIdMap = PACKET_TYPE_ID_MAP.computeIfAbsent((byte) index, k -> new HashMap<>());
-                    packetIdMap.put(id, value);
+                    table[id] = value;
                 }
+                PACKET_TYPE_ID_TABLE[index] = table;
                 INDEX++;
             }
 
@@ -568,8 +620,7 @@ public final class PacketType {
                     PacketType.prepare();
                 }
                 int index = CLIENTBOUND_CONFIG_VERSION_MAPPER.getIndex(version);
-                Map<Integer, PacketTypeCommon> map = PACKET_TYPE_ID_MAP.get((byte) index);
-                return map.get(packetId);
+                return PacketType.getById(PACKET_TYPE_ID_TABLE[index], packetId);
             }
 
             @Deprecated
@@ -733,7 +784,7 @@ public final class PacketType {
             ;
 
             private static int INDEX = 0;
-            private static final Map<Byte, Map<Integer, PacketTypeCommon>> PACKET_TYPE_ID_MAP = new HashMap<>();
+            private static final PacketTypeCommon[][] PACKET_TYPE_ID_TABLE = new PacketTypeCommon[SERVERBOUND_PLAY_VERSION_MAPPER.getVersions().length][];
             private final int[] ids;
 
             Client() {
@@ -747,20 +798,20 @@ public final class PacketType {
                     PacketType.prepare();
                 }
                 int index = SERVERBOUND_PLAY_VERSION_MAPPER.getIndex(version);
-                Map<Integer, PacketTypeCommon> packetIdMap = PACKET_TYPE_ID_MAP.computeIfAbsent((byte) index, k -> new HashMap<>());
-                return packetIdMap.get(packetId);
+                return PacketType.getById(PACKET_TYPE_ID_TABLE[index], packetId);
             }
 
             private static void loadPacketIds(Enum<?>[] enumConstants) {
                 int index = INDEX;
+                // packet ids are the ordinals of the version specific constants, so the table is dense
+                PacketTypeCommon[] table = new PacketTypeCommon[enumConstants.length];
                 for (Enum<?> constant : enumConstants) {
                     int id = constant.ordinal();
                     Client value = Client.valueOf(constant.name());
                     value.ids[index] = id;
-                    Map<Integer, PacketTypeCommon> packetIdMap = PACKET_TYPE_ID_MAP.computeIfAbsent((byte) index,
-                            k -> new HashMap<>());
-                    packetIdMap.put(id, value);
+                    table[id] = value;
                 }
+                PACKET_TYPE_ID_TABLE[index] = table;
                 INDEX++;
             }
 
@@ -983,7 +1034,7 @@ public final class PacketType {
             ;
 
             private static int INDEX = 0;
-            private static final Map<Byte, Map<Integer, PacketTypeCommon>> PACKET_TYPE_ID_MAP = new HashMap<>();
+            private static final PacketTypeCommon[][] PACKET_TYPE_ID_TABLE = new PacketTypeCommon[CLIENTBOUND_PLAY_VERSION_MAPPER.getVersions().length][];
             private final int[] ids;
 
             Server() {
@@ -1005,8 +1056,7 @@ public final class PacketType {
                     PacketType.prepare();
                 }
                 int index = CLIENTBOUND_PLAY_VERSION_MAPPER.getIndex(version);
-                Map<Integer, PacketTypeCommon> map = PACKET_TYPE_ID_MAP.get((byte) index);
-                return map.get(packetId);
+                return PacketType.getById(PACKET_TYPE_ID_TABLE[index], packetId);
             }
 
             @Override
@@ -1016,13 +1066,14 @@ public final class PacketType {
 
             private static void loadPacketIds(Enum<?>[] enumConstants) {
                 int index = INDEX;
+                PacketTypeCommon[] table = new PacketTypeCommon[enumConstants.length];
                 for (Enum<?> constant : enumConstants) {
                     int id = constant.ordinal();
                     Server value = Server.valueOf(constant.name());
                     value.ids[index] = id;
-                    Map<Integer, PacketTypeCommon> packetIdMap = PACKET_TYPE_ID_MAP.computeIfAbsent((byte) index, k -> new HashMap<>());
-                    packetIdMap.put(id, value);
+                    table[id] = value;
                 }
+                PACKET_TYPE_ID_TABLE[index] = table;
                 INDEX++;
             }
 
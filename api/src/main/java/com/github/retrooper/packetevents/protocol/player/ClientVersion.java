@@ -126,6 +126,20 @@ public enum ClientVersion {
 
     private static final int LOWEST_SUPPORTED_PROTOCOL_VERSION = LOWER_THAN_SUPPORTED_VERSIONS.protocolVersion + 1;
     private static final int HIGHEST_SUPPORTED_PROTOCOL_VERSION = HIGHER_THAN_SUPPORTED_VERSIONS.protocolVersion - 1;
+    // indexed by the protocol version minus the lowest supported one, UNKNOWN for protocol versions without a release
+    private static final ClientVersion[] BY_PROTOCOL_VERSION;
+
+    static {
+        BY_PROTOCOL_VERSION = new ClientVersion[HIGHEST_SUPPORTED_PROTOCOL_VERSION - LOWEST_SUPPORTED_PROTOCOL_VERSION + 1];
+        Arrays.fill(BY_PROTOCOL_VERSION, UNKNOWN);
+        for (ClientVersion version : VALUES) {
+            int index = version.protocolVersion - LOWEST_SUPPORTED_PROTOCOL_VERSION;
+            // the first version with a protocol version wins
+            if (index >= 0 && index < BY_PROTOCOL_VERSION.length && BY_PROTOCOL_VERSION[index] == UNKNOWN) {
+                BY_PROTOCOL_VERSION[index] = version;
+            }
+        }
+    }
 
     private final int protocolVersion;
     private final String name;
@@ -186,14 +200,7 @@ public enum ClientVersion {
         } else if (protocolVersion > HIGHEST_SUPPORTED_PROTOCOL_VERSION) {
             return getLatest();
         } else {
-            for (ClientVersion version : VALUES) {
-                if (version.protocolVersion > protocolVersion) {
-                    break;
-                } else if (version.protocolVersion == protocolVersion) {
-                    return version;
-                }
-            }
-            return UNKNOWN;
+            return BY_PROTOCOL_VERSION[protocolVersion - LOWEST_SUPPORTED_PROTOCOL_VERSION];
         }
     }
 
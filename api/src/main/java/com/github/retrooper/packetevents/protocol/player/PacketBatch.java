@@ -0,0 +1,137 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.player;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.netty.channel.ChannelHelper;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encoded packets of a {@link User} waiting to be written.
+ * Any thread may queue packets, they are written on the event loop of the channel
+ * in a single task which ends with one flush.
+ *
+ * @see User#enablePacketBatching(int, long, TimeUnit)
+ */
+final class PacketBatch {
+
+    private static final int STATE_OPEN = 0;
+    // replaced by another batch, packets still arriving are written right away
+    private static final int STATE_CLOSED = 1;
+    // the channel is gone, packets still arriving are released
+    private static final int STATE_DISCARDED = 2;
+
+    private final Object channel;
+    private final int maxPackets;
+    private final long maxDelayNanos;
+
+    private final Queue<QueuedPacket> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+    private final AtomicInteger state = new AtomicInteger(STATE_OPEN);
+
+    PacketBatch(Object channel, int maxPackets, long maxDelayNanos) {
+        this.channel = channel;
+        this.maxPackets = maxPackets;
+        this.maxDelayNanos = maxDelayNanos;
+    }
+
+    void add(Object buffer, boolean silent) {
+        this.queue.offer(new QueuedPacket(buffer, silent));
+        int size = this.size.incrementAndGet();
+        // checked after queueing, so either this or the thread closing the batch sees the packet
+        int state = this.state.get();
+        if (state == STATE_DISCARDED) {
+            this.discard();
+            return;
+        } else if (state == STATE_CLOSED) {
+            this.flush();
+            return;
+        }
+        if (this.maxPackets > 0 && size >= this.maxPackets) {
+            this.flush();
+        } else if (size == 1 && this.maxDelayNanos > 0L) {
+            // the first packet of a batch starts the timer, a drain in the meantime only makes it fire early
+            ChannelHelper.scheduleInEventLoop(this.channel, this.drainTask, this.maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void flush() {
+        if (this.drainScheduled.compareAndSet(false, true)) {
+            ChannelHelper.runInEventLoop(this.channel, this.drainTask);
+        }
+    }
+
+    /**
+     * Writes all queued packets, as done once this batch has been replaced.
+     * Packets queued afterwards are written right away.
+     */
+    void close() {
+        this.state.compareAndSet(STATE_OPEN, STATE_CLOSED);
+        this.flush();
+    }
+
+    /**
+     * Releases all queued packets without writing them, as done once the channel is gone.
+     * Packets queued afterwards are released right away.
+     */
+    void discard() {
+        this.state.set(STATE_DISCARDED);
+        QueuedPacket packet;
+        while ((packet = this.queue.poll()) != null) {
+            this.size.decrementAndGet();
+            ByteBufHelper.release(packet.buffer);
+        }
+    }
+
+    private void drain() {
+        // reset first, packets queued while draining either get written now or schedule the next drain
+        this.drainScheduled.set(false);
+        ProtocolManager protocolManager = PacketEvents.getAPI().getProtocolManager();
+        QueuedPacket packet;
+        while ((packet = this.queue.poll()) != null) {
+            this.size.decrementAndGet();
+            if (packet.silent) {
+                protocolManager.writePacketSilently(this.channel, packet.buffer);
+            } else {
+                protocolManager.writePacket(this.channel, packet.buffer);
+            }
+        }
+        ChannelHelper.flush(this.channel);
+    }
+
+    private static final class QueuedPacket {
+
+        private final Object buffer;
+        private final boolean silent;
+
+        private QueuedPacket(Object buffer, boolean silent) {
+            this.buffer = buffer;
+            this.silent = silent;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.player;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.PacketSide;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.util.mappings.IRegistryHolder;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable snapshot of the protocol state of a {@link User}.
+ * It is rebuilt whenever the client version or one of the connection states of the user changes,
+ * so everything derived from them is computed once instead of on every packet.
+ *
+ * @see User#getProtocolContext()
+ */
+public final class ProtocolContext {
+
+    private final @Nullable ClientVersion clientVersion;
+    private final @Nullable ServerVersion serverVersion;
+    private final ConnectionState decoderState;
+    private final ConnectionState encoderState;
+    private final @Nullable PacketTypeCommon[] serverboundIdTable;
+    private final @Nullable PacketTypeCommon[] clientboundIdTable;
+    private final IRegistryHolder registryHolder;
+
+    ProtocolContext(
+            @Nullable ClientVersion clientVersion,
+            ConnectionState decoderState, ConnectionState encoderState,
+            IRegistryHolder registryHolder
+    ) {
+        this.clientVersion = clientVersion;
+        this.serverVersion = clientVersion != null ? clientVersion.toServerVersion() : null;
+        this.decoderState = decoderState;
+        this.encoderState = encoderState;
+        if (clientVersion != null) {
+            this.serverboundIdTable = PacketType.getIdTable(PacketSide.CLIENT, decoderState, clientVersion);
+            this.clientboundIdTable = PacketType.getIdTable(PacketSide.SERVER, encoderState, clientVersion);
+        } else {
+            this.serverboundIdTable = null;
+            this.clientboundIdTable = null;
+        }
+        this.registryHolder = registryHolder;
+    }
+
+    /**
+     * @return the client version of the user, or null if it isn't known yet
+     */
+    public @Nullable ClientVersion getClientVersion() {
+        return this.clientVersion;
+    }
+
+    /**
+     * @return the server version matching the client version of the user, or null if it isn't known yet
+     */
+    public @Nullable ServerVersion getServerVersion() {
+        return this.serverVersion;
+    }
+
+    public ConnectionState getDecoderState() {
+        return this.decoderState;
+    }
+
+    public ConnectionState getEncoderState() {
+        return this.encoderState;
+    }
+
+    /**
+     * @param side the side sending the packets
+     * @return the connection state packets of this side are currently handled in
+     */
+    public ConnectionState getState(PacketSide side) {
+        return side == PacketSide.CLIENT ? this.decoderState : this.encoderState;
+    }
+
+    /**
+     * Returns the packet types the given side sends in its current connection state using the
+     * client version of the user, indexed by their packet id.
+     *
+     * @param side the side sending the packets
+     * @return the shared id table, or null if the client version isn't known yet
+     * @see PacketType#getIdTable(PacketSide, ConnectionState, ClientVersion)
+     */
+    public @Nullable PacketTypeCommon[] getIdTable(PacketSide side) {
+        return side == PacketSide.CLIENT ? this.serverboundIdTable : this.clientboundIdTable;
+    }
+
+    public IRegistryHolder getRegistryHolder() {
+        return this.registryHolder;
+    }
+}
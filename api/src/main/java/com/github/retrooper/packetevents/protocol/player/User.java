@@ -19,16 +19,21 @@
 package com.github.retrooper.packetevents.protocol.player;
 
 import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
 import com.github.retrooper.packetevents.manager.server.ServerVersion;
 import com.github.retrooper.packetevents.netty.channel.ChannelHelper;
 import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.PacketSide;
 import com.github.retrooper.packetevents.protocol.chat.ChatType;
 import com.github.retrooper.packetevents.protocol.chat.ChatTypes;
 import com.github.retrooper.packetevents.protocol.chat.message.ChatMessage;
 import com.github.retrooper.packetevents.protocol.chat.message.ChatMessageLegacy;
 import com.github.retrooper.packetevents.protocol.chat.message.ChatMessage_v1_16;
+import com.github.retrooper.packetevents.protocol.mapper.MappedEntity;
 import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.protocol.world.Dimension;
 import com.github.retrooper.packetevents.protocol.world.dimension.DimensionType;
 import com.github.retrooper.packetevents.protocol.world.dimension.DimensionTypes;
@@ -36,6 +41,7 @@ import com.github.retrooper.packetevents.resources.ResourceLocation;
 import com.github.retrooper.packetevents.util.adventure.AdventureSerializer;
 import com.github.retrooper.packetevents.util.mappings.IRegistry;
 import com.github.retrooper.packetevents.util.mappings.IRegistryHolder;
+import com.github.retrooper.packetevents.util.mappings.SynchronizedRegistriesHandler;
 import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerChatMessage;
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerCloseWindow;
@@ -52,6 +58,7 @@ import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public class User implements IRegistryHolder {
 
@@ -63,7 +70,13 @@ public class User implements IRegistryHolder {
     private int entityId = -1;
 
     private DimensionType dimensionType = DimensionTypes.OVERWORLD;
+    // synchronized registries by their fixed index, allocated once the first one is received
+    private IRegistry<?> @Nullable [] syncedRegistries;
     private final Map<ResourceLocation, IRegistry<?>> registries = new HashMap<>();
+    private volatile ProtocolContext protocolContext;
+    // last packet id table looked up per side, indexed by PacketSide ordinal
+    private final PacketIdTable[] packetIdTables = new PacketIdTable[PacketSide.values().length];
+    private volatile @Nullable PacketBatch packetBatch;
 
     public User(Object channel,
                 ConnectionState connectionState, ClientVersion clientVersion,
@@ -73,17 +86,103 @@ public class User implements IRegistryHolder {
         this.encoderState = connectionState;
         this.clientVersion = clientVersion;
         this.profile = profile;
+        this.updateProtocolContext();
     }
 
     @ApiStatus.Internal
     @Override
     public @Nullable IRegistry<?> getRegistry(ResourceLocation registryKey, ClientVersion version) {
+        IRegistry<?>[] syncedRegistries = this.syncedRegistries;
+        if (syncedRegistries != null) {
+            int index = SynchronizedRegistriesHandler.getRegistryIndex(registryKey);
+            if (index != -1) {
+                return syncedRegistries[index];
+            }
+        }
         return this.registries.get(registryKey);
     }
 
+    @ApiStatus.Internal
+    @Override
+    public <T extends MappedEntity> IRegistry<T> getRegistryOr(IRegistry<T> fallbackRegistry) {
+        return this.getRegistryOr(fallbackRegistry, this.clientVersion);
+    }
+
+    @SuppressWarnings("unchecked") // should be fine
+    @ApiStatus.Internal
+    @Override
+    public <T extends MappedEntity> IRegistry<T> getRegistryOr(IRegistry<T> fallbackRegistry, ClientVersion version) {
+        IRegistry<?>[] syncedRegistries = this.syncedRegistries;
+        if (syncedRegistries != null) {
+            // called for every mapped entity read, so avoid hashing the registry key
+            int index = SynchronizedRegistriesHandler.getRegistryIndex(fallbackRegistry);
+            if (index != -1) {
+                IRegistry<?> replacedRegistry = syncedRegistries[index];
+                return replacedRegistry != null ? (IRegistry<T>) replacedRegistry : fallbackRegistry;
+            }
+        }
+        if (this.registries.isEmpty()) {
+            return fallbackRegistry;
+        }
+        IRegistry<?> replacedRegistry = this.registries.get(fallbackRegistry.getRegistryKey());
+        return replacedRegistry != null ? (IRegistry<T>) replacedRegistry : fallbackRegistry;
+    }
+
     @ApiStatus.Internal
     public void putRegistry(IRegistry<?> registry) {
-        this.registries.put(registry.getRegistryKey(), registry);
+        int index = SynchronizedRegistriesHandler.getRegistryIndex(registry.getRegistryKey());
+        if (index == -1) {
+            this.registries.put(registry.getRegistryKey(), registry);
+            return;
+        }
+        IRegistry<?>[] syncedRegistries = this.syncedRegistries;
+        if (syncedRegistries == null) {
+            syncedRegistries = new IRegistry<?>[SynchronizedRegistriesHandler.getRegistryCount()];
+        }
+        IRegistry<?> replacedRegistry = syncedRegistries[index];
+        syncedRegistries[index] = registry;
+        this.syncedRegistries = syncedRegistries;
+        if (replacedRegistry != null) {
+            SynchronizedRegistriesHandler.releaseRegistry(replacedRegistry);
+        }
+    }
+
+    /**
+     * Gives up the synchronized registries of this user, so registries shared with
+     * other users can be evicted once nobody uses them anymore. Called on disconnect.
+     */
+    @ApiStatus.Internal
+    public void releaseRegistries() {
+        IRegistry<?>[] syncedRegistries = this.syncedRegistries;
+        this.syncedRegistries = null;
+        if (syncedRegistries != null) {
+            for (IRegistry<?> registry : syncedRegistries) {
+                if (registry != null) {
+                    SynchronizedRegistriesHandler.releaseRegistry(registry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the packet types of a side in a connection state for the given version, indexed by their packet id.
+     * The table is cached until the version or connection state changes, so resolving the packet type of
+     * a packet is a plain array lookup.
+     *
+     * @see PacketType#getIdTable(PacketSide, ConnectionState, ClientVersion)
+     */
+    @ApiStatus.Internal
+    public PacketTypeCommon[] getPacketIdTable(PacketSide side, ConnectionState state, ClientVersion version) {
+        ProtocolContext context = this.protocolContext;
+        if (context.getClientVersion() == version && context.getState(side) == state) {
+            return context.getIdTable(side);
+        }
+        PacketIdTable cached = this.packetIdTables[side.ordinal()];
+        if (cached == null || cached.state != state || cached.version != version) {
+            cached = new PacketIdTable(state, version, PacketType.getIdTable(side, state, version));
+            this.packetIdTables[side.ordinal()] = cached;
+        }
+        return cached.table;
     }
 
     public Object getChannel() {
@@ -94,6 +193,19 @@ public class User implements IRegistryHolder {
         return (InetSocketAddress) ChannelHelper.remoteAddress(channel);
     }
 
+    /**
+     * Returns the protocol state of this user, along with everything derived from it.
+     * The returned context is immutable, it gets replaced whenever the client version
+     * or a connection state of this user changes.
+     */
+    public ProtocolContext getProtocolContext() {
+        return this.protocolContext;
+    }
+
+    private void updateProtocolContext() {
+        this.protocolContext = new ProtocolContext(this.clientVersion, this.decoderState, this.encoderState, this);
+    }
+
     public ConnectionState getConnectionState() {
         ConnectionState decoderState = this.decoderState;
         ConnectionState encoderState = this.encoderState;
@@ -114,6 +226,7 @@ public class User implements IRegistryHolder {
 
     public void setDecoderState(ConnectionState decoderState) {
         this.decoderState = decoderState;
+        this.updateProtocolContext();
         PacketEvents.getAPI().getLogManager().debug(
                 "Transitioned " + this.getName() + "'s decoder into " + decoderState + " state!");
     }
@@ -124,6 +237,7 @@ public class User implements IRegistryHolder {
 
     public void setEncoderState(ConnectionState encoderState) {
         this.encoderState = encoderState;
+        this.updateProtocolContext();
         PacketEvents.getAPI().getLogManager().debug(
                 "Transitioned " + this.getName() + "'s encoder into " + encoderState + " state!");
     }
@@ -134,6 +248,7 @@ public class User implements IRegistryHolder {
 
     public void setClientVersion(ClientVersion clientVersion) {
         this.clientVersion = clientVersion;
+        this.updateProtocolContext();
     }
 
     public UserProfile getProfile() {
@@ -157,35 +272,51 @@ public class User implements IRegistryHolder {
     }
 
     public void sendPacket(Object buffer) {
-        PacketEvents.getAPI().getProtocolManager().sendPacket(channel, buffer);
+        if (!this.queuePacket(buffer, false)) {
+            PacketEvents.getAPI().getProtocolManager().sendPacket(channel, buffer);
+        }
     }
 
     public void sendPacket(PacketWrapper<?> wrapper) {
-        PacketEvents.getAPI().getProtocolManager().sendPacket(channel, wrapper);
+        if (!this.queueWrapper(wrapper, false)) {
+            PacketEvents.getAPI().getProtocolManager().sendPacket(channel, wrapper);
+        }
     }
 
     public void sendPacketSilently(Object buffer) {
-        PacketEvents.getAPI().getProtocolManager().sendPacketSilently(channel, buffer);
+        if (!this.queuePacket(buffer, true)) {
+            PacketEvents.getAPI().getProtocolManager().sendPacketSilently(channel, buffer);
+        }
     }
 
     public void sendPacketSilently(PacketWrapper<?> wrapper) {
-        PacketEvents.getAPI().getProtocolManager().sendPacketSilently(channel, wrapper);
+        if (!this.queueWrapper(wrapper, true)) {
+            PacketEvents.getAPI().getProtocolManager().sendPacketSilently(channel, wrapper);
+        }
     }
 
     public void writePacket(Object buffer) {
-        PacketEvents.getAPI().getProtocolManager().writePacket(channel, buffer);
+        if (!this.queuePacket(buffer, false)) {
+            PacketEvents.getAPI().getProtocolManager().writePacket(channel, buffer);
+        }
     }
 
     public void writePacket(PacketWrapper<?> wrapper) {
-        PacketEvents.getAPI().getProtocolManager().writePacket(channel, wrapper);
+        if (!this.queueWrapper(wrapper, false)) {
+            PacketEvents.getAPI().getProtocolManager().writePacket(channel, wrapper);
+        }
     }
 
     public void writePacketSilently(Object buffer) {
-        PacketEvents.getAPI().getProtocolManager().writePacketSilently(channel, buffer);
+        if (!this.queuePacket(buffer, true)) {
+            PacketEvents.getAPI().getProtocolManager().writePacketSilently(channel, buffer);
+        }
     }
 
     public void writePacketSilently(PacketWrapper<?> wrapper) {
-        PacketEvents.getAPI().getProtocolManager().writePacketSilently(channel, wrapper);
+        if (!this.queueWrapper(wrapper, true)) {
+            PacketEvents.getAPI().getProtocolManager().writePacketSilently(channel, wrapper);
+        }
     }
 
     public void receivePacket(Object buffer) {
@@ -204,8 +335,95 @@ public class User implements IRegistryHolder {
         PacketEvents.getAPI().getProtocolManager().receivePacketSilently(channel, wrapper);
     }
 
+    /**
+     * Flushes the packets written to this user. With packet batching enabled,
+     * this writes all queued packets on the event loop of the channel and flushes once.
+     */
     public void flushPackets() {
-        ChannelHelper.flush(channel);
+        PacketBatch batch = this.packetBatch;
+        if (batch != null) {
+            batch.flush();
+        } else {
+            ChannelHelper.flush(channel);
+        }
+    }
+
+    /**
+     * Enables packet batching without any automatic flushing,
+     * so queued packets are only written by {@link #flushPackets()}.
+     *
+     * @see #enablePacketBatching(int, long, TimeUnit)
+     */
+    public void enablePacketBatching() {
+        this.enablePacketBatching(0, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queues the packets sent or written through this user instead of handing each of them to the channel.
+     * Packets are encoded right away on the calling thread, but only written on the event loop of the channel
+     * once the batch gets flushed, with a single flush for the whole batch.
+     * This saves an event loop wakeup and a flush per packet when sending many packets from other threads.
+     * <p>
+     * Packets received through this user and packets sent through the {@link ProtocolManager} directly are not batched.
+     *
+     * @param maxPackets flush as soon as this many packets are queued, 0 to disable
+     * @param maxDelay   flush at the latest this long after the first packet of a batch got queued, 0 to disable
+     * @param unit       the unit of maxDelay
+     */
+    public void enablePacketBatching(int maxPackets, long maxDelay, TimeUnit unit) {
+        PacketBatch previous = this.packetBatch;
+        this.packetBatch = new PacketBatch(this.channel, maxPackets, unit.toNanos(maxDelay));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Disables packet batching, packets which are still queued get flushed.
+     */
+    public void disablePacketBatching() {
+        PacketBatch previous = this.packetBatch;
+        this.packetBatch = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Releases the packets still queued for this user without writing them. Called on disconnect,
+     * as packets queued without a size limit or delay would never be written otherwise.
+     */
+    @ApiStatus.Internal
+    public void discardQueuedPackets() {
+        PacketBatch batch = this.packetBatch;
+        this.packetBatch = null;
+        if (batch != null) {
+            batch.discard();
+        }
+    }
+
+    public boolean isPacketBatching() {
+        return this.packetBatch != null;
+    }
+
+    private boolean queuePacket(Object buffer, boolean silent) {
+        PacketBatch batch = this.packetBatch;
+        if (batch == null) {
+            return false;
+        }
+        batch.add(buffer, silent);
+        return true;
+    }
+
+    private boolean queueWrapper(PacketWrapper<?> wrapper, boolean silent) {
+        PacketBatch batch = this.packetBatch;
+        if (batch == null) {
+            return false;
+        }
+        for (Object buffer : PacketEvents.getAPI().getProtocolManager().transformWrappers(wrapper, this.channel, true)) {
+            batch.add(buffer, silent);
+        }
+        return true;
     }
 
     public void closeConnection() {
@@ -400,4 +618,17 @@ public class User implements IRegistryHolder {
     public String getWorldName(Dimension dimension) {
         throw new UnsupportedOperationException();
     }
+
+    private static final class PacketIdTable {
+
+        private final ConnectionState state;
+        private final ClientVersion version;
+        private final PacketTypeCommon[] table;
+
+        private PacketIdTable(ConnectionState state, ClientVersion version, PacketTypeCommon[] table) {
+            this.state = state;
+            this.version = version;
+            this.table = table;
+        }
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.stream;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufOperator;
+
+/**
+ * {@link NetStreamInput} reading directly from a netty buffer, without copying its content
+ * into a byte array first. Pass a slice to restrict the readable region.
+ * <p>
+ * All reads advance the reader index of the buffer.
+ */
+public class ByteBufNetStreamInput extends NetStreamInput {
+
+    private final Object buffer;
+    private final ByteBufOperator operator;
+
+    public ByteBufNetStreamInput(Object buffer) {
+        super(null);
+        this.buffer = buffer;
+        this.operator = PacketEvents.getAPI().getNettyManager().getByteBufOperator();
+    }
+
+    public Object getBuffer() {
+        return this.buffer;
+    }
+
+    @Override
+    public int read() {
+        return this.operator.isReadable(this.buffer) ? this.operator.readUnsignedByte(this.buffer) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        int available = this.available();
+        if (available == 0) {
+            return len == 0 ? 0 : -1;
+        }
+        len = Math.min(available, len);
+        this.operator.readBytes(this.buffer, b, off, len);
+        return len;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.min(n, this.available());
+        this.operator.skipBytes(this.buffer, skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return this.operator.readableBytes(this.buffer);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // the buffer is owned by the packet
+    }
+
+    @Override
+    public byte readByte() {
+        return this.operator.readByte(this.buffer);
+    }
+
+    @Override
+    public int readUnsignedByte() {
+        return this.operator.readUnsignedByte(this.buffer);
+    }
+
+    @Override
+    public short readShort() {
+        return this.operator.readShort(this.buffer);
+    }
+
+    @Override
+    public int readUnsignedShort() {
+        return this.operator.readUnsignedShort(this.buffer);
+    }
+
+    @Override
+    public int readInt() {
+        return this.operator.readInt(this.buffer);
+    }
+
+    @Override
+    public int readVarInt() {
+        return this.operator.readVarInt(this.buffer);
+    }
+
+    @Override
+    public long readLong() {
+        return this.operator.readLong(this.buffer);
+    }
+
+    @Override
+    public long readVarLong() {
+        return this.operator.readVarLong(this.buffer);
+    }
+
+    @Override
+    public byte[] readBytes(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Array cannot have length less than 0.");
+        }
+        byte[] bytes = new byte[length];
+        this.operator.readBytes(this.buffer, bytes);
+        return bytes;
+    }
+
+    @Override
+    public void skipBytes(int length) {
+        this.operator.skipBytes(this.buffer, length);
+    }
+
+    @Override
+    public int readLongs(long[] l, int offset, int length) {
+        // copies the whole range at once, instead of assembling every long from single bytes
+        this.operator.readLongs(this.buffer, l, offset, length);
+        return length;
+    }
+}
@@ -163,6 +163,24 @@ public class NetStreamInput extends FilterInputStream {
     }
 
 
+    public void skipBytes(int length) {
+        int remaining = length;
+        while (remaining > 0) {
+            long skipped = 0;
+            try {
+                skipped = this.skip(remaining);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (skipped <= 0) {
+                throw new IllegalStateException();
+            }
+
+            remaining -= (int) skipped;
+        }
+    }
+
+
     public int readBytes(byte[] b) {
         try {
             return this.read(b);
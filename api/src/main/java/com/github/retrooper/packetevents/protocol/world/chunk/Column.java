@@ -129,6 +129,10 @@ public class Column {
         return chunks;
     }
 
+    public BaseChunk getChunk(int index) {
+        return chunks[index];
+    }
+
     public TileEntity[] getTileEntities() {
         return tileEntities;
     }
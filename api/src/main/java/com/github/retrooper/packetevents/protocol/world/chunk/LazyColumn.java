@@ -0,0 +1,161 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.world.chunk;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.netty.buffer.UnpooledByteBufAllocationHelper;
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.stream.ByteBufNetStreamInput;
+import com.github.retrooper.packetevents.protocol.world.chunk.impl.v_1_18.Chunk_v1_18;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Column of a 1.18+ chunk data packet, which keeps the serialized form of its sections,
+ * heightmaps and block entities and only parses them when they are first accessed.
+ * <p>
+ * Parts which were never accessed are written back by copying their original bytes,
+ * so changing a few blocks only costs parsing the sections containing them.
+ */
+public class LazyColumn extends Column {
+
+    private final ServerVersion serverVersion;
+    private final BaseChunk[] chunks;
+    private final byte[] sectionData;
+    // start of every section in sectionData, followed by the end of the last section
+    private final int[] sectionOffsets;
+
+    private @Nullable byte[] heightMapData;
+    private @Nullable NBTCompound heightMaps;
+    private @Nullable byte[] tileEntityData;
+    private @Nullable TileEntity[] tileEntities;
+
+    public LazyColumn(
+            ServerVersion serverVersion, int x, int z,
+            byte[] heightMapData, byte[] sectionData, int[] sectionOffsets, byte[] tileEntityData
+    ) {
+        super(x, z, true, new BaseChunk[0], null, (NBTCompound) null);
+        this.serverVersion = serverVersion;
+        this.chunks = new BaseChunk[sectionOffsets.length - 1];
+        this.sectionData = sectionData;
+        this.sectionOffsets = sectionOffsets;
+        this.heightMapData = heightMapData;
+        this.tileEntityData = tileEntityData;
+    }
+
+    /**
+     * Parses the section at the given index, if this hasn't happened already.
+     */
+    @Override
+    public BaseChunk getChunk(int index) {
+        BaseChunk chunk = this.chunks[index];
+        if (chunk == null) {
+            Object buffer = UnpooledByteBufAllocationHelper.wrappedBuffer(this.sectionData);
+            ByteBufHelper.readerIndex(buffer, this.sectionOffsets[index]);
+            chunk = Chunk_v1_18.read(new ByteBufNetStreamInput(buffer));
+            this.chunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses all sections which haven't been accessed yet, prefer {@link #getChunk(int)}.
+     */
+    @Override
+    public BaseChunk[] getChunks() {
+        for (int i = 0; i < this.chunks.length; i++) {
+            this.getChunk(i);
+        }
+        return this.chunks;
+    }
+
+    @Override
+    public TileEntity[] getTileEntities() {
+        if (this.tileEntities == null) {
+            PacketWrapper<?> wrapper = this.createReader(this.tileEntityData);
+            TileEntity[] tileEntities = new TileEntity[wrapper.readVarInt()];
+            for (int i = 0; i < tileEntities.length; i++) {
+                tileEntities[i] = new TileEntity(wrapper.readByte(), wrapper.readShort(),
+                        wrapper.readVarInt(), wrapper.readLazyNBT());
+            }
+            this.tileEntities = tileEntities;
+            this.tileEntityData = null;
+        }
+        return this.tileEntities;
+    }
+
+    @Override
+    public NBTCompound getHeightMaps() {
+        if (this.heightMaps == null) {
+            this.heightMaps = this.createReader(this.heightMapData).readNBT();
+            this.heightMapData = null;
+        }
+        return this.heightMaps;
+    }
+
+    private PacketWrapper<?> createReader(byte[] data) {
+        PacketWrapper<?> wrapper = PacketWrapper.createUniversalPacketWrapper(
+                UnpooledByteBufAllocationHelper.wrappedBuffer(data));
+        wrapper.setServerVersion(this.serverVersion);
+        return wrapper;
+    }
+
+    /**
+     * @return the server version the original bytes are encoded for
+     */
+    public ServerVersion getServerVersion() {
+        return this.serverVersion;
+    }
+
+    public int getSectionCount() {
+        return this.chunks.length;
+    }
+
+    public boolean isChunkParsed(int index) {
+        return this.chunks[index] != null;
+    }
+
+    @ApiStatus.Internal
+    public byte[] getSectionData() {
+        return this.sectionData;
+    }
+
+    @ApiStatus.Internal
+    public int getSectionOffset(int index) {
+        return this.sectionOffsets[index];
+    }
+
+    /**
+     * @return the serialized heightmaps, or null if they have been parsed
+     */
+    @ApiStatus.Internal
+    public @Nullable byte[] getHeightMapData() {
+        return this.heightMapData;
+    }
+
+    /**
+     * @return the serialized block entities, or null if they have been parsed
+     */
+    @ApiStatus.Internal
+    public @Nullable byte[] getTileEntityData() {
+        return this.tileEntityData;
+    }
+}
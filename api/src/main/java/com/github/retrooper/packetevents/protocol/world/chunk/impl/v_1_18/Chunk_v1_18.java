@@ -54,6 +54,12 @@ public class Chunk_v1_18 implements BaseChunk {
         return new Chunk_v1_18(blockCount, chunkPalette, biomePalette);
     }
 
+    public static void skip(NetStreamInput in) {
+        in.readShort(); // block count
+        DataPalette.skip(in, PaletteType.CHUNK);
+        DataPalette.skip(in, PaletteType.BIOME);
+    }
+
     public static void write(NetStreamOutput out, Chunk_v1_18 section)  {
         out.writeShort(section.blockCount);
         DataPalette.write(out, section.chunkData);
@@ -73,6 +73,23 @@ public class DataPalette {
         return new DataPalette(palette, storage, paletteType);
     }
 
+    /**
+     * Skips a palette written by {@link #write(NetStreamOutput, DataPalette)}, without reading its content.
+     */
+    public static void skip(NetStreamInput in, PaletteType paletteType) {
+        int bitsPerEntry = in.readByte();
+        if (bitsPerEntry == 0) {
+            in.readVarInt(); // singleton value
+        } else if (bitsPerEntry <= paletteType.getMaxBitsPerEntry()) {
+            int paletteLength = in.readVarInt();
+            for (int i = 0; i < paletteLength; i++) {
+                in.readVarInt();
+            }
+        }
+        int length = in.readVarInt();
+        in.skipBytes(length * Long.BYTES);
+    }
+
     public static void write(NetStreamOutput out, DataPalette palette) {
         if (palette.palette instanceof SingletonPalette) {
             out.writeByte(0); // Bits per entry
@@ -0,0 +1,255 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.protocol.world.states;
+
+import com.github.retrooper.packetevents.protocol.world.states.type.StateType;
+import com.github.retrooper.packetevents.protocol.world.states.type.StateValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All block states of one mapping index, stored in arrays indexed by their global id.
+ * <p>
+ * The property values of every state are packed into an int, with a fixed amount of bits per property
+ * for each block type. Changing a single property of a state is therefore a table lookup of the
+ * modified packed value, instead of hashing all properties of the state to find its global id.
+ */
+final class BlockStateTable {
+
+    private final WrappedBlockState[] byId;
+    private final String[] stringById;
+    private final int[] packedById;
+    private final Map<StateType, TypeLayout> layouts;
+    private final Map<String, WrappedBlockState> byString;
+    private final Map<StateType, WrappedBlockState> defaults;
+
+    private BlockStateTable(
+            WrappedBlockState[] byId, String[] stringById, int[] packedById,
+            Map<StateType, TypeLayout> layouts,
+            Map<String, WrappedBlockState> byString,
+            Map<StateType, WrappedBlockState> defaults
+    ) {
+        this.byId = byId;
+        this.stringById = stringById;
+        this.packedById = packedById;
+        this.layouts = layouts;
+        this.byString = byString;
+        this.defaults = defaults;
+    }
+
+    @Nullable WrappedBlockState getById(int globalId) {
+        return globalId >= 0 && globalId < this.byId.length ? this.byId[globalId] : null;
+    }
+
+    @Nullable WrappedBlockState getByString(String string) {
+        return this.byString.get(string);
+    }
+
+    @Nullable WrappedBlockState getDefault(StateType type) {
+        return this.defaults.get(type);
+    }
+
+    @Nullable String getString(int globalId) {
+        return globalId >= 0 && globalId < this.stringById.length ? this.stringById[globalId] : null;
+    }
+
+    /**
+     * @return the global id of the state of the given type with exactly the given properties, or -1 if there is none
+     */
+    int getId(StateType type, Map<StateValue, Object> data) {
+        TypeLayout layout = this.layouts.get(type);
+        if (layout == null) {
+            return -1;
+        }
+        int packed = layout.pack(data);
+        return packed == -1 ? -1 : layout.idByPacked[packed];
+    }
+
+    /**
+     * @return the global id of the state with one property changed, or -1 if there is no such state
+     */
+    int with(int globalId, StateType type, StateValue property, Object value) {
+        WrappedBlockState state = this.getById(globalId);
+        TypeLayout layout = this.layouts.get(type);
+        if (state == null || state.type != type || layout == null) {
+            return -1;
+        }
+        int index = layout.indexOf(property);
+        if (index == -1) {
+            return -1;
+        }
+        int valueIndex = layout.valueIndex(index, value);
+        if (valueIndex == -1) {
+            return -1;
+        }
+        int shift = layout.shifts[index];
+        int mask = layout.masks[index];
+        int packed = (this.packedById[globalId] & ~(mask << shift)) | (valueIndex << shift);
+        return layout.idByPacked[packed];
+    }
+
+    static final class Builder {
+
+        private final Map<Integer, WrappedBlockState> byId = new LinkedHashMap<>();
+        private final Map<Integer, String> stringById = new HashMap<>();
+        private final Map<String, WrappedBlockState> byString = new HashMap<>();
+        private final Map<StateType, WrappedBlockState> defaults = new IdentityHashMap<>();
+        private int maxId = -1;
+
+        /**
+         * Adds a state, states with the same id replace the earlier ones.
+         */
+        void add(int globalId, WrappedBlockState state, String string) {
+            this.byId.put(globalId, state);
+            this.stringById.put(globalId, string);
+            this.maxId = Math.max(this.maxId, globalId);
+        }
+
+        Map<String, WrappedBlockState> getByString() {
+            return this.byString;
+        }
+
+        Map<StateType, WrappedBlockState> getDefaults() {
+            return this.defaults;
+        }
+
+        BlockStateTable build() {
+            WrappedBlockState[] byId = new WrappedBlockState[this.maxId + 1];
+            String[] stringById = new String[this.maxId + 1];
+            Map<StateType, List<WrappedBlockState>> statesByType = new IdentityHashMap<>();
+            for (Map.Entry<Integer, WrappedBlockState> entry : this.byId.entrySet()) {
+                int id = entry.getKey();
+                byId[id] = entry.getValue();
+                stringById[id] = this.stringById.get(id);
+                statesByType.computeIfAbsent(entry.getValue().type, type -> new ArrayList<>()).add(entry.getValue());
+            }
+
+            int[] packedById = new int[this.maxId + 1];
+            Map<StateType, TypeLayout> layouts = new IdentityHashMap<>(statesByType.size());
+            for (Map.Entry<StateType, List<WrappedBlockState>> entry : statesByType.entrySet()) {
+                TypeLayout layout = TypeLayout.create(entry.getValue());
+                for (WrappedBlockState state : entry.getValue()) {
+                    int packed = layout.pack(state.data);
+                    packedById[state.globalID] = packed;
+                    // states are visited in the order they were added, so the last one with equal properties wins
+                    layout.idByPacked[packed] = state.globalID;
+                }
+                layouts.put(entry.getKey(), layout);
+            }
+            return new BlockStateTable(byId, stringById, packedById, layouts, this.byString, this.defaults);
+        }
+    }
+
+    private static final class TypeLayout {
+
+        private final StateValue[] properties;
+        private final Object[][] values;
+        private final int[] shifts;
+        private final int[] masks;
+        private final int[] idByPacked;
+
+        private TypeLayout(StateValue[] properties, Object[][] values, int[] shifts, int[] masks, int bits) {
+            this.properties = properties;
+            this.values = values;
+            this.shifts = shifts;
+            this.masks = masks;
+            this.idByPacked = new int[1 << bits];
+            Arrays.fill(this.idByPacked, -1);
+        }
+
+        static TypeLayout create(List<WrappedBlockState> states) {
+            // collect every value of every property used by a state of this type
+            Map<StateValue, List<Object>> valuesByProperty = new EnumMap<>(StateValue.class);
+            for (WrappedBlockState state : states) {
+                for (Map.Entry<StateValue, Object> entry : state.data.entrySet()) {
+                    List<Object> values = valuesByProperty.computeIfAbsent(entry.getKey(), property -> new ArrayList<>());
+                    if (!values.contains(entry.getValue())) {
+                        values.add(entry.getValue());
+                    }
+                }
+            }
+            int count = valuesByProperty.size();
+            StateValue[] properties = new StateValue[count];
+            Object[][] values = new Object[count][];
+            int[] shifts = new int[count];
+            int[] masks = new int[count];
+            int bits = 0;
+            int i = 0;
+            for (Map.Entry<StateValue, List<Object>> entry : valuesByProperty.entrySet()) {
+                properties[i] = entry.getKey();
+                values[i] = entry.getValue().toArray();
+                int propertyBits = 32 - Integer.numberOfLeadingZeros(values[i].length - 1);
+                shifts[i] = bits;
+                masks[i] = (1 << propertyBits) - 1;
+                bits += propertyBits;
+                i++;
+            }
+            if (bits > 24) {
+                throw new IllegalStateException("Too many block state properties: " + valuesByProperty.keySet());
+            }
+            return new TypeLayout(properties, values, shifts, masks, bits);
+        }
+
+        int indexOf(StateValue property) {
+            for (int i = 0; i < this.properties.length; i++) {
+                if (this.properties[i] == property) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int valueIndex(int index, Object value) {
+            Object[] values = this.values[index];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].equals(value)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return the packed property values, or -1 if the properties don't belong to this type
+         */
+        int pack(Map<StateValue, Object> data) {
+            if (data.size() != this.properties.length) {
+                return -1;
+            }
+            int packed = 0;
+            for (int i = 0; i < this.properties.length; i++) {
+                Object value = data.get(this.properties[i]);
+                int valueIndex = value == null ? -1 : this.valueIndex(i, value);
+                if (valueIndex == -1) {
+                    return -1;
+                }
+                packed |= valueIndex << this.shifts[i];
+            }
+            return packed;
+        }
+    }
+}
@@ -52,6 +52,7 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.github.retrooper.packetevents.util.adventure.AdventureIndexUtil.indexValueOrThrow;
 
@@ -70,6 +71,11 @@ public class WrappedBlockState {
 
     private static final byte[] MAPPING_INDEXES;
     private static final byte LEGACY_MAPPING_INDEX = 0;
+    // used by the shared air state, which resolves to the table of the server version
+    private static final byte SERVER_MAPPING_INDEX = -1;
+    // loaded on first access of each mapping index, guarded by LOAD_LOCK
+    private static final AtomicReferenceArray<BlockStateTable> TABLES;
+    private static final Object LOAD_LOCK = new Object();
 
     static {
         // all versions where block state mappings were changed TODO UPDATE
@@ -91,37 +97,27 @@ public class WrappedBlockState {
             }
             MAPPING_INDEXES[version.ordinal()] = (byte) (LEGACY_MAPPING_INDEX + j);
         }
+        TABLES = new AtomicReferenceArray<>(LEGACY_MAPPING_INDEX + mappingSteps.length + 1);
     }
 
-    private static final WrappedBlockState AIR = new WrappedBlockState(StateTypes.AIR, new EnumMap<>(StateValue.class), 0, (byte) 0);
-    private static final Map<Byte, Map<String, WrappedBlockState>> BY_STRING = new HashMap<>();
-    private static final Map<Byte, Map<Integer, WrappedBlockState>> BY_ID = new HashMap<>();
-    private static final Map<Byte, Map<WrappedBlockState, String>> INTO_STRING = new HashMap<>();
-    private static final Map<Byte, Map<WrappedBlockState, Integer>> INTO_ID = new HashMap<>();
-    private static final Map<Byte, Map<StateType, WrappedBlockState>> DEFAULT_STATES = new HashMap<>();
+    private static final WrappedBlockState AIR = new WrappedBlockState(StateTypes.AIR, new EnumMap<>(StateValue.class), 0, SERVER_MAPPING_INDEX);
 
     private static final Map<String, String> STRING_UPDATER = new HashMap<>();
 
+    // Try to reduce memory footprint by re-using hashmaps when they are equal
+    // We do this by setting the key to the NBTCompound of the data and the value to the data
+    // this.data = cache.computeIfAbsent(dataContent, (key) -> { // NBTCompound to data });
+    // This will get an equal value if present, otherwise it will compute the value
+    // The cache is kept, so versions loaded later on still share the data of the versions loaded before
+    // A HashMap is used instead of another data type because a hashmap is o(1)
+    //
+    // 6160 total combinations, last updated with 1.20.5
+    // This brings total memory usage from 62 MB to 34 MB, a 28 MB reduction
+    // Using a HashMap reduces memory usage to less than a megabyte, I can't get precise numbers because it is hard to see on a heapdump
+    private static final Map<BinaryNBTCompound, Map.Entry<Map<StateValue, Object>, String>> DATA_CACHE = new HashMap<>(6160, 70); // guarded by LOAD_LOCK
+
     static {
         STRING_UPDATER.put("grass_path", "dirt_path"); // 1.16 -> 1.17
-
-        // Try to reduce memory footprint by re-using hashmaps when they are equal
-        // We do this by setting the key to the NBTCompound of the data and the value to the data
-        // this.data = cache.computeIfAbsent(dataContent, (key) -> { // NBTCompound to data });
-        // This will get an equal value if present, otherwise it will compute the value
-        // Once this is done, we remove this cache to save memory
-        // A HashMap is used instead of another data type because a hashmap is o(1)
-        //
-        // 6160 total combinations, last updated with 1.20.5
-        // This brings total memory usage from 62 MB to 34 MB, a 28 MB reduction
-        // Using a HashMap reduces memory usage to less than a megabyte, I can't get precise numbers because it is hard to see on a heapdump
-        Map<BinaryNBTCompound, Map.Entry<Map<StateValue, Object>, String>> cache = new HashMap<>(6160, 70);
-
-        loadLegacy(cache);
-        loadModern(cache);
-
-        cache.clear();
-        cache = null;
     }
 
     int globalID;
@@ -184,8 +180,7 @@ public class WrappedBlockState {
                     } else {
                         value = stateValue.parse((((NBTString) entry.getValue()).getValue()));
                     }
-                    // safe to modify, gets cloned (if not air)
-                    state.getInternalData().put(stateValue, value);
+                    state.set(stateValue, value);
                 }
             }
         }
@@ -196,14 +191,14 @@ public class WrappedBlockState {
     public static NBT encode(WrappedBlockState state, ClientVersion version) {
         String stateTypeStr = state.type.getMapped().getName().toString();
         WrappedBlockState defaultState;
-        if (state.getInternalData().isEmpty() || state.equals(defaultState = getDefaultState(version, state.type))) {
+        if (state.data.isEmpty() || state.equals(defaultState = getDefaultState(version, state.type, false))) {
             return new NBTString(stateTypeStr);
         }
 
         NBTCompound propsTag = new NBTCompound();
-        for (Map.Entry<StateValue, Object> dataEntry : state.getInternalData().entrySet()) {
+        for (Map.Entry<StateValue, Object> dataEntry : state.data.entrySet()) {
             StateValue stateValue = dataEntry.getKey();
-            if (Objects.equals(defaultState.getInternalData().get(stateValue), dataEntry.getValue())) {
+            if (Objects.equals(defaultState.data.get(stateValue), dataEntry.getValue())) {
                 continue; // don't encode default property values
             }
             NBT valueTag;
@@ -241,8 +236,8 @@ public class WrappedBlockState {
     @NotNull
     public static WrappedBlockState getByGlobalId(ClientVersion version, int globalID, boolean clone) {
         if (globalID == 0) return AIR; // Hardcode for performance
-        byte mappingsIndex = getMappingsIndex(version);
-        final WrappedBlockState state = BY_ID.get(mappingsIndex).getOrDefault(globalID, AIR);
+        WrappedBlockState state = getTable(version).getById(globalID);
+        if (state == null) return AIR;
         return clone ? state.clone() : state;
     }
 
@@ -258,8 +253,8 @@ public class WrappedBlockState {
 
     @NotNull
     public static WrappedBlockState getByString(ClientVersion version, String string, boolean clone) {
-        byte mappingsIndex = getMappingsIndex(version);
-        final WrappedBlockState state = BY_STRING.get(mappingsIndex).getOrDefault(string.replace("minecraft:", ""), AIR);
+        WrappedBlockState state = getTable(version).getByString(string.replace("minecraft:", ""));
+        if (state == null) return AIR;
         return clone ? state.clone() : state;
     }
 
@@ -276,8 +271,7 @@ public class WrappedBlockState {
     @NotNull
     public static WrappedBlockState getDefaultState(ClientVersion version, StateType type, boolean clone) {
         if (type == StateTypes.AIR) return AIR;
-        byte mappingsIndex = getMappingsIndex(version);
-        WrappedBlockState state = DEFAULT_STATES.get(mappingsIndex).get(type);
+        WrappedBlockState state = getTable(version).getDefault(type);
         if (state == null) {
             PacketEvents.getAPI().getLogger().config("Default state for " + type.getName() + " is null. Returning AIR");
             return AIR;
@@ -289,12 +283,47 @@ public class WrappedBlockState {
         return MAPPING_INDEXES[version.ordinal()];
     }
 
-    private static void loadLegacy(Map<BinaryNBTCompound, Map.Entry<Map<StateValue, Object>, String>> cache) {
-        Map<Integer, WrappedBlockState> stateByIdMap = new HashMap<>();
-        Map<WrappedBlockState, Integer> stateToIdMap = new HashMap<>();
-        Map<String, WrappedBlockState> stateByStringMap = new HashMap<>();
-        Map<WrappedBlockState, String> stateToStringMap = new HashMap<>();
-        Map<StateType, WrappedBlockState> stateTypeToBlockStateMap = new HashMap<>();
+    private static BlockStateTable getTable(ClientVersion version) {
+        return getTable(getMappingsIndex(version));
+    }
+
+    private BlockStateTable getTable() {
+        if (this.mappingsIndex == SERVER_MAPPING_INDEX) {
+            // always loaded, unlike the legacy table
+            return getTable(PacketEvents.getAPI().getServerManager().getVersion().toClientVersion());
+        }
+        return getTable(this.mappingsIndex);
+    }
+
+    private static BlockStateTable getTable(byte mappingsIndex) {
+        BlockStateTable table = TABLES.get(mappingsIndex);
+        if (table == null) {
+            synchronized (LOAD_LOCK) {
+                table = TABLES.get(mappingsIndex);
+                if (table == null) {
+                    table = mappingsIndex == LEGACY_MAPPING_INDEX
+                            ? loadLegacy(DATA_CACHE) : loadModern(DATA_CACHE, mappingsIndex);
+                    TABLES.set(mappingsIndex, table);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Loads the block states of the given versions, which would otherwise be loaded
+     * the first time a block state of them is accessed.
+     *
+     * @param versions the client versions to load the block states of
+     */
+    public static void preload(ClientVersion... versions) {
+        for (ClientVersion version : versions) {
+            getTable(version);
+        }
+    }
+
+    private static BlockStateTable loadLegacy(Map<BinaryNBTCompound, Map.Entry<Map<StateValue, Object>, String>> cache) {
+        BlockStateTable.Builder table = new BlockStateTable.Builder();
 
         try (final SequentialNBTReader.Compound compound = MappingHelper.decompress("mappings/block/legacy_block_mappings")) {
             compound.skipOne(); // Skip version
@@ -366,31 +395,25 @@ public class WrappedBlockState {
                     String fullString = entry.getKey() + dataEntry.getValue();
                     WrappedBlockState state = new WrappedBlockState(type, dataEntry.getKey(), combinedID, (byte) 0);
 
-                    stateByIdMap.put(combinedID, state);
-                    stateToStringMap.put(state, fullString);
-                    stateToIdMap.put(state, combinedID);
+                    table.add(combinedID, state, fullString);
 
                     // We want the first with this ID, to prevent invalid blocks that work with vanilla, but may
                     // cause other things handling data to have issues, such as air with a byte value of 1
                     // (this matters as doors read bytes if they are a half without caring what type the other block is)
-                    stateByStringMap.putIfAbsent(fullString, state);
+                    table.getByString().putIfAbsent(fullString, state);
 
                     // This works because the first of a type is always the default block, by chance
-                    stateTypeToBlockStateMap.putIfAbsent(type, state);
+                    table.getDefaults().putIfAbsent(type, state);
                 }
             }
 
-            BY_ID.put(LEGACY_MAPPING_INDEX, stateByIdMap);
-            INTO_ID.put(LEGACY_MAPPING_INDEX, stateToIdMap);
-            BY_STRING.put(LEGACY_MAPPING_INDEX, stateByStringMap);
-            INTO_STRING.put(LEGACY_MAPPING_INDEX, stateToStringMap);
-            DEFAULT_STATES.put(LEGACY_MAPPING_INDEX, stateTypeToBlockStateMap);
+            return table.build();
         } catch (IOException e) {
             throw new RuntimeException("Failed to load legacy block mappings", e);
         }
     }
 
-    private static void loadModern(Map<BinaryNBTCompound, Map.Entry<Map<StateValue, Object>, String>> cache) {
+    private static BlockStateTable loadModern(Map<BinaryNBTCompound, Map.Entry<Map<StateValue, Object>, String>> cache, byte targetIndex) {
         try (final SequentialNBTReader.Compound compound = MappingHelper.decompress("mappings/block/modern_block_mappings")) {
             compound.skipOne(); // Skip version
 
@@ -398,12 +421,12 @@ public class WrappedBlockState {
                 ClientVersion version = ClientVersion.valueOf(versionEntry.getKey());
                 byte mappingIndex = getMappingsIndex(version);
                 SequentialNBTReader.List list = (SequentialNBTReader.List) versionEntry.getValue();
+                if (mappingIndex != targetIndex) {
+                    list.skip(); // only build the requested version
+                    continue;
+                }
 
-                Map<Integer, WrappedBlockState> stateByIdMap = new HashMap<>();
-                Map<WrappedBlockState, Integer> stateToIdMap = new HashMap<>();
-                Map<String, WrappedBlockState> stateByStringMap = new HashMap<>();
-                Map<WrappedBlockState, String> stateToStringMap = new HashMap<>();
-                Map<StateType, WrappedBlockState> stateTypeToBlockStateMap = new HashMap<>();
+                BlockStateTable.Builder table = new BlockStateTable.Builder();
 
                 int id = 0;
                 for (NBT e : list) {
@@ -489,28 +512,23 @@ public class WrappedBlockState {
                         WrappedBlockState state = new WrappedBlockState(type, dataEntry.getKey(), id, mappingIndex);
 
                         if (defaultIdx == index) {
-                            stateTypeToBlockStateMap.put(type, state);
+                            table.getDefaults().put(type, state);
                         }
 
-                        stateByStringMap.put(fullString, state);
-                        stateByIdMap.put(id, state);
-                        stateToStringMap.put(state, fullString);
-                        stateToIdMap.put(state, id);
+                        table.getByString().put(fullString, state);
+                        table.add(id, state, fullString);
 
                         id++;
                         index++;
                     }
                 }
 
-                BY_ID.put(mappingIndex, stateByIdMap);
-                INTO_ID.put(mappingIndex, stateToIdMap);
-                BY_STRING.put(mappingIndex, stateByStringMap);
-                INTO_STRING.put(mappingIndex, stateToStringMap);
-                DEFAULT_STATES.put(mappingIndex, stateTypeToBlockStateMap);
+                return table.build();
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to load modern block mappings", e);
         }
+        throw new IllegalStateException("No block mappings found for mapping index " + targetIndex);
     }
 
     @Override
@@ -543,9 +561,7 @@ public class WrappedBlockState {
     }
 
     public void setAge(int age) {
-        checkIfCloneNeeded();
-        data.put(StateValue.AGE, age);
-        checkIsStillValid();
+        set(StateValue.AGE, age);
     }
 
     public boolean isAttached() {
@@ -553,9 +569,7 @@ public class WrappedBlockState {
     }
 
     public void setAttached(boolean attached) {
-        checkIfCloneNeeded();
-        data.put(StateValue.ATTACHED, attached);
-        checkIsStillValid();
+        set(StateValue.ATTACHED, attached);
     }
 
     public Attachment getAttachment() {
@@ -563,9 +577,7 @@ public class WrappedBlockState {
     }
 
     public void setAttachment(Attachment attachment) {
-        checkIfCloneNeeded();
-        data.put(StateValue.ATTACHMENT, attachment);
-        checkIsStillValid();
+        set(StateValue.ATTACHMENT, attachment);
     }
 
     public Axis getAxis() {
@@ -573,9 +585,7 @@ public class WrappedBlockState {
     }
 
     public void setAxis(Axis axis) {
-        checkIfCloneNeeded();
-        data.put(StateValue.AXIS, axis);
-        checkIsStillValid();
+        set(StateValue.AXIS, axis);
     }
 
     public boolean isBerries() {
@@ -583,9 +593,7 @@ public class WrappedBlockState {
     }
 
     public void setBerries(boolean berries) {
-        checkIfCloneNeeded();
-        data.put(StateValue.BERRIES, berries);
-        checkIsStillValid();
+        set(StateValue.BERRIES, berries);
     }
 
     public int getBites() {
@@ -593,9 +601,7 @@ public class WrappedBlockState {
     }
 
     public void setBites(int bites) {
-        checkIfCloneNeeded();
-        data.put(StateValue.BITES, bites);
-        checkIsStillValid();
+        set(StateValue.BITES, bites);
     }
 
     public boolean isBottom() {
@@ -603,9 +609,7 @@ public class WrappedBlockState {
     }
 
     public void setBottom(boolean bottom) {
-        checkIfCloneNeeded();
-        data.put(StateValue.BOTTOM, bottom);
-        checkIsStillValid();
+        set(StateValue.BOTTOM, bottom);
     }
 
     public int getCandles() {
@@ -613,9 +617,7 @@ public class WrappedBlockState {
     }
 
     public void setCandles(int candles) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CANDLES, candles);
-        checkIsStillValid();
+        set(StateValue.CANDLES, candles);
     }
 
     public int getCharges() {
@@ -623,9 +625,7 @@ public class WrappedBlockState {
     }
 
     public void setCharges(int charges) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CHARGES, charges);
-        checkIsStillValid();
+        set(StateValue.CHARGES, charges);
     }
 
     public boolean isConditional() {
@@ -633,9 +633,7 @@ public class WrappedBlockState {
     }
 
     public void setConditional(boolean conditional) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CONDITIONAL, conditional);
-        checkIsStillValid();
+        set(StateValue.CONDITIONAL, conditional);
     }
 
     public int getDelay() {
@@ -643,9 +641,7 @@ public class WrappedBlockState {
     }
 
     public void setDelay(int delay) {
-        checkIfCloneNeeded();
-        data.put(StateValue.DELAY, delay);
-        checkIsStillValid();
+        set(StateValue.DELAY, delay);
     }
 
     public boolean isDisarmed() {
@@ -653,9 +649,7 @@ public class WrappedBlockState {
     }
 
     public void setDisarmed(boolean disarmed) {
-        checkIfCloneNeeded();
-        data.put(StateValue.DISARMED, disarmed);
-        checkIsStillValid();
+        set(StateValue.DISARMED, disarmed);
     }
 
     public int getDistance() {
@@ -663,9 +657,7 @@ public class WrappedBlockState {
     }
 
     public void setDistance(int distance) {
-        checkIfCloneNeeded();
-        data.put(StateValue.DISTANCE, distance);
-        checkIsStillValid();
+        set(StateValue.DISTANCE, distance);
     }
 
     public boolean isDown() {
@@ -673,9 +665,7 @@ public class WrappedBlockState {
     }
 
     public void setDown(boolean down) {
-        checkIfCloneNeeded();
-        data.put(StateValue.DOWN, down);
-        checkIsStillValid();
+        set(StateValue.DOWN, down);
     }
 
     public boolean isDrag() {
@@ -683,9 +673,7 @@ public class WrappedBlockState {
     }
 
     public void setDrag(boolean drag) {
-        checkIfCloneNeeded();
-        data.put(StateValue.DRAG, drag);
-        checkIsStillValid();
+        set(StateValue.DRAG, drag);
     }
 
     public boolean isDusted() {
@@ -693,9 +681,7 @@ public class WrappedBlockState {
     }
 
     public void setDusted(boolean dusted) {
-        checkIfCloneNeeded();
-        data.put(StateValue.DUSTED, dusted);
-        checkIsStillValid();
+        set(StateValue.DUSTED, dusted);
     }
 
     public int getEggs() {
@@ -703,9 +689,7 @@ public class WrappedBlockState {
     }
 
     public void setEggs(int eggs) {
-        checkIfCloneNeeded();
-        data.put(StateValue.EGGS, eggs);
-        checkIsStillValid();
+        set(StateValue.EGGS, eggs);
     }
 
     public boolean isEnabled() {
@@ -713,9 +697,7 @@ public class WrappedBlockState {
     }
 
     public void setEnabled(boolean enabled) {
-        checkIfCloneNeeded();
-        data.put(StateValue.ENABLED, enabled);
-        checkIsStillValid();
+        set(StateValue.ENABLED, enabled);
     }
 
     public boolean isExtended() {
@@ -723,9 +705,7 @@ public class WrappedBlockState {
     }
 
     public void setExtended(boolean extended) {
-        checkIfCloneNeeded();
-        data.put(StateValue.EXTENDED, extended);
-        checkIsStillValid();
+        set(StateValue.EXTENDED, extended);
     }
 
     public boolean isEye() {
@@ -733,9 +713,7 @@ public class WrappedBlockState {
     }
 
     public void setEye(boolean eye) {
-        checkIfCloneNeeded();
-        data.put(StateValue.EYE, eye);
-        checkIsStillValid();
+        set(StateValue.EYE, eye);
     }
 
     public Face getFace() {
@@ -743,9 +721,7 @@ public class WrappedBlockState {
     }
 
     public void setFace(Face face) {
-        checkIfCloneNeeded();
-        data.put(StateValue.FACE, face);
-        checkIsStillValid();
+        set(StateValue.FACE, face);
     }
 
     public BlockFace getFacing() {
@@ -753,9 +729,7 @@ public class WrappedBlockState {
     }
 
     public void setFacing(BlockFace facing) {
-        checkIfCloneNeeded();
-        data.put(StateValue.FACING, facing);
-        checkIsStillValid();
+        set(StateValue.FACING, facing);
     }
 
     public int getFlowerAmount() {
@@ -763,9 +737,7 @@ public class WrappedBlockState {
     }
 
     public void setFlowerAmount(int flowerAmount) {
-        checkIfCloneNeeded();
-        data.put(StateValue.FLOWER_AMOUNT, flowerAmount);
-        checkIsStillValid();
+        set(StateValue.FLOWER_AMOUNT, flowerAmount);
     }
 
     public Half getHalf() {
@@ -773,9 +745,7 @@ public class WrappedBlockState {
     }
 
     public void setHalf(Half half) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HALF, half);
-        checkIsStillValid();
+        set(StateValue.HALF, half);
     }
 
     public boolean isHanging() {
@@ -783,9 +753,7 @@ public class WrappedBlockState {
     }
 
     public void setHanging(boolean hanging) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HANGING, hanging);
-        checkIsStillValid();
+        set(StateValue.HANGING, hanging);
     }
 
     public boolean isHasBook() {
@@ -793,9 +761,7 @@ public class WrappedBlockState {
     }
 
     public void setHasBook(boolean hasBook) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HAS_BOOK, hasBook);
-        checkIsStillValid();
+        set(StateValue.HAS_BOOK, hasBook);
     }
 
     public boolean isHasBottle0() {
@@ -803,9 +769,7 @@ public class WrappedBlockState {
     }
 
     public void setHasBottle0(boolean hasBottle0) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HAS_BOTTLE_0, hasBottle0);
-        checkIsStillValid();
+        set(StateValue.HAS_BOTTLE_0, hasBottle0);
     }
 
     public boolean isHasBottle1() {
@@ -813,9 +777,7 @@ public class WrappedBlockState {
     }
 
     public void setHasBottle1(boolean hasBottle1) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HAS_BOTTLE_1, hasBottle1);
-        checkIsStillValid();
+        set(StateValue.HAS_BOTTLE_1, hasBottle1);
     }
 
     public boolean isHasBottle2() {
@@ -823,9 +785,7 @@ public class WrappedBlockState {
     }
 
     public void setHasBottle2(boolean hasBottle2) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HAS_BOTTLE_2, hasBottle2);
-        checkIsStillValid();
+        set(StateValue.HAS_BOTTLE_2, hasBottle2);
     }
 
     public boolean isHasRecord() {
@@ -833,9 +793,7 @@ public class WrappedBlockState {
     }
 
     public void setHasRecord(boolean hasRecord) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HAS_RECORD, hasRecord);
-        checkIsStillValid();
+        set(StateValue.HAS_RECORD, hasRecord);
     }
 
     public int getHatch() {
@@ -843,9 +801,7 @@ public class WrappedBlockState {
     }
 
     public void setHatch(int hatch) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HATCH, hatch);
-        checkIsStillValid();
+        set(StateValue.HATCH, hatch);
     }
 
     public Hinge getHinge() {
@@ -853,9 +809,7 @@ public class WrappedBlockState {
     }
 
     public void setHinge(Hinge hinge) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HINGE, hinge);
-        checkIsStillValid();
+        set(StateValue.HINGE, hinge);
     }
 
     public int getHoneyLevel() {
@@ -863,9 +817,7 @@ public class WrappedBlockState {
     }
 
     public void setHoneyLevel(int honeyLevel) {
-        checkIfCloneNeeded();
-        data.put(StateValue.HONEY_LEVEL, honeyLevel);
-        checkIsStillValid();
+        set(StateValue.HONEY_LEVEL, honeyLevel);
     }
 
     public boolean isInWall() {
@@ -873,9 +825,7 @@ public class WrappedBlockState {
     }
 
     public void setInWall(boolean inWall) {
-        checkIfCloneNeeded();
-        data.put(StateValue.IN_WALL, inWall);
-        checkIsStillValid();
+        set(StateValue.IN_WALL, inWall);
     }
 
     public Instrument getInstrument() {
@@ -883,9 +833,7 @@ public class WrappedBlockState {
     }
 
     public void setInstrument(Instrument instrument) {
-        checkIfCloneNeeded();
-        data.put(StateValue.INSTRUMENT, instrument);
-        checkIsStillValid();
+        set(StateValue.INSTRUMENT, instrument);
     }
 
     public boolean isInverted() {
@@ -893,9 +841,7 @@ public class WrappedBlockState {
     }
 
     public void setInverted(boolean inverted) {
-        checkIfCloneNeeded();
-        data.put(StateValue.INVERTED, inverted);
-        checkIsStillValid();
+        set(StateValue.INVERTED, inverted);
     }
 
     public int getLayers() {
@@ -903,9 +849,7 @@ public class WrappedBlockState {
     }
 
     public void setLayers(int layers) {
-        checkIfCloneNeeded();
-        data.put(StateValue.LAYERS, layers);
-        checkIsStillValid();
+        set(StateValue.LAYERS, layers);
     }
 
     public Leaves getLeaves() {
@@ -913,9 +857,7 @@ public class WrappedBlockState {
     }
 
     public void setLeaves(Leaves leaves) {
-        checkIfCloneNeeded();
-        data.put(StateValue.LEAVES, leaves);
-        checkIsStillValid();
+        set(StateValue.LEAVES, leaves);
     }
 
     public int getLevel() {
@@ -923,9 +865,7 @@ public class WrappedBlockState {
     }
 
     public void setLevel(int level) {
-        checkIfCloneNeeded();
-        data.put(StateValue.LEVEL, level);
-        checkIsStillValid();
+        set(StateValue.LEVEL, level);
     }
 
     public boolean isLit() {
@@ -933,9 +873,7 @@ public class WrappedBlockState {
     }
 
     public void setLit(boolean lit) {
-        checkIfCloneNeeded();
-        data.put(StateValue.LIT, lit);
-        checkIsStillValid();
+        set(StateValue.LIT, lit);
     }
 
     public boolean isTip() {
@@ -943,9 +881,7 @@ public class WrappedBlockState {
     }
 
     public void setTip(boolean tip) {
-        checkIfCloneNeeded();
-        data.put(StateValue.TIP, tip);
-        checkIsStillValid();
+        set(StateValue.TIP, tip);
     }
 
     public boolean isLocked() {
@@ -953,9 +889,7 @@ public class WrappedBlockState {
     }
 
     public void setLocked(boolean locked) {
-        checkIfCloneNeeded();
-        data.put(StateValue.LOCKED, locked);
-        checkIsStillValid();
+        set(StateValue.LOCKED, locked);
     }
 
     public Mode getMode() {
@@ -963,9 +897,7 @@ public class WrappedBlockState {
     }
 
     public void setMode(Mode mode) {
-        checkIfCloneNeeded();
-        data.put(StateValue.MODE, mode);
-        checkIsStillValid();
+        set(StateValue.MODE, mode);
     }
 
     public int getMoisture() {
@@ -973,9 +905,7 @@ public class WrappedBlockState {
     }
 
     public void setMoisture(int moisture) {
-        checkIfCloneNeeded();
-        data.put(StateValue.MOISTURE, moisture);
-        checkIsStillValid();
+        set(StateValue.MOISTURE, moisture);
     }
 
     public North getNorth() {
@@ -983,9 +913,7 @@ public class WrappedBlockState {
     }
 
     public void setNorth(North north) {
-        checkIfCloneNeeded();
-        data.put(StateValue.NORTH, north);
-        checkIsStillValid();
+        set(StateValue.NORTH, north);
     }
 
     public int getNote() {
@@ -993,9 +921,7 @@ public class WrappedBlockState {
     }
 
     public void setNote(int note) {
-        checkIfCloneNeeded();
-        data.put(StateValue.NOTE, note);
-        checkIsStillValid();
+        set(StateValue.NOTE, note);
     }
 
     public boolean isOccupied() {
@@ -1003,9 +929,7 @@ public class WrappedBlockState {
     }
 
     public void setOccupied(boolean occupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.OCCUPIED, occupied);
-        checkIsStillValid();
+        set(StateValue.OCCUPIED, occupied);
     }
 
     public boolean isShrieking() {
@@ -1013,9 +937,7 @@ public class WrappedBlockState {
     }
 
     public void setShrieking(boolean shrieking) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SHRIEKING, shrieking);
-        checkIsStillValid();
+        set(StateValue.SHRIEKING, shrieking);
     }
 
     public boolean isCanSummon() {
@@ -1023,9 +945,7 @@ public class WrappedBlockState {
     }
 
     public void setCanSummon(boolean canSummon) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CAN_SUMMON, canSummon);
-        checkIsStillValid();
+        set(StateValue.CAN_SUMMON, canSummon);
     }
 
     public boolean isOpen() {
@@ -1033,9 +953,7 @@ public class WrappedBlockState {
     }
 
     public void setOpen(boolean open) {
-        checkIfCloneNeeded();
-        data.put(StateValue.OPEN, open);
-        checkIsStillValid();
+        set(StateValue.OPEN, open);
     }
 
     public Orientation getOrientation() {
@@ -1043,9 +961,7 @@ public class WrappedBlockState {
     }
 
     public void setOrientation(Orientation orientation) {
-        checkIfCloneNeeded();
-        data.put(StateValue.ORIENTATION, orientation);
-        checkIsStillValid();
+        set(StateValue.ORIENTATION, orientation);
     }
 
     public Part getPart() {
@@ -1053,9 +969,7 @@ public class WrappedBlockState {
     }
 
     public void setPart(Part part) {
-        checkIfCloneNeeded();
-        data.put(StateValue.PART, part);
-        checkIsStillValid();
+        set(StateValue.PART, part);
     }
 
     public boolean isPersistent() {
@@ -1063,9 +977,7 @@ public class WrappedBlockState {
     }
 
     public void setPersistent(boolean persistent) {
-        checkIfCloneNeeded();
-        data.put(StateValue.PERSISTENT, persistent);
-        checkIsStillValid();
+        set(StateValue.PERSISTENT, persistent);
     }
 
     public int getPickles() {
@@ -1073,9 +985,7 @@ public class WrappedBlockState {
     }
 
     public void setPickles(int pickles) {
-        checkIfCloneNeeded();
-        data.put(StateValue.PICKLES, pickles);
-        checkIsStillValid();
+        set(StateValue.PICKLES, pickles);
     }
 
     public int getPower() {
@@ -1083,9 +993,7 @@ public class WrappedBlockState {
     }
 
     public void setPower(int power) {
-        checkIfCloneNeeded();
-        data.put(StateValue.POWER, power);
-        checkIsStillValid();
+        set(StateValue.POWER, power);
     }
 
     public boolean isPowered() {
@@ -1093,9 +1001,7 @@ public class WrappedBlockState {
     }
 
     public void setPowered(boolean powered) {
-        checkIfCloneNeeded();
-        data.put(StateValue.POWERED, powered);
-        checkIsStillValid();
+        set(StateValue.POWERED, powered);
     }
 
     public int getRotation() {
@@ -1103,9 +1009,7 @@ public class WrappedBlockState {
     }
 
     public void setRotation(int rotation) {
-        checkIfCloneNeeded();
-        data.put(StateValue.ROTATION, rotation);
-        checkIsStillValid();
+        set(StateValue.ROTATION, rotation);
     }
 
     public SculkSensorPhase getSculkSensorPhase() {
@@ -1113,9 +1017,7 @@ public class WrappedBlockState {
     }
 
     public void setSculkSensorPhase(SculkSensorPhase sculkSensorPhase) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SCULK_SENSOR_PHASE, sculkSensorPhase);
-        checkIsStillValid();
+        set(StateValue.SCULK_SENSOR_PHASE, sculkSensorPhase);
     }
 
     public Shape getShape() {
@@ -1123,9 +1025,7 @@ public class WrappedBlockState {
     }
 
     public void setShape(Shape shape) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SHAPE, shape);
-        checkIsStillValid();
+        set(StateValue.SHAPE, shape);
     }
 
     public boolean isShort() {
@@ -1133,9 +1033,7 @@ public class WrappedBlockState {
     }
 
     public void setShort(boolean short_) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SHORT, short_);
-        checkIsStillValid();
+        set(StateValue.SHORT, short_);
     }
 
     public boolean isSignalFire() {
@@ -1143,9 +1041,7 @@ public class WrappedBlockState {
     }
 
     public void setSignalFire(boolean signalFire) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SIGNAL_FIRE, signalFire);
-        checkIsStillValid();
+        set(StateValue.SIGNAL_FIRE, signalFire);
     }
 
     public boolean isSlotZeroOccupied() {
@@ -1153,9 +1049,7 @@ public class WrappedBlockState {
     }
 
     public void setSlotZeroOccupied(boolean slotZeroOccupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SLOT_0_OCCUPIED, slotZeroOccupied);
-        checkIsStillValid();
+        set(StateValue.SLOT_0_OCCUPIED, slotZeroOccupied);
     }
 
     public boolean isSlotOneOccupied() {
@@ -1163,9 +1057,7 @@ public class WrappedBlockState {
     }
 
     public void setSlotOneOccupied(boolean slotOneOccupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SLOT_1_OCCUPIED, slotOneOccupied);
-        checkIsStillValid();
+        set(StateValue.SLOT_1_OCCUPIED, slotOneOccupied);
     }
 
     public boolean isSlotTwoOccupied() {
@@ -1173,9 +1065,7 @@ public class WrappedBlockState {
     }
 
     public void setSlotTwoOccupied(boolean slotTwoOccupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SLOT_2_OCCUPIED, slotTwoOccupied);
-        checkIsStillValid();
+        set(StateValue.SLOT_2_OCCUPIED, slotTwoOccupied);
     }
 
     public boolean isSlotThreeOccupied() {
@@ -1183,9 +1073,7 @@ public class WrappedBlockState {
     }
 
     public void setSlotThreeOccupied(boolean slotThreeOccupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SLOT_3_OCCUPIED, slotThreeOccupied);
-        checkIsStillValid();
+        set(StateValue.SLOT_3_OCCUPIED, slotThreeOccupied);
     }
 
     public boolean isSlotFourOccupied() {
@@ -1193,9 +1081,7 @@ public class WrappedBlockState {
     }
 
     public void setSlotFourOccupied(boolean slotFourOccupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SLOT_4_OCCUPIED, slotFourOccupied);
-        checkIsStillValid();
+        set(StateValue.SLOT_4_OCCUPIED, slotFourOccupied);
     }
 
     public boolean isSlotFiveOccupied() {
@@ -1203,9 +1089,7 @@ public class WrappedBlockState {
     }
 
     public void setSlotFiveOccupied(boolean slotFiveOccupied) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SLOT_5_OCCUPIED, slotFiveOccupied);
-        checkIsStillValid();
+        set(StateValue.SLOT_5_OCCUPIED, slotFiveOccupied);
     }
 
     public boolean isSnowy() {
@@ -1213,9 +1097,7 @@ public class WrappedBlockState {
     }
 
     public void setSnowy(boolean snowy) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SNOWY, snowy);
-        checkIsStillValid();
+        set(StateValue.SNOWY, snowy);
     }
 
     public int getStage() {
@@ -1223,9 +1105,7 @@ public class WrappedBlockState {
     }
 
     public void setStage(int stage) {
-        checkIfCloneNeeded();
-        data.put(StateValue.STAGE, stage);
-        checkIsStillValid();
+        set(StateValue.STAGE, stage);
     }
 
     public South getSouth() {
@@ -1233,9 +1113,7 @@ public class WrappedBlockState {
     }
 
     public void setSouth(South south) {
-        checkIfCloneNeeded();
-        data.put(StateValue.SOUTH, south);
-        checkIsStillValid();
+        set(StateValue.SOUTH, south);
     }
 
     public Thickness getThickness() {
@@ -1243,9 +1121,7 @@ public class WrappedBlockState {
     }
 
     public void setThickness(Thickness thickness) {
-        checkIfCloneNeeded();
-        data.put(StateValue.THICKNESS, thickness);
-        checkIsStillValid();
+        set(StateValue.THICKNESS, thickness);
     }
 
     public Tilt getTilt() {
@@ -1253,9 +1129,7 @@ public class WrappedBlockState {
     }
 
     public void setTilt(Tilt tilt) {
-        checkIfCloneNeeded();
-        data.put(StateValue.TILT, tilt);
-        checkIsStillValid();
+        set(StateValue.TILT, tilt);
     }
 
     public boolean isTriggered() {
@@ -1263,9 +1137,7 @@ public class WrappedBlockState {
     }
 
     public void setTriggered(boolean triggered) {
-        checkIfCloneNeeded();
-        data.put(StateValue.TRIGGERED, triggered);
-        checkIsStillValid();
+        set(StateValue.TRIGGERED, triggered);
     }
 
     public Type getTypeData() {
@@ -1273,9 +1145,7 @@ public class WrappedBlockState {
     }
 
     public void setTypeData(Type type) {
-        checkIfCloneNeeded();
-        data.put(StateValue.TYPE, type);
-        checkIsStillValid();
+        set(StateValue.TYPE, type);
     }
 
     public boolean isUnstable() {
@@ -1283,9 +1153,7 @@ public class WrappedBlockState {
     }
 
     public void setUnstable(boolean unstable) {
-        checkIfCloneNeeded();
-        data.put(StateValue.UNSTABLE, unstable);
-        checkIsStillValid();
+        set(StateValue.UNSTABLE, unstable);
     }
 
     public boolean isUp() {
@@ -1293,9 +1161,7 @@ public class WrappedBlockState {
     }
 
     public void setUp(boolean up) {
-        checkIfCloneNeeded();
-        data.put(StateValue.UP, up);
-        checkIsStillValid();
+        set(StateValue.UP, up);
     }
 
     public VerticalDirection getVerticalDirection() {
@@ -1303,9 +1169,7 @@ public class WrappedBlockState {
     }
 
     public void setVerticalDirection(VerticalDirection verticalDirection) {
-        checkIfCloneNeeded();
-        data.put(StateValue.VERTICAL_DIRECTION, verticalDirection);
-        checkIsStillValid();
+        set(StateValue.VERTICAL_DIRECTION, verticalDirection);
     }
 
     public boolean isWaterlogged() {
@@ -1313,9 +1177,7 @@ public class WrappedBlockState {
     }
 
     public void setWaterlogged(boolean waterlogged) {
-        checkIfCloneNeeded();
-        data.put(StateValue.WATERLOGGED, waterlogged);
-        checkIsStillValid();
+        set(StateValue.WATERLOGGED, waterlogged);
     }
 
     public East getEast() {
@@ -1323,9 +1185,7 @@ public class WrappedBlockState {
     }
 
     public void setEast(East west) {
-        checkIfCloneNeeded();
-        data.put(StateValue.EAST, west);
-        checkIsStillValid();
+        set(StateValue.EAST, west);
     }
 
     public West getWest() {
@@ -1333,9 +1193,7 @@ public class WrappedBlockState {
     }
 
     public void setWest(West west) {
-        checkIfCloneNeeded();
-        data.put(StateValue.WEST, west);
-        checkIsStillValid();
+        set(StateValue.WEST, west);
     }
 
     public Bloom getBloom() {
@@ -1343,9 +1201,7 @@ public class WrappedBlockState {
     }
 
     public void setBloom(Bloom bloom) {
-        checkIfCloneNeeded();
-        data.put(StateValue.BLOOM, bloom);
-        checkIsStillValid();
+        set(StateValue.BLOOM, bloom);
     }
 
     public boolean isCracked() {
@@ -1353,9 +1209,7 @@ public class WrappedBlockState {
     }
 
     public void setCracked(boolean cracked) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CRACKED, cracked);
-        checkIsStillValid();
+        set(StateValue.CRACKED, cracked);
     }
 
     public boolean isCrafting() {
@@ -1363,9 +1217,7 @@ public class WrappedBlockState {
     }
 
     public void setCrafting(boolean crafting) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CRAFTING, crafting);
-        checkIsStillValid();
+        set(StateValue.CRAFTING, crafting);
     }
 
     public TrialSpawnerState getTrialSpawnerState() {
@@ -1373,9 +1225,7 @@ public class WrappedBlockState {
     }
 
     public void setTrialSpawnerState(TrialSpawnerState trialSpawnerState) {
-        checkIfCloneNeeded();
-        data.put(StateValue.TRIAL_SPAWNER_STATE, trialSpawnerState);
-        checkIsStillValid();
+        set(StateValue.TRIAL_SPAWNER_STATE, trialSpawnerState);
     }
 
     /**
@@ -1391,9 +1241,7 @@ public class WrappedBlockState {
      */
     @ApiStatus.Obsolete
     public void setCreaking(CreakingHeartState creakingHeartState) {
-        checkIfCloneNeeded();
-        data.put(StateValue.CREAKING, creakingHeartState);
-        checkIsStillValid();
+        set(StateValue.CREAKING, creakingHeartState);
     }
 
     /**
@@ -1407,9 +1255,7 @@ public class WrappedBlockState {
      * Added with 1.21.4
      */
     public void setActive(boolean active) {
-        this.checkIfCloneNeeded();
-        this.data.put(StateValue.ACTIVE, active);
-        this.checkIsStillValid();
+        this.set(StateValue.ACTIVE, active);
     }
 
     /**
@@ -1423,9 +1269,7 @@ public class WrappedBlockState {
      * Added with 1.21.4
      */
     public void setNatural(boolean natural) {
-        this.checkIfCloneNeeded();
-        this.data.put(StateValue.NATURAL, natural);
-        this.checkIsStillValid();
+        this.set(StateValue.NATURAL, natural);
     }
 
     // End all block data types
@@ -1442,32 +1286,60 @@ public class WrappedBlockState {
     }
 
     /**
-     * This checks if the block state is still valid after modifying it
-     * If it isn't, then this block will be reverted to the previous state using the global id
+     * Changes a single property and moves this block state to the global id of the resulting state.
+     * If there is no such state, this block will be reverted to the previous state using the global id
      * This is because I believe it's better to revert illegal modification than to simply set to air for doing so
      * As multi-version makes block data still annoying
      */
-    private void checkIsStillValid() {
-        int oldGlobalID = globalID;
-        globalID = getGlobalIdNoCache();
-        if (globalID == -1) { // -1 maps to no block as negative ID are impossible
-            WrappedBlockState blockState = BY_ID.get(mappingsIndex).getOrDefault(oldGlobalID, AIR).clone();
-            this.type = blockState.type;
-            this.globalID = blockState.globalID;
-            this.data = new HashMap<>(blockState.data);
-
-            // Stack tracing is expensive
-            if (PacketEvents.getAPI().getSettings().isDebugEnabled()) {
-                PacketEvents.getAPI().getLogManager().warn("Attempt to modify an unknown property for this game version and block!");
-                PacketEvents.getAPI().getLogManager().warn("Block: " + type.getName());
-                for (Map.Entry<StateValue, Object> entry : data.entrySet()) {
-                    PacketEvents.getAPI().getLogManager().warn(entry.getKey() + ": " + entry.getValue());
-                }
-                new IllegalStateException("An invalid modification was made to a block!").printStackTrace();
+    private void set(StateValue property, Object value) {
+        BlockStateTable table = this.getTable();
+        int newGlobalID;
+        if (this.isTableState(table)) {
+            // unmodified states don't need to hash their properties, only the changed one is looked up
+            newGlobalID = table.with(this.globalID, this.type, property, value);
+        } else {
+            this.checkIfCloneNeeded();
+            this.data.put(property, value);
+            newGlobalID = table.getId(this.type, this.data);
+        }
+
+        WrappedBlockState newState = table.getById(newGlobalID);
+        if (newState != null) {
+            // share the properties of the new state, they get cloned again on direct modification
+            this.globalID = newGlobalID;
+            this.data = newState.data;
+            this.hasClonedData = false;
+            return;
+        }
+
+        WrappedBlockState blockState = table.getById(this.globalID);
+        if (blockState == null) {
+            blockState = AIR;
+        }
+        this.type = blockState.type;
+        this.globalID = blockState.globalID;
+        this.data = blockState.data;
+        this.hasClonedData = false;
+
+        // Stack tracing is expensive
+        if (PacketEvents.getAPI().getSettings().isDebugEnabled()) {
+            PacketEvents.getAPI().getLogManager().warn("Attempt to modify an unknown property for this game version and block!");
+            PacketEvents.getAPI().getLogManager().warn("Block: " + type.getName());
+            for (Map.Entry<StateValue, Object> entry : data.entrySet()) {
+                PacketEvents.getAPI().getLogManager().warn(entry.getKey() + ": " + entry.getValue());
             }
+            new IllegalStateException("An invalid modification was made to a block!").printStackTrace();
         }
     }
 
+    /**
+     * @return whether this block state still shares the properties of the state with its global id
+     */
+    private boolean isTableState(BlockStateTable table) {
+        WrappedBlockState state = table.getById(this.globalID);
+        return state != null && state.type == this.type && state.data == this.data;
+    }
+
     /**
      * This method is helpful if you want to check if a block can be
      * waterlogged, or has other properties.
@@ -1491,17 +1363,21 @@ public class WrappedBlockState {
         return globalID;
     }
 
-    /**
-     * Internal method for determining if the block state is still valid
-     */
-    private int getGlobalIdNoCache() {
-        return INTO_ID.get(mappingsIndex).getOrDefault(this, -1);
-    }
-
     @Override
     public String toString() {
-        return INTO_STRING.get(mappingsIndex).get(this);
+        BlockStateTable table = this.getTable();
+        return table.getString(this.isTableState(table) ? this.globalID : table.getId(this.type, this.data));
     }
 
-    public static void ensureLoad() { /**/ }
+    /**
+     * Loads the block states of the server version and of the versions configured with
+     * {@link com.github.retrooper.packetevents.settings.PacketEventsSettings#preloadedBlockStateVersions(ClientVersion...)},
+     * so the first packets don't have to wait for them.
+     */
+    public static void ensureLoad() {
+        for (ClientVersion version : PacketEvents.getAPI().getSettings().getPreloadedBlockStateVersions()) {
+            getTable(version);
+        }
+        getTable(PacketEvents.getAPI().getServerManager().getVersion().toClientVersion());
+    }
 }
@@ -18,10 +18,15 @@
 
 package com.github.retrooper.packetevents.settings;
 
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 import com.github.retrooper.packetevents.util.TimeStampMode;
 import org.jetbrains.annotations.ApiStatus;
 
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
@@ -40,6 +45,9 @@ public class PacketEventsSettings {
     private boolean fullStackTraceEnabled = false;
     private boolean kickOnPacketExceptionEnabled = true;
     private boolean kickIfTerminated = true;
+    private boolean metricsEnabled = false;
+    private Set<ClientVersion> preloadedBlockStateVersions = Collections.emptySet();
+    private int componentCacheSize = 1024;
     private Function<String, InputStream> resourceProvider = path -> PacketEventsSettings.class
             .getClassLoader()
             .getResourceAsStream(path);
@@ -152,6 +160,52 @@ public class PacketEventsSettings {
         return this;
     }
 
+    /**
+     * This decides if PacketEvents should record the invocation count, latency, cancellations and re-encodes
+     * of every listener per packet type. Timing every listener call has a small cost, so this is disabled by default.
+     *
+     * @param metricsEnabled Value
+     * @return Settings instance.
+     * @see com.github.retrooper.packetevents.event.EventManager#getMetrics()
+     */
+    @ApiStatus.Internal
+    public PacketEventsSettings metrics(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    /**
+     * Block states are loaded per version the first time they are accessed.
+     * This decides which client versions should have their block states loaded on startup,
+     * in addition to the server version. On proxies and Fabric, nothing is preloaded unless versions are set.
+     *
+     * @param versions Value
+     * @return Settings instance.
+     */
+    @ApiStatus.Internal
+    public PacketEventsSettings preloadedBlockStateVersions(ClientVersion... versions) {
+        this.preloadedBlockStateVersions = versions.length == 0 ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(versions)));
+        return this;
+    }
+
+    /**
+     * Text components which are written often, like scoreboard lines or tab list headers,
+     * are kept serialized so sending them again only copies their bytes.
+     * This decides how many serialized components are kept at most, 0 disables the cache.
+     *
+     * @param componentCacheSize Value
+     * @return Settings instance.
+     */
+    @ApiStatus.Internal
+    public PacketEventsSettings componentCacheSize(int componentCacheSize) {
+        if (componentCacheSize < 0) {
+            throw new IllegalArgumentException("Component cache size must not be negative, got " + componentCacheSize);
+        }
+        this.componentCacheSize = componentCacheSize;
+        return this;
+    }
+
     /**
      * Some projects may want to implement a CDN with resources like asset mappings
      * By default, all resources are retrieved from the ClassLoader
@@ -241,6 +295,33 @@ public class PacketEventsSettings {
         return kickIfTerminated;
     }
 
+    /**
+     * Should packetevents record metrics of the packet listeners?
+     *
+     * @return Getter for {@link #metricsEnabled}
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Which client versions should have their block states loaded on startup?
+     *
+     * @return Getter for {@link #preloadedBlockStateVersions}
+     */
+    public Set<ClientVersion> getPreloadedBlockStateVersions() {
+        return preloadedBlockStateVersions;
+    }
+
+    /**
+     * How many serialized text components should be kept at most?
+     *
+     * @return Getter for {@link #componentCacheSize}
+     */
+    public int getComponentCacheSize() {
+        return componentCacheSize;
+    }
+
     /**
      * As described above, this method retrieves the function that acquires the InputStream
      * of a desired resource by its path.
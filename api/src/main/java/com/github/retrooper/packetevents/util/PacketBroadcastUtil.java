@@ -0,0 +1,117 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.util;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.event.EventManager;
+import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.PacketSide;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.player.ProtocolContext;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends one wrapper to many users while serializing it only once per distinct protocol,
+ * see {@link ProtocolManager#broadcastPacket(Collection, PacketWrapper)}.
+ */
+@ApiStatus.Internal
+public final class PacketBroadcastUtil {
+
+    private static final int STATE_COUNT = ConnectionState.values().length;
+
+    private PacketBroadcastUtil() {
+    }
+
+    public static void broadcast(ProtocolManager protocolManager, Collection<User> users,
+                                 PacketWrapper<?> wrapper, boolean silent) {
+        if (users.isEmpty()) {
+            return;
+        }
+        boolean proxy = PacketEvents.getAPI().getInjector().isProxy();
+        // On servers the encoded bytes only depend on the server version, the state is only needed
+        // to find out if listeners are interested. Proxies rewrite the packet for every client version.
+        Map<Integer, List<User>> groups = new HashMap<>();
+        for (User user : users) {
+            ProtocolContext context = user.getProtocolContext();
+            int key = context.getEncoderState().ordinal();
+            if (proxy) {
+                ClientVersion version = context.getClientVersion();
+                if (version == null) {
+                    // Nothing to rewrite the packet for yet, leave this to the regular path
+                    if (silent) {
+                        protocolManager.sendPacketSilently(user.getChannel(), wrapper);
+                    } else {
+                        protocolManager.sendPacket(user.getChannel(), wrapper);
+                    }
+                    continue;
+                }
+                key += (version.ordinal() + 1) * STATE_COUNT;
+            }
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(user);
+        }
+        for (List<User> group : groups.values()) {
+            sendToGroup(protocolManager, group, wrapper, silent, proxy);
+        }
+    }
+
+    private static void sendToGroup(ProtocolManager protocolManager, List<User> group,
+                                    PacketWrapper<?> wrapper, boolean silent, boolean proxy) {
+        Object firstChannel = group.get(0).getChannel();
+        ConnectionState state = group.get(0).getProtocolContext().getEncoderState();
+        EventManager eventManager = PacketEvents.getAPI().getEventManager();
+
+        PacketWrapper<?>[] wrappers = PacketTransformationUtil.transform(wrapper);
+        for (PacketWrapper<?> transformed : wrappers) {
+            Object buffer;
+            synchronized (transformed.bufferLock) {
+                transformed.prepareForSend(firstChannel, true, proxy);
+                buffer = transformed.buffer;
+                transformed.buffer = null;
+            }
+            // Listeners may rewrite the buffer in place, so every recipient needs its own copy of the bytes then.
+            // Copying is still far cheaper than serializing the wrapper again.
+            PacketTypeCommon packetType = transformed.getPacketTypeData().getPacketType();
+            boolean shared = silent || (packetType != null
+                    && !eventManager.isListening(PacketSide.SERVER, state, packetType));
+            try {
+                for (User user : group) {
+                    Object userBuffer = shared ? ByteBufHelper.retainedDuplicate(buffer) : ByteBufHelper.copy(buffer);
+                    if (silent) {
+                        protocolManager.sendPacketSilently(user.getChannel(), userBuffer);
+                    } else {
+                        protocolManager.sendPacket(user.getChannel(), userBuffer);
+                    }
+                }
+            } finally {
+                ByteBufHelper.release(buffer);
+            }
+        }
+    }
+}
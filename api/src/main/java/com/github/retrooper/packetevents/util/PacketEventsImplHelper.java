@@ -24,8 +24,13 @@ import com.github.retrooper.packetevents.event.PacketSendEvent;
 import com.github.retrooper.packetevents.event.ProtocolPacketEvent;
 import com.github.retrooper.packetevents.event.UserDisconnectEvent;
 import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
 import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
 import com.github.retrooper.packetevents.protocol.PacketSide;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.protocol.player.ProtocolContext;
 import com.github.retrooper.packetevents.protocol.player.User;
 import org.jetbrains.annotations.Nullable;
 
@@ -47,6 +52,43 @@ public final class PacketEventsImplHelper {
         }
     }
 
+    /**
+     * Checks whether any listener is interested in the packet contained in the buffer, by only peeking at its packet id.
+     * The reader index of the buffer is left untouched. If this returns false, the buffer can be passed
+     * on as-is, without creating an event or touching its content any further.
+     *
+     * @param user                    the user the packet belongs to
+     * @param buffer                  the packet buffer, starting with the packet id
+     * @param side                    the side sending the packet
+     * @param autoProtocolTranslation whether the packet is in the protocol of the server instead of the client
+     * @return false if the packet can safely skip event processing
+     */
+    public static boolean isListened(User user, Object buffer, PacketSide side, boolean autoProtocolTranslation) {
+        int readerIndex = ByteBufHelper.readerIndex(buffer);
+        int packetId;
+        try {
+            packetId = ByteBufHelper.readVarInt(buffer);
+        } catch (Exception e) {
+            // let the event creation report the malformed packet
+            return true;
+        } finally {
+            ByteBufHelper.readerIndex(buffer, readerIndex);
+        }
+        // resolve the packet version the same way events do
+        ProtocolContext context = user.getProtocolContext();
+        ServerVersion serverVersion;
+        if (autoProtocolTranslation || context.getServerVersion() == null) {
+            serverVersion = PacketEvents.getAPI().getServerManager().getVersion();
+        } else {
+            serverVersion = context.getServerVersion();
+        }
+        ConnectionState state = context.getState(side);
+        PacketTypeCommon packetType = PacketType.getById(
+                user.getPacketIdTable(side, state, serverVersion.toClientVersion()), packetId);
+        // unknown packets still need to go through the event, which will handle them
+        return packetType == null || PacketEvents.getAPI().getEventManager().isListening(side, state, packetType);
+    }
+
     public static @Nullable PacketSendEvent handleClientBoundPacket(
             Object channel, User user, Object player, Object buffer,
             boolean autoProtocolTranslation
@@ -54,6 +96,10 @@ public final class PacketEventsImplHelper {
         if (!ByteBufHelper.isReadable(buffer)) {
             return null;
         }
+        if (!isListened(user, buffer, PacketSide.SERVER, autoProtocolTranslation)) {
+            // nobody wants this packet, pass on the buffer untouched
+            return null;
+        }
 
         int preProcessIndex = ByteBufHelper.readerIndex(buffer);
         PacketSendEvent packetSendEvent = EventCreationUtil.createSendEvent(channel, user, player, buffer, autoProtocolTranslation);
@@ -94,6 +140,10 @@ public final class PacketEventsImplHelper {
         if (!ByteBufHelper.isReadable(buffer)) {
             return null;
         }
+        if (!isListened(user, buffer, PacketSide.CLIENT, autoProtocolTranslation)) {
+            // nobody wants this packet, pass on the buffer untouched
+            return null;
+        }
 
         int preProcessIndex = ByteBufHelper.readerIndex(buffer);
         PacketReceiveEvent packetReceiveEvent = EventCreationUtil.createReceiveEvent(channel, user, player, buffer, autoProtocolTranslation);
@@ -133,6 +183,8 @@ public final class PacketEventsImplHelper {
                 UserDisconnectEvent disconnectEvent = new UserDisconnectEvent(user);
                 PacketEvents.getAPI().getEventManager().callEvent(disconnectEvent);
                 PacketEvents.getAPI().getProtocolManager().removeUser(user.getChannel());
+                user.releaseRegistries();
+                user.discardQueuedPackets();
             }
 
             if (uuid == null) {
@@ -23,8 +23,13 @@ import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 public class VersionMapper {
     private final ClientVersion[] versions;
     private final ClientVersion[] reversedVersions;
+    // the result of getIndex for every client version, indexed by its ordinal
+    private final byte[] indexes;
 
     public VersionMapper(ClientVersion... versions) {
+        if (versions.length > 256) {
+            throw new IllegalArgumentException("Too many versions: " + versions.length);
+        }
         this.versions = versions;
         reversedVersions = new ClientVersion[versions.length];
         int index = 0;
@@ -32,6 +37,12 @@ public class VersionMapper {
             reversedVersions[index] = versions[i];
             index++;
         }
+
+        ClientVersion[] clientVersions = ClientVersion.values();
+        this.indexes = new byte[clientVersions.length];
+        for (ClientVersion version : clientVersions) {
+            this.indexes[version.ordinal()] = (byte) this.findIndex(version);
+        }
     }
 
     public ClientVersion[] getVersions() {
@@ -43,6 +54,10 @@ public class VersionMapper {
     }
 
     public int getIndex(ClientVersion version) {
+        return this.indexes[version.ordinal()] & 0xFF;
+    }
+
+    private int findIndex(ClientVersion version) {
         int index = reversedVersions.length - 1;
         for (ClientVersion v : reversedVersions) {
             if (version.isNewerThanOrEquals(v)) {
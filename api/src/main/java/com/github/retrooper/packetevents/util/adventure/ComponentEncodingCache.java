@@ -0,0 +1,184 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.util.adventure;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the serialized form of recently written text components, so the same component
+ * sent to many players is only serialized once. Components are immutable and compared by equality.
+ * <p>
+ * Lookups don't lock. Components which haven't been used recently are evicted once either
+ * the configured amount of components or {@value #MAX_TOTAL_BYTES} bytes are exceeded,
+ * approximating least recently used eviction.
+ *
+ * @see com.github.retrooper.packetevents.settings.PacketEventsSettings#componentCacheSize(int)
+ */
+@ApiStatus.Internal
+public final class ComponentEncodingCache {
+
+    private static final int MAX_TOTAL_BYTES = 4 * 1024 * 1024;
+    // larger components are rarely repeated and would evict many small ones
+    private static final int MAX_ENTRY_BYTES = 16 * 1024;
+
+    private static volatile @Nullable ComponentEncodingCache instance;
+    private static volatile boolean initialized;
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // entries in insertion order, walked by the eviction; guards all modifications
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    private int totalBytes;
+
+    public ComponentEncodingCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the shared cache, or null if it has been disabled in the settings
+     */
+    public static @Nullable ComponentEncodingCache getInstance() {
+        if (!initialized) {
+            synchronized (ComponentEncodingCache.class) {
+                if (!initialized) {
+                    int size = PacketEvents.getAPI().getSettings().getComponentCacheSize();
+                    instance = size > 0 ? new ComponentEncodingCache(size) : null;
+                    initialized = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Drops the shared cache, so it is created again from the settings of the next api instance.
+     */
+    public static void reset() {
+        synchronized (ComponentEncodingCache.class) {
+            instance = null;
+            initialized = false;
+        }
+    }
+
+    /**
+     * Lock free, as this is called for every component written on any event loop.
+     *
+     * @param nbt whether the component is serialized as NBT, as done since 1.20.3, or as JSON
+     * @return the serialized component, which must not be modified, or null if it isn't cached
+     */
+    public byte @Nullable [] get(ServerVersion version, boolean nbt, Component component) {
+        Entry entry = this.entries.get(new Key(version, nbt, component));
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.referenced) {
+            // only written when needed, to not keep invalidating the cache line of hot entries
+            entry.referenced = true;
+        }
+        return entry.encoded;
+    }
+
+    public void put(ServerVersion version, boolean nbt, Component component, byte[] encoded) {
+        if (encoded.length > MAX_ENTRY_BYTES) {
+            return;
+        }
+        Key key = new Key(version, nbt, component);
+        Entry entry = new Entry(key, encoded);
+        synchronized (this.clock) {
+            if (this.entries.putIfAbsent(key, entry) != null) {
+                // written by another thread in the meantime
+                return;
+            }
+            this.clock.addLast(entry);
+            this.totalBytes += encoded.length;
+            // second chance eviction: entries read since the clock hand passed them last are kept for another round
+            while (this.entries.size() > this.maxEntries || this.totalBytes > MAX_TOTAL_BYTES) {
+                Entry eldest = this.clock.pollFirst();
+                if (eldest.referenced) {
+                    eldest.referenced = false;
+                    this.clock.addLast(eldest);
+                } else {
+                    this.entries.remove(eldest.key);
+                    this.totalBytes -= eldest.encoded.length;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public void clear() {
+        synchronized (this.clock) {
+            this.entries.clear();
+            this.clock.clear();
+            this.totalBytes = 0;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        private final byte[] encoded;
+        private volatile boolean referenced;
+
+        private Entry(Key key, byte[] encoded) {
+            this.key = key;
+            this.encoded = encoded;
+        }
+    }
+
+    private static final class Key {
+
+        private final ServerVersion version;
+        private final boolean nbt;
+        private final Component component;
+        private final int hash;
+
+        private Key(ServerVersion version, boolean nbt, Component component) {
+            this.version = version;
+            this.nbt = nbt;
+            this.component = component;
+            this.hash = 31 * (31 * version.hashCode() + Boolean.hashCode(nbt)) + component.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return this.hash == other.hash && this.version == other.version && this.nbt == other.nbt
+                    && (this.component == other.component || this.component.equals(other.component));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.util.mappings;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ids of every key for every version of a mapping file, resolved at build time.
+ * Reading it is a single bulk read, without replaying the diffs of the nbt mapping file.
+ */
+@ApiStatus.Internal
+public final class MappingIndex {
+
+    private static final byte INDEX_VERSION = 1;
+
+    private final ClientVersion[] versions;
+    private final Map<String, Integer> keyIndexes;
+    private final int[][] ids;
+
+    private MappingIndex(ClientVersion[] versions, Map<String, Integer> keyIndexes, int[][] ids) {
+        this.versions = versions;
+        this.keyIndexes = keyIndexes;
+        this.ids = ids;
+    }
+
+    /**
+     * @return the index of the given mapping file, or null if there is no compatible index for it
+     */
+    public static @Nullable MappingIndex read(String path) {
+        ByteBuffer buffer;
+        try (InputStream stream = PacketEvents.getAPI().getSettings().getResourceProvider()
+                .apply("assets/" + path + ".idx")) {
+            if (stream == null) {
+                return null;
+            }
+            buffer = ByteBuffer.wrap(readFully(stream));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read mapping index " + path + ".idx", e);
+        }
+
+        if (buffer.get() != INDEX_VERSION) {
+            return null; // written by another build, use the nbt mappings instead
+        }
+        ClientVersion[] versions = new ClientVersion[buffer.get() & 0xFF];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = ClientVersion.valueOf(readString(buffer));
+        }
+        int keyCount = buffer.getInt();
+        Map<String, Integer> keyIndexes = new HashMap<>(keyCount * 4 / 3 + 1);
+        for (int i = 0; i < keyCount; i++) {
+            keyIndexes.put(readString(buffer), i);
+        }
+        int[][] ids = new int[versions.length][keyCount];
+        for (int[] versionIds : ids) {
+            buffer.asIntBuffer().get(versionIds);
+            buffer.position(buffer.position() + keyCount * Integer.BYTES);
+        }
+        return new MappingIndex(versions, keyIndexes, ids);
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(stream.available(), 8192));
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = stream.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        // written with DataOutput#writeUTF, which only differs from utf-8 for null and supplementary characters
+        int length = buffer.getShort() & 0xFFFF;
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    public ClientVersion[] getVersions() {
+        return this.versions;
+    }
+
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(this.keyIndexes.keySet());
+    }
+
+    /**
+     * @return the id of the key for every version, -1 for versions without the key
+     */
+    public int[] getIds(String key) {
+        int[] result = new int[this.versions.length];
+        Integer keyIndex = this.keyIndexes.get(key);
+        if (keyIndex == null) {
+            Arrays.fill(result, -1);
+            return result;
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.ids[i][keyIndex];
+        }
+        return result;
+    }
+}
@@ -24,6 +24,7 @@ import com.github.retrooper.packetevents.resources.ResourceLocation;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,16 +33,26 @@ import java.util.Map;
 public final class SimpleRegistry<T extends MappedEntity> implements IRegistry<T> {
 
     private final ResourceLocation registryKey;
-    private final Map<String, T> typeMap = new HashMap<>();
-    private final Map<Integer, T> typeIdMap = new HashMap<>();
-    private final Map<String, Integer> reverseTypeIdMap = new HashMap<>();
+    private final Map<String, T> typeMap;
+    // indexed by id, registry ids are dense and start at zero
+    private Object[] typeIds;
+    private final Map<String, Integer> reverseTypeIdMap;
 
     public SimpleRegistry(String registryKey) {
         this(new ResourceLocation(registryKey));
     }
 
     public SimpleRegistry(ResourceLocation registryKey) {
+        this(registryKey, 16);
+    }
+
+    @ApiStatus.Internal
+    public SimpleRegistry(ResourceLocation registryKey, int expectedSize) {
         this.registryKey = registryKey;
+        int capacity = expectedSize * 4 / 3 + 1;
+        this.typeMap = new HashMap<>(capacity);
+        this.typeIds = new Object[expectedSize];
+        this.reverseTypeIdMap = new HashMap<>(capacity);
     }
 
     @ApiStatus.Internal
@@ -51,9 +62,15 @@ public final class SimpleRegistry<T extends MappedEntity> implements IRegistry<T
 
     @ApiStatus.Internal
     public <Z extends T> Z define(ResourceLocation name, int id, Z instance) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Can't define " + name + " with negative id " + id + " in " + this.registryKey);
+        }
         String nameStr = name.toString();
         this.typeMap.put(nameStr, instance);
-        this.typeIdMap.put(id, instance);
+        if (id >= this.typeIds.length) {
+            this.typeIds = Arrays.copyOf(this.typeIds, Math.max(id + 1, this.typeIds.length * 2));
+        }
+        this.typeIds[id] = instance;
         this.reverseTypeIdMap.put(nameStr, id);
         return instance;
     }
@@ -63,9 +80,10 @@ public final class SimpleRegistry<T extends MappedEntity> implements IRegistry<T
         return this.typeMap.get(name);
     }
 
+    @SuppressWarnings("unchecked") // only instances of T are stored
     @Override
     public @Nullable T getById(ClientVersion version, int id) {
-        return this.typeIdMap.get(id);
+        return id >= 0 && id < this.typeIds.length ? (T) this.typeIds[id] : null;
     }
 
     @Override
@@ -56,21 +56,25 @@ import com.github.retrooper.packetevents.wrapper.configuration.server.WrapperCon
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
 @ApiStatus.Internal
 public final class SynchronizedRegistriesHandler {
 
     private static final boolean FORCE_PER_USER_REGISTRIES = Boolean.getBoolean("packetevents.force-per-user-registries");
     private static final Map<ResourceLocation, RegistryEntry<?>> REGISTRY_KEYS = new HashMap<>();
+    // lookups by the base registry instance don't need to hash the registry key
+    private static final Map<IRegistry<?>, RegistryEntry<?>> BASE_REGISTRIES = new IdentityHashMap<>();
+    private static final RegistryEntry<?>[] REGISTRY_ENTRIES;
 
     static {
-        Stream.of(
+        REGISTRY_ENTRIES = new RegistryEntry<?>[]{
                 new RegistryEntry<>(Biomes.getRegistry(), Biome::decode),
                 new RegistryEntry<>(ChatTypes.getRegistry(), ChatType::decode),
                 new RegistryEntry<>(TrimPatterns.getRegistry(), TrimPattern::decode),
@@ -83,7 +87,13 @@ public final class SynchronizedRegistriesHandler {
                 new RegistryEntry<>(EnchantmentTypes.getRegistry(), EnchantmentType::decode),
                 new RegistryEntry<>(JukeboxSongs.getRegistry(), IJukeboxSong::decode),
                 new RegistryEntry<>(Instruments.getRegistry(), Instrument::decode)
-        ).forEach(entry -> REGISTRY_KEYS.put(entry.getRegistryKey(), entry));
+        };
+        for (int i = 0; i < REGISTRY_ENTRIES.length; i++) {
+            RegistryEntry<?> entry = REGISTRY_ENTRIES[i];
+            entry.index = i;
+            REGISTRY_KEYS.put(entry.getRegistryKey(), entry);
+            BASE_REGISTRIES.put(entry.baseRegistry, entry);
+        }
     }
 
     private SynchronizedRegistriesHandler() {
@@ -93,6 +103,29 @@ public final class SynchronizedRegistriesHandler {
         return REGISTRY_KEYS.get(registryKey);
     }
 
+    /**
+     * @return the amount of synchronized registries, every one of them has a fixed index below this
+     */
+    public static int getRegistryCount() {
+        return REGISTRY_ENTRIES.length;
+    }
+
+    /**
+     * @return the index of the synchronized registry with the given key, or -1 if it isn't synchronized
+     */
+    public static int getRegistryIndex(ResourceLocation registryKey) {
+        RegistryEntry<?> entry = REGISTRY_KEYS.get(registryKey);
+        return entry != null ? entry.index : -1;
+    }
+
+    /**
+     * @return the index of the synchronized registry replacing the given registry, or -1 if it isn't synchronized
+     */
+    public static int getRegistryIndex(IRegistry<?> registry) {
+        RegistryEntry<?> entry = BASE_REGISTRIES.get(registry);
+        return entry != null ? entry.index : getRegistryIndex(registry.getRegistryKey());
+    }
+
     public static void handleRegistry(
             User user, ClientVersion version,
             ResourceLocation registryName,
@@ -113,15 +146,35 @@ public final class SynchronizedRegistriesHandler {
             return;
         }
         SimpleRegistry<?> syncedRegistry;
-        if (FORCE_PER_USER_REGISTRIES || cacheKey == null) {
+        if (FORCE_PER_USER_REGISTRIES) {
             syncedRegistry = registryData.createFromElements(elements, version); // no caching
         } else {
-            syncedRegistry = registryData.computeSyncedRegistry(cacheKey, () ->
-                    registryData.createFromElements(elements, version));
+            // backends send the same registries to every player, share them between all users receiving them
+            SimpleRegistry<?> interned = registryData.acquireInterned(elements, version);
+            if (cacheKey != null) {
+                // keeps the first registry for lookups without user, see GlobalRegistryHolder
+                registryData.computeSyncedRegistry(cacheKey, () -> interned);
+            }
+            syncedRegistry = interned;
         }
         user.putRegistry(syncedRegistry);
     }
 
+    /**
+     * Gives up one reference to a synchronized registry, acquired by {@link #handleRegistry(User, ClientVersion,
+     * ResourceLocation, List, Object)}. Interned registries are evicted once no user references them anymore.
+     * Registries which haven't been interned are ignored.
+     */
+    public static void releaseRegistry(IRegistry<?> registry) {
+        RegistryEntry<?> registryData = BASE_REGISTRIES.get(registry);
+        if (registryData == null) {
+            registryData = REGISTRY_KEYS.get(registry.getRegistryKey());
+        }
+        if (registryData != null) {
+            registryData.releaseInterned(registry);
+        }
+    }
+
     public static void handleLegacyRegistries(
             User user, ClientVersion version,
             NBTCompound registryData
@@ -151,6 +204,46 @@ public final class SynchronizedRegistriesHandler {
         }
     }
 
+    // the elements decoded by the same version always result in the same registry
+    private static final class RegistryContent {
+
+        private final ClientVersion version;
+        private final List<RegistryElement> elements;
+        private final int hash;
+
+        private RegistryContent(ClientVersion version, List<RegistryElement> elements) {
+            this.version = version;
+            // the list of the wrapper may still be modified by listeners
+            this.elements = new ArrayList<>(elements);
+            this.hash = 31 * version.hashCode() + this.elements.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof RegistryContent)) return false;
+            RegistryContent other = (RegistryContent) obj;
+            return this.hash == other.hash && this.version == other.version && this.elements.equals(other.elements);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static final class InternedRegistry<T extends MappedEntity> {
+
+        private final RegistryContent content;
+        private final SimpleRegistry<T> registry;
+        private int references;
+
+        private InternedRegistry(RegistryContent content, SimpleRegistry<T> registry) {
+            this.content = content;
+            this.registry = registry;
+        }
+    }
+
     @ApiStatus.Internal
     @FunctionalInterface
     public interface NbtEntryDecoder<T> {
@@ -163,6 +256,7 @@ public final class SynchronizedRegistriesHandler {
 
         private final IRegistry<T> baseRegistry;
         private final NbtEntryDecoder<T> decoder;
+        private int index = -1;
 
         // each registry may have a synchronized registry cache, for convenience and enhanced performance
         //
@@ -170,6 +264,11 @@ public final class SynchronizedRegistriesHandler {
         // or some backend server related value for proxy servers
         private final Map<Object, SimpleRegistry<T>> syncedRegistries = new ConcurrentHashMap<>(2);
 
+        // registries built from network data, addressed by their content and shared between all users
+        // receiving the same elements; guarded by the entry itself
+        private final Map<RegistryContent, InternedRegistry<T>> internedByContent = new HashMap<>();
+        private final Map<IRegistry<?>, InternedRegistry<T>> internedByRegistry = new IdentityHashMap<>();
+
         public RegistryEntry(
                 IRegistry<T> baseRegistry,
                 NbtEntryDecoder<T> decoder
@@ -235,7 +334,7 @@ public final class SynchronizedRegistriesHandler {
         }
 
         public SimpleRegistry<T> createFromElements(List<RegistryElement> elements, ClientVersion version) {
-            SimpleRegistry<T> registry = new SimpleRegistry<>(this.getRegistryKey());
+            SimpleRegistry<T> registry = new SimpleRegistry<>(this.getRegistryKey(), elements.size());
             for (int id = 0; id < elements.size(); id++) {
                 RegistryElement element = elements.get(id);
                 this.handleElement(registry, element, id, version);
@@ -243,8 +342,50 @@ public final class SynchronizedRegistriesHandler {
             return registry;
         }
 
+        /**
+         * Returns the registry built from these elements, building it only if no other user currently
+         * references a registry with the same content and it isn't kept by the synchronized registry cache.
+         * Every call has to be paired with {@link SynchronizedRegistriesHandler#releaseRegistry(IRegistry)}.
+         */
+        public synchronized SimpleRegistry<T> acquireInterned(List<RegistryElement> elements, ClientVersion version) {
+            RegistryContent content = new RegistryContent(version, elements);
+            InternedRegistry<T> interned = this.internedByContent.get(content);
+            if (interned == null) {
+                interned = new InternedRegistry<>(content, this.createFromElements(elements, version));
+                this.internedByContent.put(content, interned);
+                this.internedByRegistry.put(interned.registry, interned);
+            }
+            interned.references++;
+            return interned.registry;
+        }
+
+        private synchronized void releaseInterned(IRegistry<?> registry) {
+            InternedRegistry<T> interned = this.internedByRegistry.get(registry);
+            // registries kept by the synchronized registry cache stay interned, so later
+            // users receiving the same content share the cached instance
+            if (interned != null && --interned.references <= 0
+                    && !this.syncedRegistries.containsValue(interned.registry)) {
+                this.internedByContent.remove(interned.content);
+                this.internedByRegistry.remove(registry);
+            }
+        }
+
+        /**
+         * @return the amount of distinct registries currently shared between users
+         */
+        public synchronized int getInternedCount() {
+            return this.internedByContent.size();
+        }
+
         public ResourceLocation getRegistryKey() {
             return this.baseRegistry.getRegistryKey();
         }
+
+        /**
+         * @return the fixed index of this registry, see {@link SynchronizedRegistriesHandler#getRegistryIndex(ResourceLocation)}
+         */
+        public int getIndex() {
+            return this.index;
+        }
     }
 }
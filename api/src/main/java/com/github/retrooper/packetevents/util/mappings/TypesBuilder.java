@@ -41,6 +41,7 @@ import java.util.stream.StreamSupport;
 public class TypesBuilder {
     private final String mapPath;
     private Map<ClientVersion, Map<String, Integer>> entries = new HashMap<>();
+    private @Nullable MappingIndex index;
     private VersionMapper versionMapper;
 
     @Nullable
@@ -58,6 +59,14 @@ public class TypesBuilder {
     }
 
     public void load() {
+        // the pre-resolved index is generated next to the nbt mappings, but custom resource providers may not have it
+        MappingIndex index = MappingIndex.read("mappings/" + mapPath);
+        if (index != null) {
+            this.index = index;
+            versionMapper = new VersionMapper(index.getVersions());
+            return;
+        }
+
         try (final SequentialNBTReader.Compound compound = MappingHelper.decompress("mappings/" + mapPath)) {
             compound.skipOne(); // skip version tag for now
             int length = ((NBTNumber) compound.next().getValue()).getAsInt(); // Second tag is the length
@@ -160,10 +169,14 @@ public class TypesBuilder {
     public void unloadFileMappings() {
         entries.clear();
         entries = null;
+        index = null;
     }
 
     public TypesBuilderData define(String key) {
         final ResourceLocation name = new ResourceLocation(key);
+        if (index != null) {
+            return new TypesBuilderData(this, name, index.getIds(key));
+        }
         final int[] ids = new int[getVersions().length];
         int index = 0;
         for (ClientVersion v : getVersions()) {
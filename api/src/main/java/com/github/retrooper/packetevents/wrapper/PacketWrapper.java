@@ -48,7 +48,7 @@ import com.github.retrooper.packetevents.event.PacketSendEvent;
 import com.github.retrooper.packetevents.event.ProtocolPacketEvent;
 import com.github.retrooper.packetevents.manager.server.ServerVersion;
 import com.github.retrooper.packetevents.manager.server.VersionComparison;
-import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufOperator;
 import com.github.retrooper.packetevents.netty.channel.ChannelHelper;
 import com.github.retrooper.packetevents.protocol.PacketSide;
 import com.github.retrooper.packetevents.protocol.chat.ChatType;
@@ -68,6 +68,7 @@ import com.github.retrooper.packetevents.protocol.component.PatchableComponentMa
 import com.github.retrooper.packetevents.protocol.entity.data.EntityData;
 import com.github.retrooper.packetevents.protocol.entity.data.EntityDataType;
 import com.github.retrooper.packetevents.protocol.entity.data.EntityDataTypes;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityMetadata;
 import com.github.retrooper.packetevents.protocol.entity.data.EntityMetadataProvider;
 import com.github.retrooper.packetevents.protocol.entity.villager.VillagerData;
 import com.github.retrooper.packetevents.protocol.item.ItemStack;
@@ -82,6 +83,7 @@ import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 import com.github.retrooper.packetevents.protocol.player.GameMode;
+import com.github.retrooper.packetevents.protocol.player.ProtocolContext;
 import com.github.retrooper.packetevents.protocol.player.PublicProfileKey;
 import com.github.retrooper.packetevents.protocol.player.User;
 import com.github.retrooper.packetevents.protocol.recipe.data.MerchantItemCost;
@@ -94,6 +96,7 @@ import com.github.retrooper.packetevents.util.MathUtil;
 import com.github.retrooper.packetevents.util.StringUtil;
 import com.github.retrooper.packetevents.util.Vector3i;
 import com.github.retrooper.packetevents.util.adventure.AdventureSerializer;
+import com.github.retrooper.packetevents.util.adventure.ComponentEncodingCache;
 import com.github.retrooper.packetevents.util.crypto.MinecraftEncryptionUtil;
 import com.github.retrooper.packetevents.util.crypto.SaltSignature;
 import com.github.retrooper.packetevents.util.crypto.SignatureData;
@@ -133,6 +136,9 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     @ApiStatus.Internal
     public final Object bufferLock = new Object();
 
+    // Resolved once per wrapper, instead of looking it up through the API on every buffer access
+    private ByteBufOperator byteBufOperator;
+
     protected ClientVersion clientVersion;
     protected ServerVersion serverVersion;
     private PacketTypeData packetTypeData;
@@ -227,21 +233,22 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     public final void prepareForSend(Object channel, boolean outgoing, boolean proxy) {
         // Null means the packet was manually created and wasn't sent by the server itself
         // A reference count of 0 means that the packet was freed (it was already sent)
-        if (buffer == null || ByteBufHelper.refCnt(buffer) == 0) {
+        if (buffer == null || getByteBufOperator().refCnt(buffer) == 0) {
             buffer = ChannelHelper.pooledByteBuf(channel);
         }
 
         //On proxies, we must rewrite the packet ID in a format compatible for the targeted client version
         if (proxy) {
             User user = PacketEvents.getAPI().getProtocolManager().getUser(channel);
+            ProtocolContext context = user.getProtocolContext();
             if (packetTypeData.getPacketType() == null) {
                 //Get the packet type with the local version packet type mappings.
                 packetTypeData.setPacketType(PacketType.getById(outgoing ? PacketSide.SERVER : PacketSide.CLIENT,
                         user.getConnectionState(), serverVersion.toClientVersion(), packetTypeData.getNativePacketId()));
             }
             //Change local version to user version so that the packet can be processed correctly.
-            serverVersion = user.getClientVersion().toServerVersion();
-            int id = packetTypeData.getPacketType().getId(user.getClientVersion());
+            serverVersion = context.getServerVersion();
+            int id = packetTypeData.getPacketType().getId(context.getClientVersion());
             writeVarInt(id);
         } else {
             writeVarInt(packetTypeData.getNativePacketId());
@@ -303,6 +310,22 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
         this.buffer = buffer;
     }
 
+    /**
+     * The platform buffer operator all reads and writes of this wrapper go through.
+     * There is exactly one implementation per platform, so calls through it can be inlined by the JIT.
+     *
+     * @return the buffer operator of the current platform
+     */
+    @ApiStatus.Internal
+    public ByteBufOperator getByteBufOperator() {
+        ByteBufOperator operator = this.byteBufOperator;
+        if (operator == null) {
+            operator = PacketEvents.getAPI().getNettyManager().getByteBufOperator();
+            this.byteBufOperator = operator;
+        }
+        return operator;
+    }
+
     /**
      * Gets the Packet ID for the current platform version
      *
@@ -343,23 +366,23 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
 
     @Deprecated
     public void resetByteBuf() {
-        ByteBufHelper.clear(buffer);
+        getByteBufOperator().clear(buffer);
     }
 
     public void resetBuffer() {
-        ByteBufHelper.clear(buffer);
+        getByteBufOperator().clear(buffer);
     }
 
     public byte readByte() {
-        return ByteBufHelper.readByte(buffer);
+        return getByteBufOperator().readByte(buffer);
     }
 
     public void writeByte(int value) {
-        ByteBufHelper.writeByte(buffer, value);
+        getByteBufOperator().writeByte(buffer, value);
     }
 
     public short readUnsignedByte() {
-        return ByteBufHelper.readUnsignedByte(buffer);
+        return getByteBufOperator().readUnsignedByte(buffer);
     }
 
     public boolean readBoolean() {
@@ -371,59 +394,27 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public int readInt() {
-        return ByteBufHelper.readInt(buffer);
+        return getByteBufOperator().readInt(buffer);
     }
 
     public void writeInt(int value) {
-        ByteBufHelper.writeInt(buffer, value);
+        getByteBufOperator().writeInt(buffer, value);
     }
 
     public int readMedium() {
-        return ByteBufHelper.readMedium(buffer);
+        return getByteBufOperator().readMedium(buffer);
     }
 
     public void writeMedium(int value) {
-        ByteBufHelper.writeMedium(buffer, value);
+        getByteBufOperator().writeMedium(buffer, value);
     }
 
     public int readVarInt() {
-        int value = 0;
-        int length = 0;
-        byte currentByte;
-        do {
-            currentByte = readByte();
-            value |= (currentByte & 0x7F) << (length * 7);
-            length++;
-            if (length > 5) {
-                throw new RuntimeException("VarInt is too large. Must be smaller than 5 bytes.");
-            }
-        } while ((currentByte & 0x80) == 0x80);
-        return value;
+        return getByteBufOperator().readVarInt(buffer);
     }
 
     public void writeVarInt(int value) {
-        /* Got this code/optimization from https://steinborn.me/posts/performance/how-fast-can-you-write-a-varint/
-         * Copyright and permission notice above (above the class).
-         * Steinborn's post says that the code is under the MIT, last accessed 29.06.2024.
-         */
-        if ((value & (0xFFFFFFFF << 7)) == 0) {
-            writeByte(value);
-        } else if ((value & (0xFFFFFFFF << 14)) == 0) {
-            int w = (value & 0x7F | 0x80) << 8 | (value >>> 7);
-            writeShort(w);
-        } else if ((value & (0xFFFFFFFF << 21)) == 0) {
-            int w = (value & 0x7F | 0x80) << 16 | ((value >>> 7) & 0x7F | 0x80) << 8 | (value >>> 14);
-            writeMedium(w);
-        } else if ((value & (0xFFFFFFFF << 28)) == 0) {
-            int w = (value & 0x7F | 0x80) << 24 | (((value >>> 7) & 0x7F | 0x80) << 16)
-                    | ((value >>> 14) & 0x7F | 0x80) << 8 | (value >>> 21);
-            writeInt(w);
-        } else {
-            int w = (value & 0x7F | 0x80) << 24 | ((value >>> 7) & 0x7F | 0x80) << 16
-                    | ((value >>> 14) & 0x7F | 0x80) << 8 | ((value >>> 21) & 0x7F | 0x80);
-            writeInt(w);
-            writeByte(value >>> 28);
-        }
+        getByteBufOperator().writeVarInt(buffer, value);
     }
 
     public <K, V> Map<K, V> readMap(Reader<K> keyFunction, Reader<V> valueFunction) {
@@ -515,7 +506,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
         ItemType type = ItemTypes.getById(serverVersion.toClientVersion(), typeID);
         int amount = readByte();
         int legacyData = v1_13_2 ? -1 : readShort();
-        NBTCompound nbt = readNBT();
+        NBTCompound nbt = readLazyNBT();
         return ItemStack.builder()
                 .type(type)
                 .amount(amount)
@@ -617,6 +608,16 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
         return NBTCodec.readNBTFromBuffer(buffer, serverVersion);
     }
 
+    /**
+     * Reads a compound which is only parsed once any of its tags is accessed,
+     * and written back as it is otherwise. Meant for packets which are usually passed on unchanged.
+     *
+     * @see NBTCodec#readLazyNBTFromBuffer(Object, ServerVersion)
+     */
+    public NBTCompound readLazyNBT() {
+        return (NBTCompound) NBTCodec.readLazyNBTFromBuffer(buffer, serverVersion);
+    }
+
     public NBTCompound readUnlimitedNBT() {
         return (NBTCompound) this.readUnlimitedNBTRaw();
     }
@@ -645,8 +646,10 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
         } else if (j < 0) {
             throw new RuntimeException("The received encoded string buffer length is less than zero! Weird string!");
         } else {
-            String s = ByteBufHelper.toString(buffer, ByteBufHelper.readerIndex(buffer), j, StandardCharsets.UTF_8);
-            ByteBufHelper.readerIndex(buffer, ByteBufHelper.readerIndex(buffer) + j);
+            ByteBufOperator operator = getByteBufOperator();
+            int readerIndex = operator.readerIndex(buffer);
+            String s = operator.toString(buffer, readerIndex, j, StandardCharsets.UTF_8);
+            operator.readerIndex(buffer, readerIndex + j);
             if (s.length() > maxLen) {
                 throw new RuntimeException("The received string length is longer than maximum allowed (" + j + " > " + maxLen + ")");
             } else {
@@ -678,7 +681,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
             throw new IllegalStateException("String too big (was " + bytes.length + " bytes encoded, max " + maxLen + ")");
         } else {
             writeVarInt(bytes.length);
-            ByteBufHelper.writeBytes(buffer, bytes);
+            getByteBufOperator().writeBytes(buffer, bytes);
         }
     }
 
@@ -711,12 +714,41 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public void writeComponentAsNBT(Component component) {
+        ComponentEncodingCache cache = ComponentEncodingCache.getInstance();
+        if (cache == null) {
+            writeNBTRaw(AdventureSerializer.toNbt(component));
+            return;
+        }
+        byte[] encoded = cache.get(this.serverVersion, true, component);
+        if (encoded != null) {
+            getByteBufOperator().writeBytes(buffer, encoded);
+            return;
+        }
+        int start = getByteBufOperator().writerIndex(buffer);
         writeNBTRaw(AdventureSerializer.toNbt(component));
+        cache.put(this.serverVersion, true, component, this.copyWrittenBytes(start));
     }
 
     public void writeComponentAsJSON(Component component) {
-        String jsonString = AdventureSerializer.toJson(component);
-        this.writeString(jsonString, this.getMaxMessageLength());
+        ComponentEncodingCache cache = ComponentEncodingCache.getInstance();
+        if (cache == null) {
+            this.writeString(AdventureSerializer.toJson(component), this.getMaxMessageLength());
+            return;
+        }
+        byte[] encoded = cache.get(this.serverVersion, false, component);
+        if (encoded != null) {
+            getByteBufOperator().writeBytes(buffer, encoded);
+            return;
+        }
+        int start = getByteBufOperator().writerIndex(buffer);
+        this.writeString(AdventureSerializer.toJson(component), this.getMaxMessageLength());
+        cache.put(this.serverVersion, false, component, this.copyWrittenBytes(start));
+    }
+
+    private byte[] copyWrittenBytes(int start) {
+        byte[] bytes = new byte[getByteBufOperator().writerIndex(buffer) - start];
+        getByteBufOperator().getBytes(buffer, start, bytes);
+        return bytes;
     }
 
     public Style readStyle() {
@@ -744,15 +776,15 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public int readUnsignedShort() {
-        return ByteBufHelper.readUnsignedShort(buffer);
+        return getByteBufOperator().readUnsignedShort(buffer);
     }
 
     public short readShort() {
-        return ByteBufHelper.readShort(buffer);
+        return getByteBufOperator().readShort(buffer);
     }
 
     public void writeShort(int value) {
-        ByteBufHelper.writeShort(buffer, value);
+        getByteBufOperator().writeShort(buffer, value);
     }
 
     public int readVarShort() {
@@ -778,60 +810,49 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public long readLong() {
-        return ByteBufHelper.readLong(buffer);
+        return getByteBufOperator().readLong(buffer);
     }
 
     public void writeLong(long value) {
-        ByteBufHelper.writeLong(buffer, value);
+        getByteBufOperator().writeLong(buffer, value);
     }
 
     public long readVarLong() {
-        long value = 0;
-        int size = 0;
-        int b;
-        while (((b = readByte()) & 0x80) == 0x80) {
-            value |= (long) (b & 0x7F) << (size++ * 7);
-        }
-        return value | ((long) (b & 0x7F) << (size * 7));
+        return getByteBufOperator().readVarLong(buffer);
     }
 
     public void writeVarLong(long l) {
-        while ((l & ~0x7F) != 0) {
-            this.writeByte((int) (l & 0x7F) | 0x80);
-            l >>>= 7;
-        }
-
-        this.writeByte((int) l);
+        getByteBufOperator().writeVarLong(buffer, l);
     }
 
     public float readFloat() {
-        return ByteBufHelper.readFloat(buffer);
+        return getByteBufOperator().readFloat(buffer);
     }
 
     public void writeFloat(float value) {
-        ByteBufHelper.writeFloat(buffer, value);
+        getByteBufOperator().writeFloat(buffer, value);
     }
 
     public double readDouble() {
-        return ByteBufHelper.readDouble(buffer);
+        return getByteBufOperator().readDouble(buffer);
     }
 
     public void writeDouble(double value) {
-        ByteBufHelper.writeDouble(buffer, value);
+        getByteBufOperator().writeDouble(buffer, value);
     }
 
     public byte[] readRemainingBytes() {
-        return readBytes(ByteBufHelper.readableBytes(buffer));
+        return readBytes(getByteBufOperator().readableBytes(buffer));
     }
 
     public byte[] readBytes(int size) {
         byte[] bytes = new byte[size];
-        ByteBufHelper.readBytes(buffer, bytes);
+        getByteBufOperator().readBytes(buffer, bytes);
         return bytes;
     }
 
     public void writeBytes(byte[] array) {
-        ByteBufHelper.writeBytes(buffer, array);
+        getByteBufOperator().writeBytes(buffer, array);
     }
 
     public byte[] readByteArray(int maxLength) {
@@ -843,7 +864,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public byte[] readByteArray() {
-        return readByteArray(ByteBufHelper.readableBytes(buffer));
+        return readByteArray(getByteBufOperator().readableBytes(buffer));
     }
 
     public void writeByteArray(byte[] array) {
@@ -852,7 +873,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public int[] readVarIntArray() {
-        int readableBytes = ByteBufHelper.readableBytes(buffer);
+        int readableBytes = getByteBufOperator().readableBytes(buffer);
         int size = readVarInt();
         if (size > readableBytes) {
             throw new IllegalStateException("VarIntArray with size " + size + " is bigger than allowed " + readableBytes);
@@ -883,12 +904,12 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
 
     public byte[] readByteArrayOfSize(int size) {
         byte[] array = new byte[size];
-        ByteBufHelper.readBytes(buffer, array);
+        getByteBufOperator().readBytes(buffer, array);
         return array;
     }
 
     public void writeByteArrayOfSize(byte[] array) {
-        ByteBufHelper.writeBytes(buffer, array);
+        getByteBufOperator().writeBytes(buffer, array);
     }
 
     public int[] readVarIntArrayOfSize(int size) {
@@ -906,7 +927,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public long[] readLongArray() {
-        int readableBytes = ByteBufHelper.readableBytes(buffer) / 8;
+        int readableBytes = getByteBufOperator().readableBytes(buffer) / 8;
         int size = readVarInt();
         if (size > readableBytes) {
             throw new IllegalStateException("LongArray with size " + size + " is bigger than allowed " + readableBytes);
@@ -958,15 +979,14 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
 
     public List<EntityData> readEntityMetadata() {
         List<EntityData> list = new ArrayList<>();
+        ClientVersion version = serverVersion.toClientVersion();
+        EntityDataType<?>[] typeTable = EntityDataTypes.getTypeTable(version);
         if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9)) {
             boolean v1_10 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_10);
             short index;
             while ((index = readUnsignedByte()) != 255) {
                 int typeID = v1_10 ? readVarInt() : readUnsignedByte();
-                EntityDataType<?> type = EntityDataTypes.getById(serverVersion.toClientVersion(), typeID);
-                if (type == null) {
-                    throw new IllegalStateException("Unknown entity metadata type id: " + typeID + " version " + serverVersion.toClientVersion());
-                }
+                EntityDataType<?> type = EntityMetadata.lookupType(typeTable, typeID, version);
                 Object value = type.getDataDeserializer().apply(this);
                 list.add(new EntityData(index, type, value));
             }
@@ -974,7 +994,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
             for (byte data = readByte(); data != Byte.MAX_VALUE; data = readByte()) {
                 int typeID = (data & 0xE0) >> 5;
                 int index = data & 0x1F;
-                EntityDataType<?> type = EntityDataTypes.getById(serverVersion.toClientVersion(), typeID);
+                EntityDataType<?> type = EntityMetadata.lookupType(typeTable, typeID, version);
                 Object value = type.getDataDeserializer().apply(this);
                 EntityData entityData = new EntityData(index, type, value);
                 list.add(entityData);
@@ -983,25 +1003,33 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
         return list;
     }
 
+    /**
+     * Reads entity metadata into a compact container, which stores primitive values unboxed.
+     */
+    public EntityMetadata readCompactEntityMetadata() {
+        return EntityMetadata.read(this);
+    }
+
     public void writeEntityMetadata(List<EntityData> list) {
         if (list == null) {
             list = new ArrayList<>();
         }
+        ClientVersion version = serverVersion.toClientVersion();
         if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9)) {
             boolean v1_10 = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_10);
             for (EntityData entityData : list) {
                 writeByte(entityData.getIndex());
                 if (v1_10) {
-                    writeVarInt(entityData.getType().getId(serverVersion.toClientVersion()));
+                    writeVarInt(entityData.getType().getId(version));
                 } else {
-                    writeByte(entityData.getType().getId(serverVersion.toClientVersion()));
+                    writeByte(entityData.getType().getId(version));
                 }
                 entityData.getType().getDataSerializer().accept(this, entityData.getValue());
             }
             writeByte(255); // End of metadata array
         } else {
             for (EntityData entityData : list) {
-                int typeID = entityData.getType().getId(serverVersion.toClientVersion());
+                int typeID = entityData.getType().getId(version);
                 int index = entityData.getIndex();
                 int data = (typeID << 5 | index & 31) & 255;
                 writeByte(data);
@@ -1012,6 +1040,10 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     }
 
     public void writeEntityMetadata(EntityMetadataProvider metadata) {
+        if (metadata instanceof EntityMetadata) {
+            ((EntityMetadata) metadata).write(this);
+            return;
+        }
         writeEntityMetadata(metadata.entityData(serverVersion.toClientVersion()));
     }
 
@@ -1381,7 +1413,7 @@ public class PacketWrapper<T extends PacketWrapper<T>> {
     public <T extends Enum<T>> EnumSet<T> readEnumSet(Class<T> enumClazz) {
         T[] values = enumClazz.getEnumConstants();
         byte[] bytes = new byte[-Math.floorDiv(-values.length, 8)];
-        ByteBufHelper.readBytes(getBuffer(), bytes);
+        getByteBufOperator().readBytes(getBuffer(), bytes);
         BitSet bitSet = BitSet.valueOf(bytes);
         EnumSet<T> set = EnumSet.noneOf(enumClazz);
         for (int i = 0; i < values.length; i++) {
@@ -62,7 +62,7 @@ public class WrapperPlayServerBlockEntityData extends PacketWrapper<WrapperPlayS
         int typeId = this.serverVersion.isNewerThanOrEquals(ServerVersion.V_1_18)
                 ? this.readVarInt() : this.readUnsignedByte();
         this.type = BlockEntityTypes.getById(this.serverVersion.toClientVersion(), typeId);
-        this.nbt = this.readNBT();
+        this.nbt = this.readLazyNBT();
     }
 
     @Override
@@ -20,13 +20,17 @@ package com.github.retrooper.packetevents.wrapper.play.server;
 
 import com.github.retrooper.packetevents.event.PacketSendEvent;
 import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.UnpooledByteBufAllocationHelper;
 import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.codec.NBTCodec;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.stream.ByteBufNetStreamInput;
 import com.github.retrooper.packetevents.protocol.stream.NetStreamInput;
 import com.github.retrooper.packetevents.protocol.stream.NetStreamOutput;
 import com.github.retrooper.packetevents.protocol.world.chunk.BaseChunk;
 import com.github.retrooper.packetevents.protocol.world.chunk.ChunkBitMask;
 import com.github.retrooper.packetevents.protocol.world.chunk.Column;
+import com.github.retrooper.packetevents.protocol.world.chunk.LazyColumn;
 import com.github.retrooper.packetevents.protocol.world.chunk.LightData;
 import com.github.retrooper.packetevents.protocol.world.chunk.NetworkChunkData;
 import com.github.retrooper.packetevents.protocol.world.chunk.TileEntity;
@@ -43,7 +47,6 @@ import com.github.retrooper.packetevents.protocol.world.chunk.reader.impl.ChunkR
 import com.github.retrooper.packetevents.protocol.world.dimension.DimensionTypes;
 import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -61,12 +64,27 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
     private Column column;
     // 1.18 only (lighting) - for writing data
     private LightData lightData;
+    // 1.18 only - serialized light data of a lazily read packet, until it is accessed
+    private byte[] lightDataBytes;
+    private ServerVersion lightDataVersion;
     private boolean ignoreOldData;
+    private boolean lazy;
 
     public WrapperPlayServerChunkData(PacketSendEvent event) {
         super(event);
     }
 
+    /**
+     * On 1.18 and newer, a lazy wrapper reads a {@link LazyColumn} which only parses sections, heightmaps,
+     * block entities and light data once they are accessed. Everything left untouched is written back as is.
+     * Older versions are always read completely.
+     */
+    public WrapperPlayServerChunkData(PacketSendEvent event, boolean lazy) {
+        super(event, false);
+        this.lazy = lazy;
+        this.readEvent(event);
+    }
+
     public WrapperPlayServerChunkData(Column column) {
         this(column, null, false);
     }
@@ -84,6 +102,10 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
 
     @Override
     public void read() {
+        if (this.lazy && serverVersion.isNewerThanOrEquals(ServerVersion.V_1_18)) {
+            this.readLazy();
+            return;
+        }
         int chunkX = readInt();
         int chunkZ = readInt();
 
@@ -145,9 +167,6 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
             }
         }
 
-        byte[] data = readByteArray();
-        data = deflate(data, chunkMask, fullChunk);
-
         boolean hasBlocklight = (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_16) || serverVersion.isOlderThan(ServerVersion.V_1_14))
                 && !serverVersion.isOlderThanOrEquals(ServerVersion.V_1_8_8);
         boolean checkForSky = this.serverVersion.isNewerThanOrEquals(ServerVersion.V_1_16)
@@ -155,8 +174,17 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
                 || this.user != null && this.user.getDimensionType().equals(DimensionTypes.OVERWORLD)
                 && this.serverVersion.isOlderThan(ServerVersion.V_1_14);
 
-        // 1.7/1.8 don't use this NetStreamInput
-        NetStreamInput dataIn = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9) ? new NetStreamInput(new ByteArrayInputStream(data)) : null;
+        byte[] data;
+        NetStreamInput dataIn;
+        if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_9)) {
+            // sections are decoded straight from a slice of the packet buffer, without copying them first
+            data = null;
+            dataIn = new ByteBufNetStreamInput(getByteBufOperator().readSlice(buffer, readVarInt()));
+        } else {
+            // 1.7/1.8 don't use this NetStreamInput
+            data = deflate(readByteArray(), chunkMask, fullChunk);
+            dataIn = null;
+        }
         BaseChunk[] chunks = getChunkReader().read(this.user.getDimensionType(), chunkMask, secondaryChunkMask, fullChunk, hasBlocklight, checkForSky, chunkSize, data, dataIn);
 
         if (hasBiomeData && serverVersion.isOlderThan(ServerVersion.V_1_15)) {
@@ -186,11 +214,11 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
 
         if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_18)) {
             for (int i = 0; i < tileEntities.length; i++) {
-                tileEntities[i] = new TileEntity(readByte(), readShort(), readVarInt(), readNBT());
+                tileEntities[i] = new TileEntity(readByte(), readShort(), readVarInt(), readLazyNBT());
             }
         } else {
             for (int i = 0; i < tileEntities.length; i++) {
-                tileEntities[i] = new TileEntity(readNBT());
+                tileEntities[i] = new TileEntity(readLazyNBT());
             }
         }
 
@@ -221,6 +249,51 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
         }
     }
 
+    private void readLazy() {
+        int chunkX = readInt();
+        int chunkZ = readInt();
+
+        int heightMapStart = getByteBufOperator().readerIndex(buffer);
+        NBTCodec.skipNBTFromBuffer(buffer, serverVersion);
+        byte[] heightMapData = copyBytes(heightMapStart, getByteBufOperator().readerIndex(buffer));
+
+        // only locate the sections, their content is parsed by the column once accessed
+        int chunkSize = user.getTotalWorldHeight() >> 4;
+        int[] sectionOffsets = new int[chunkSize + 1];
+        Object sectionBuffer = getByteBufOperator().readSlice(buffer, readVarInt());
+        NetStreamInput sectionIn = new ByteBufNetStreamInput(sectionBuffer);
+        for (int index = 0; index < chunkSize; index++) {
+            sectionOffsets[index] = getByteBufOperator().readerIndex(sectionBuffer);
+            Chunk_v1_18.skip(sectionIn);
+        }
+        sectionOffsets[chunkSize] = getByteBufOperator().readerIndex(sectionBuffer);
+        byte[] sectionData = new byte[getByteBufOperator().writerIndex(sectionBuffer)];
+        getByteBufOperator().getBytes(sectionBuffer, 0, sectionData);
+
+        int tileEntityStart = getByteBufOperator().readerIndex(buffer);
+        int tileEntityCount = readVarInt();
+        for (int i = 0; i < tileEntityCount; i++) {
+            // packed xz, y and type
+            readByte();
+            readShort();
+            readVarInt();
+            NBTCodec.skipNBTFromBuffer(buffer, serverVersion);
+        }
+        byte[] tileEntityData = copyBytes(tileEntityStart, getByteBufOperator().readerIndex(buffer));
+
+        this.lightData = null;
+        this.lightDataBytes = readRemainingBytes();
+        this.lightDataVersion = serverVersion;
+        this.column = new LazyColumn(serverVersion, chunkX, chunkZ,
+                heightMapData, sectionData, sectionOffsets, tileEntityData);
+    }
+
+    private byte[] copyBytes(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        getByteBufOperator().getBytes(buffer, start, bytes);
+        return bytes;
+    }
+
     private byte[] deflate(byte[] toDeflate, BitSet mask, boolean fullChunk) {
         // The data is already decompressed! (step only needed for 1.7.x)
         if (serverVersion.isNewerThan(ServerVersion.V_1_7_10)) {
@@ -257,6 +330,9 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
 
     @Override
     public void write() {
+        if (column instanceof LazyColumn && this.writeLazy((LazyColumn) column)) {
+            return;
+        }
         writeInt(column.getX());
         writeInt(column.getZ());
 
@@ -398,8 +474,63 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
         }
 
         if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_18)) {
-            LightData.write(this, lightData);
+            LightData.write(this, getLightData());
+        }
+    }
+
+    /**
+     * @return false if the column has been read for another version, its raw data can't be copied then
+     */
+    private boolean writeLazy(LazyColumn column) {
+        if (column.getServerVersion() != serverVersion) {
+            return false;
+        }
+        writeInt(column.getX());
+        writeInt(column.getZ());
+
+        byte[] heightMapData = column.getHeightMapData();
+        if (heightMapData != null) {
+            writeBytes(heightMapData);
+        } else {
+            writeNBT(column.getHeightMaps());
+        }
+
+        // copy untouched sections as they were sent
+        byte[] sectionData = column.getSectionData();
+        ByteArrayOutputStream dataBytes = new ByteArrayOutputStream(sectionData.length);
+        NetStreamOutput dataOut = new NetStreamOutput(dataBytes);
+        int sectionCount = column.getSectionCount();
+        for (int index = 0; index < sectionCount; index++) {
+            if (column.isChunkParsed(index)) {
+                Chunk_v1_18.write(dataOut, (Chunk_v1_18) column.getChunk(index));
+            } else {
+                int start = column.getSectionOffset(index);
+                dataBytes.write(sectionData, start, column.getSectionOffset(index + 1) - start);
+            }
+        }
+        int end = column.getSectionOffset(sectionCount);
+        dataBytes.write(sectionData, end, sectionData.length - end);
+        writeByteArray(dataBytes.toByteArray());
+
+        byte[] tileEntityData = column.getTileEntityData();
+        if (tileEntityData != null) {
+            writeBytes(tileEntityData);
+        } else {
+            writeVarInt(column.getTileEntities().length);
+            for (TileEntity tileEntity : column.getTileEntities()) {
+                writeByte(tileEntity.getPackedByte());
+                writeShort(tileEntity.getYShort());
+                writeVarInt(tileEntity.getType());
+                writeNBT(tileEntity.getNBT());
+            }
+        }
+
+        if (lightData == null && lightDataBytes != null && lightDataVersion == serverVersion) {
+            writeBytes(lightDataBytes);
+        } else {
+            LightData.write(this, getLightData());
         }
+        return true;
     }
 
     @Override
@@ -407,6 +538,8 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
         this.column = wrapper.column;
         this.lightData = wrapper.lightData != null
                 ? wrapper.lightData.clone() : null;
+        this.lightDataBytes = wrapper.lightDataBytes;
+        this.lightDataVersion = wrapper.lightDataVersion;
         this.ignoreOldData = wrapper.ignoreOldData;
     }
 
@@ -419,11 +552,19 @@ public class WrapperPlayServerChunkData extends PacketWrapper<WrapperPlayServerC
     }
 
     public LightData getLightData() {
+        if (lightData == null && lightDataBytes != null) {
+            PacketWrapper<?> reader = PacketWrapper.createUniversalPacketWrapper(
+                    UnpooledByteBufAllocationHelper.wrappedBuffer(lightDataBytes));
+            reader.setServerVersion(lightDataVersion);
+            lightData = LightData.read(reader);
+            lightDataBytes = null;
+        }
         return lightData;
     }
 
     public void setLightData(LightData lightData) {
         this.lightData = lightData;
+        this.lightDataBytes = null;
     }
 
     public boolean isIgnoreOldData() {
@@ -21,35 +21,105 @@ package com.github.retrooper.packetevents.wrapper.play.server;
 import com.github.retrooper.packetevents.PacketEvents;
 import com.github.retrooper.packetevents.event.PacketSendEvent;
 import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
 import com.github.retrooper.packetevents.protocol.entity.data.EntityData;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityDataType;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityMetadata;
 import com.github.retrooper.packetevents.protocol.entity.data.EntityMetadataProvider;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
 public class WrapperPlayServerEntityMetadata extends PacketWrapper<WrapperPlayServerEntityMetadata> {
     private int entityID;
-    private List<EntityData> entityMetadata;
+    // exactly one of both is set, depending on which form has been requested last
+    private @Nullable List<EntityData> entityMetadata;
+    private @Nullable EntityMetadata metadata;
 
     public WrapperPlayServerEntityMetadata(PacketSendEvent event) {
         super(event);
     }
 
+    private WrapperPlayServerEntityMetadata(PacketSendEvent event, boolean readData) {
+        super(event, readData);
+    }
+
     public WrapperPlayServerEntityMetadata(int entityID, List<EntityData> entityMetadata) {
         super(PacketType.Play.Server.ENTITY_METADATA);
         this.entityID = entityID;
         this.entityMetadata = entityMetadata;
     }
 
+    public WrapperPlayServerEntityMetadata(int entityID, EntityMetadata metadata) {
+        super(PacketType.Play.Server.ENTITY_METADATA);
+        this.entityID = entityID;
+        this.metadata = metadata;
+    }
+
     public WrapperPlayServerEntityMetadata(int entityID, EntityMetadataProvider metadata) {
         this(entityID, metadata.entityData(PacketEvents.getAPI().getServerManager().getVersion().toClientVersion()));
     }
 
+    /**
+     * Replaces the value of a single entity data index in the packet of the event.
+     * <p>
+     * If the value has a fixed size, like a byte, float or boolean, and the index is present
+     * with the same type, the value is overwritten directly in the buffer without decoding
+     * or re-encoding the rest of the packet. Otherwise, the packet is read and marked for re-encoding.
+     * On proxies the outgoing buffer must not be written to, so the packet is always re-encoded there.
+     *
+     * @return whether the index was present in the packet
+     */
+    public static <T> boolean patch(PacketSendEvent event, int index, EntityDataType<T> type, T value) {
+        PacketWrapper<?> last = event.getLastUsedWrapper();
+        if (!(last instanceof WrapperPlayServerEntityMetadata)) {
+            if (!PacketEvents.getAPI().getInjector().isProxy()
+                    && patchInPlace(new WrapperPlayServerEntityMetadata(event, false), index, type, value)) {
+                return true;
+            }
+            last = new WrapperPlayServerEntityMetadata(event);
+        }
+        return patchDecoded(event, (WrapperPlayServerEntityMetadata) last, index, type, value);
+    }
+
+    private static boolean patchInPlace(
+            WrapperPlayServerEntityMetadata wrapper,
+            int index, EntityDataType<?> type, Object value
+    ) {
+        Object buffer = wrapper.getBuffer();
+        int readerIndex = ByteBufHelper.readerIndex(buffer);
+        try {
+            wrapper.readEntityId();
+            return EntityMetadata.patchInPlace(wrapper, index, type, value);
+        } finally {
+            ByteBufHelper.readerIndex(buffer, readerIndex);
+        }
+    }
+
+    private static <T> boolean patchDecoded(
+            PacketSendEvent event, WrapperPlayServerEntityMetadata wrapper,
+            int index, EntityDataType<T> type, T value
+    ) {
+        EntityMetadata metadata = wrapper.getMetadata();
+        if (!metadata.has(index)) {
+            return false;
+        }
+        metadata.set(index, type, value);
+        event.markForReEncode(true);
+        return true;
+    }
+
     @Override
     public void read() {
+        readEntityId();
+        metadata = readCompactEntityMetadata();
+        entityMetadata = null;
+    }
+
+    private void readEntityId() {
         entityID = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_8) ? readVarInt() : readInt();
-        entityMetadata = readEntityMetadata();
     }
 
     @Override
@@ -59,13 +129,18 @@ public class WrapperPlayServerEntityMetadata extends PacketWrapper<WrapperPlaySe
         } else {
             writeInt(entityID);
         }
-        writeEntityMetadata(entityMetadata);
+        if (metadata != null) {
+            writeEntityMetadata(metadata);
+        } else {
+            writeEntityMetadata(entityMetadata);
+        }
     }
 
     @Override
     public void copy(WrapperPlayServerEntityMetadata wrapper) {
         entityID = wrapper.entityID;
         entityMetadata = wrapper.entityMetadata;
+        metadata = wrapper.metadata;
     }
 
     public int getEntityId() {
@@ -76,15 +151,45 @@ public class WrapperPlayServerEntityMetadata extends PacketWrapper<WrapperPlaySe
         this.entityID = entityID;
     }
 
+    /**
+     * Returns the entity metadata as list, converting it from the compact form if needed.
+     * Changes to the list are written, until {@link #getMetadata()} is used.
+     */
     public List<EntityData> getEntityMetadata() {
+        if (entityMetadata == null && metadata != null) {
+            entityMetadata = metadata.toList();
+            metadata = null;
+        }
         return entityMetadata;
     }
 
     public void setEntityMetadata(List<EntityData> entityMetadata) {
         this.entityMetadata = entityMetadata;
+        this.metadata = null;
     }
 
     public void setEntityMetadata(EntityMetadataProvider metadata) {
-        this.entityMetadata = metadata.entityData(serverVersion.toClientVersion());
+        if (metadata instanceof EntityMetadata) {
+            this.setMetadata((EntityMetadata) metadata);
+        } else {
+            this.setEntityMetadata(metadata.entityData(serverVersion.toClientVersion()));
+        }
+    }
+
+    /**
+     * Returns the entity metadata in its compact form, converting it from a list if needed.
+     * Changes to it are written, until {@link #getEntityMetadata()} is used.
+     */
+    public EntityMetadata getMetadata() {
+        if (metadata == null) {
+            metadata = entityMetadata == null ? new EntityMetadata() : EntityMetadata.fromList(entityMetadata);
+            entityMetadata = null;
+        }
+        return metadata;
+    }
+
+    public void setMetadata(EntityMetadata metadata) {
+        this.metadata = metadata;
+        this.entityMetadata = null;
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufOutputStream;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
+import com.github.retrooper.packetevents.protocol.nbt.NBTByte;
+import com.github.retrooper.packetevents.protocol.nbt.NBTByteArray;
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBTDouble;
+import com.github.retrooper.packetevents.protocol.nbt.NBTFloat;
+import com.github.retrooper.packetevents.protocol.nbt.NBTIntArray;
+import com.github.retrooper.packetevents.protocol.nbt.LazyNBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBTLimiter;
+import com.github.retrooper.packetevents.protocol.nbt.NBTList;
+import com.github.retrooper.packetevents.protocol.nbt.NBTLong;
+import com.github.retrooper.packetevents.protocol.nbt.NBTLongArray;
+import com.github.retrooper.packetevents.protocol.nbt.NBTShort;
+import com.github.retrooper.packetevents.protocol.nbt.NBTString;
+import com.github.retrooper.packetevents.protocol.nbt.codec.NBTCodec;
+import com.github.retrooper.packetevents.protocol.nbt.serializer.ByteBufNBTSerializer;
+import com.github.retrooper.packetevents.protocol.nbt.serializer.DefaultNBTSerializer;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ByteBufNBTSerializerTest extends BaseDummyAPITest {
+
+    @Test
+    @DisplayName("Verify the buffer nbt serializer matches the stream based one")
+    public void testMatchesDefaultSerializer() throws IOException {
+        NBTCompound compound = createCompound();
+
+        for (boolean named : new boolean[]{true, false}) {
+            ByteBuf expected = Unpooled.buffer();
+            try (ByteBufOutputStream stream = new ByteBufOutputStream(expected)) {
+                DefaultNBTSerializer.INSTANCE.serializeTag(stream, compound, named);
+            }
+            ByteBuf actual = Unpooled.buffer();
+            ByteBufNBTSerializer.INSTANCE.serializeTag(actual, compound, named);
+            assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(actual));
+
+            NBT read = ByteBufNBTSerializer.INSTANCE.deserializeTag(NBTLimiter.forBuffer(actual), actual, named);
+            assertEquals(compound, read);
+            assertFalse(actual.isReadable());
+
+            expected.release();
+            actual.release();
+        }
+    }
+
+    @Test
+    @DisplayName("Verify lazy compounds are written back verbatim and parsed on access")
+    public void testLazyCompound() {
+        NBTCompound compound = createCompound();
+        for (ServerVersion version : new ServerVersion[]{ServerVersion.V_1_20, ServerVersion.V_1_21_4}) {
+            ByteBuf encoded = Unpooled.buffer();
+            NBTCodec.writeNBTToBuffer(encoded, version, compound);
+            encoded.writeInt(42);
+
+            NBT read = NBTCodec.readLazyNBTFromBuffer(encoded, version);
+            assertInstanceOf(LazyNBTCompound.class, read);
+            assertEquals(42, encoded.readInt());
+
+            LazyNBTCompound lazy = (LazyNBTCompound) read;
+            ByteBuf written = Unpooled.buffer();
+            NBTCodec.writeNBTToBuffer(written, version, lazy.copy());
+            assertTrue(lazy.isLazy());
+            assertEquals(ByteBufUtil.hexDump(encoded, 0, encoded.writerIndex() - 4), ByteBufUtil.hexDump(written));
+
+            assertEquals(compound.getTagOrNull("ascii"), lazy.getTagOrNull("ascii"));
+            assertFalse(lazy.isLazy());
+            assertEquals(compound, lazy);
+
+            encoded.release();
+            written.release();
+        }
+    }
+
+    private static NBTCompound createCompound() {
+        NBTCompound compound = new NBTCompound();
+        compound.setTag("byte", new NBTByte((byte) -3));
+        compound.setTag("short", new NBTShort((short) 1234));
+        compound.setTag("long", new NBTLong(Long.MIN_VALUE + 7L));
+        compound.setTag("float", new NBTFloat(0.5f));
+        compound.setTag("double", new NBTDouble(-1.25D));
+        compound.setTag("bytes", new NBTByteArray(new byte[]{1, -2, 3}));
+        compound.setTag("ints", new NBTIntArray(new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 0x12345678}));
+        compound.setTag("longs", new NBTLongArray(new long[]{0L, -1L, Long.MAX_VALUE, 0x0123456789ABCDEFL}));
+        compound.setTag("ascii", new NBTString("minecraft:stone"));
+        // two and three byte characters, a surrogate pair and the null character
+        compound.setTag("unicode", new NBTString("\u00e9t\u00e9 \u2603 \ud83d\ude00 \u0000end"));
+        compound.setTag("n\u00e4me", new NBTString(""));
+        NBTList<NBTCompound> list = NBTList.createCompoundList();
+        list.addTag(new NBTCompound());
+        list.addTag(compound.copy());
+        compound.setTag("list", list);
+        return compound;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import com.github.retrooper.packetevents.util.adventure.AdventureSerializer;
+import com.github.retrooper.packetevents.util.adventure.ComponentEncodingCache;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ComponentEncodingCacheTest extends BaseDummyAPITest {
+
+    @Test
+    @DisplayName("Verify encoded components are looked up by equality and evicted least recently used first")
+    public void testEviction() {
+        ComponentEncodingCache cache = new ComponentEncodingCache(2);
+        byte[] first = {1};
+        cache.put(ServerVersion.V_1_21, true, Component.text("first", NamedTextColor.RED), first);
+        cache.put(ServerVersion.V_1_21, true, Component.text("second"), new byte[]{2});
+
+        // equal, but not the same instance
+        assertSame(first, cache.get(ServerVersion.V_1_21, true, Component.text("first", NamedTextColor.RED)));
+        assertNull(cache.get(ServerVersion.V_1_21, false, Component.text("first", NamedTextColor.RED)));
+        assertNull(cache.get(ServerVersion.V_1_20_2, true, Component.text("first", NamedTextColor.RED)));
+
+        cache.put(ServerVersion.V_1_21, true, Component.text("third"), new byte[]{3});
+        assertEquals(2, cache.size());
+        assertNull(cache.get(ServerVersion.V_1_21, true, Component.text("second")));
+        assertNotNull(cache.get(ServerVersion.V_1_21, true, Component.text("first", NamedTextColor.RED)));
+    }
+
+    @Test
+    @DisplayName("Verify cached components are written the same as uncached components")
+    public void testCachedWrite() {
+        Component component = Component.text("cached", NamedTextColor.GOLD)
+                .append(Component.text(" write", NamedTextColor.GRAY));
+        ComponentEncodingCache cache = ComponentEncodingCache.getInstance();
+        assertNotNull(cache);
+        // JSON before 1.20.3, NBT since
+        for (ServerVersion version : new ServerVersion[]{ServerVersion.V_1_20_2, ServerVersion.getLatest()}) {
+            boolean nbt = version.isNewerThanOrEquals(ServerVersion.V_1_20_3);
+            String uncached = write(version, wrapper -> {
+                if (nbt) {
+                    wrapper.writeNBTRaw(AdventureSerializer.toNbt(component));
+                } else {
+                    wrapper.writeString(AdventureSerializer.toJson(component), wrapper.getMaxMessageLength());
+                }
+            });
+
+            assertNull(cache.get(version, nbt, component), version.name());
+            assertEquals(uncached, write(version, wrapper -> wrapper.writeComponent(component)), version.name());
+            assertNotNull(cache.get(version, nbt, component), version.name());
+            assertEquals(uncached, write(version, wrapper -> wrapper.writeComponent(component)), version.name());
+        }
+    }
+
+    private static String write(ServerVersion version, Consumer<PacketWrapper<?>> writer) {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            PacketWrapper<?> wrapper = PacketWrapper.createUniversalPacketWrapper(buffer);
+            wrapper.setServerVersion(version);
+            // the component doesn't start at the beginning of the buffer
+            wrapper.writeVarInt(42);
+            writer.accept(wrapper);
+            return ByteBufUtil.hexDump(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+}
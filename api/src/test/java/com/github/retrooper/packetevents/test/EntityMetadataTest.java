@@ -0,0 +1,180 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.exception.PacketProcessException;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityData;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityDataTypes;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityMetadata;
+import com.github.retrooper.packetevents.protocol.entity.pose.EntityPose;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerEntityMetadata;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntityMetadataTest extends BaseDummyAPITest {
+
+    @Test
+    @DisplayName("Verify compact entity metadata keeps insertion order and unboxed values")
+    public void testCompactMetadata() {
+        EntityMetadata metadata = new EntityMetadata(1)
+                .setByte(0, (byte) 0x20)
+                .setFloat(9, 20f)
+                .set(6, EntityDataTypes.ENTITY_POSE, EntityPose.CROUCHING)
+                .setBoolean(4, true);
+        metadata.setFloat(9, 12.5f);
+        assertEquals(4, metadata.size());
+        assertEquals((byte) 0x20, metadata.getByte(0, (byte) 0));
+        assertEquals(12.5f, metadata.getFloat(9, 0f));
+        // a different type does not match
+        assertEquals(-1, metadata.getInt(9, -1));
+        assertSame(EntityPose.CROUCHING, metadata.getValue(6));
+
+        List<EntityData> list = metadata.toList();
+        assertEquals(9, list.get(1).getIndex());
+        assertEquals(12.5f, list.get(1).getValue());
+        assertEquals(metadata.toString(), EntityMetadata.fromList(list).toString());
+
+        metadata.remove(6);
+        assertFalse(metadata.has(6));
+        assertNull(metadata.getType(6));
+        assertEquals(4, metadata.toList().get(2).getIndex());
+        assertEquals(metadata.toList().size(), metadata.entityData(ClientVersion.getLatest()).size());
+    }
+
+    @Test
+    @DisplayName("Verify compact entity metadata uses the same layout as the entity data list")
+    public void testCompactLayout() {
+        List<EntityData> list = Arrays.asList(
+                new EntityData(0, EntityDataTypes.BYTE, (byte) 0x20),
+                new EntityData(2, EntityDataTypes.STRING, "npc"),
+                new EntityData(6, EntityDataTypes.FLOAT, 20f),
+                new EntityData(7, EntityDataTypes.INT, 300));
+        for (ServerVersion version : new ServerVersion[]{
+                ServerVersion.V_1_8, ServerVersion.V_1_9, ServerVersion.V_1_10, ServerVersion.getLatest()}) {
+            ByteBuf expected = encode(version, wrapper -> wrapper.writeEntityMetadata(list));
+            ByteBuf actual = encode(version, wrapper -> EntityMetadata.fromList(list).write(wrapper));
+            assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(actual), version.name());
+
+            EntityMetadata metadata = wrap(version, expected.copy()).readCompactEntityMetadata();
+            List<EntityData> read = wrap(version, expected.copy()).readEntityMetadata();
+            assertEquals(read.size(), metadata.size(), version.name());
+            for (EntityData data : read) {
+                assertSame(data.getType(), metadata.getType(data.getIndex()), version.name());
+                assertEquals(data.getValue(), metadata.getValue(data.getIndex()), version.name());
+            }
+            ByteBuf rewritten = encode(version, metadata::write);
+            assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(rewritten), version.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Verify fixed size entity data values are patched in place")
+    public void testPatchInPlace() throws PacketProcessException {
+        ServerVersion version = ServerVersion.getLatest();
+        ByteBuf buffer = encode(version, wrapper -> {
+            wrapper.writeVarInt(42);
+            wrapper.writeEntityMetadata(new EntityMetadata()
+                    .setByte(0, (byte) 0)
+                    .setInt(1, 300)
+                    .setFloat(9, 20f));
+        });
+        int size = buffer.readableBytes();
+        PacketSendEvent event = createEvent(version, buffer);
+
+        assertTrue(WrapperPlayServerEntityMetadata.patch(event, 0, EntityDataTypes.BYTE, (byte) 0x20));
+        assertTrue(WrapperPlayServerEntityMetadata.patch(event, 9, EntityDataTypes.FLOAT, 12.5f));
+        assertFalse(event.needsReEncode());
+        assertNull(event.getLastUsedWrapper());
+        assertEquals(0, buffer.readerIndex());
+        assertEquals(size, buffer.readableBytes());
+
+        PacketWrapper<?> wrapper = wrap(version, buffer);
+        assertEquals(42, wrapper.readVarInt());
+        EntityMetadata metadata = wrapper.readCompactEntityMetadata();
+        assertEquals((byte) 0x20, metadata.getByte(0, (byte) 0));
+        assertEquals(300, metadata.getInt(1, 0));
+        assertEquals(12.5f, metadata.getFloat(9, 0f));
+    }
+
+    @Test
+    @DisplayName("Verify entity data values of a different size are patched by re-encoding")
+    public void testPatchReEncode() throws PacketProcessException {
+        ServerVersion version = ServerVersion.getLatest();
+        ByteBuf buffer = encode(version, wrapper -> {
+            wrapper.writeVarInt(42);
+            wrapper.writeEntityMetadata(new EntityMetadata()
+                    .setByte(0, (byte) 0)
+                    .setInt(1, 300));
+        });
+        String original = ByteBufUtil.hexDump(buffer);
+        PacketSendEvent event = createEvent(version, buffer);
+
+        // var ints don't have a fixed size
+        assertTrue(WrapperPlayServerEntityMetadata.patch(event, 1, EntityDataTypes.INT, 3_000_000));
+        assertFalse(WrapperPlayServerEntityMetadata.patch(event, 5, EntityDataTypes.BYTE, (byte) 1));
+        assertTrue(event.needsReEncode());
+        assertEquals(original, ByteBufUtil.hexDump(buffer));
+
+        WrapperPlayServerEntityMetadata last = (WrapperPlayServerEntityMetadata) event.getLastUsedWrapper();
+        assertEquals(42, last.getEntityId());
+        assertEquals(3_000_000, last.getMetadata().getInt(1, 0));
+        assertEquals((byte) 0, last.getMetadata().getByte(0, (byte) 1));
+        assertFalse(last.getMetadata().has(5));
+    }
+
+    private static PacketSendEvent createEvent(ServerVersion version, Object buffer) throws PacketProcessException {
+        User user = new User(null, ConnectionState.PLAY, version.toClientVersion(), null);
+        return new PacketSendEvent(0, PacketType.Play.Server.ENTITY_METADATA,
+                version, null, user, null, buffer) {
+        };
+    }
+
+    private static PacketWrapper<?> wrap(ServerVersion version, ByteBuf buffer) {
+        PacketWrapper<?> wrapper = PacketWrapper.createUniversalPacketWrapper(buffer);
+        wrapper.setServerVersion(version);
+        return wrapper;
+    }
+
+    private static ByteBuf encode(ServerVersion version, Consumer<PacketWrapper<?>> writer) {
+        ByteBuf buffer = Unpooled.buffer();
+        writer.accept(wrap(version, buffer));
+        return buffer;
+    }
+}
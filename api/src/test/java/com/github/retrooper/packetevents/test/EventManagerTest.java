@@ -0,0 +1,128 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.event.EventManager;
+import com.github.retrooper.packetevents.event.PacketListenerAbstract;
+import com.github.retrooper.packetevents.event.PacketListenerPriority;
+import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.exception.PacketProcessException;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.PacketSide;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventManagerTest extends BaseDummyAPITest {
+
+    private static final PacketTypeCommon METADATA = PacketType.Play.Server.ENTITY_METADATA;
+    private static final PacketTypeCommon CHUNK = PacketType.Play.Server.CHUNK_DATA;
+    private static final PacketTypeCommon DESTROY = PacketType.Play.Server.DESTROY_ENTITIES;
+
+    private final List<String> calls = new ArrayList<>();
+    private final List<String> unexpected = new ArrayList<>();
+
+    @Test
+    @DisplayName("Verify listeners are only called for their packet types, ordered by priority")
+    public void testDispatch() throws PacketProcessException {
+        EventManager eventManager = new EventManager();
+        RecordingListener metadataLow = new RecordingListener("metadataLow", PacketListenerPriority.LOWEST, METADATA, CHUNK);
+        RecordingListener chunkNormal = new RecordingListener("chunkNormal", PacketListenerPriority.NORMAL, CHUNK);
+        RecordingListener metadataHigh = new RecordingListener("metadataHigh", PacketListenerPriority.HIGH, METADATA);
+        eventManager.registerListeners(metadataHigh, chunkNormal, metadataLow);
+
+        assertTrue(eventManager.isListening(PacketSide.SERVER, ConnectionState.PLAY, METADATA));
+        assertTrue(eventManager.isListening(PacketSide.SERVER, ConnectionState.PLAY, CHUNK));
+        assertFalse(eventManager.isListening(PacketSide.SERVER, ConnectionState.PLAY, DESTROY));
+        assertEquals(Arrays.asList("metadataLow", "metadataHigh"), this.dispatch(eventManager, METADATA));
+        assertEquals(Arrays.asList("metadataLow", "chunkNormal"), this.dispatch(eventManager, CHUNK));
+        assertEquals(Collections.emptyList(), this.dispatch(eventManager, DESTROY));
+
+        // registered and unregistered while running
+        RecordingListener all = new RecordingListener("all", PacketListenerPriority.MONITOR);
+        RecordingListener metadataRuntime = new RecordingListener("metadataRuntime", PacketListenerPriority.LOW, METADATA);
+        eventManager.registerListener(all);
+        eventManager.registerListener(metadataRuntime);
+        assertTrue(eventManager.isListening(PacketSide.SERVER, ConnectionState.PLAY, DESTROY));
+        assertEquals(Arrays.asList("metadataLow", "metadataRuntime", "metadataHigh", "all"),
+                this.dispatch(eventManager, METADATA));
+        assertEquals(Collections.singletonList("all"), this.dispatch(eventManager, DESTROY));
+
+        eventManager.unregisterListener(metadataHigh);
+        assertEquals(Arrays.asList("metadataLow", "metadataRuntime", "all"), this.dispatch(eventManager, METADATA));
+        eventManager.unregisterListeners(all, metadataRuntime);
+        assertFalse(eventManager.isListening(PacketSide.SERVER, ConnectionState.PLAY, DESTROY));
+        assertEquals(Arrays.asList("metadataLow", "chunkNormal"), this.dispatch(eventManager, CHUNK));
+        assertEquals(Arrays.asList("metadataLow"), this.dispatch(eventManager, METADATA));
+
+        eventManager.unregisterAllListeners();
+        assertFalse(eventManager.isListening(PacketSide.SERVER, ConnectionState.PLAY, METADATA));
+        assertEquals(Collections.emptyList(), this.unexpected);
+    }
+
+    private List<String> dispatch(EventManager eventManager, PacketTypeCommon packetType) throws PacketProcessException {
+        User user = new User(null, ConnectionState.PLAY, ServerVersion.getLatest().toClientVersion(), null);
+        PacketSendEvent event = new PacketSendEvent(0, packetType, ServerVersion.getLatest(),
+                null, user, null, Unpooled.buffer()) {
+        };
+        this.calls.clear();
+        eventManager.callEvent(event);
+        return new ArrayList<>(this.calls);
+    }
+
+    private final class RecordingListener extends PacketListenerAbstract {
+
+        private final String name;
+        private final @Nullable Collection<PacketTypeCommon> packetTypes;
+
+        private RecordingListener(String name, PacketListenerPriority priority, PacketTypeCommon... packetTypes) {
+            super(priority);
+            this.name = name;
+            this.packetTypes = packetTypes.length == 0 ? null : Arrays.asList(packetTypes);
+        }
+
+        @Override
+        public @Nullable Collection<PacketTypeCommon> getPacketTypes() {
+            return this.packetTypes;
+        }
+
+        @Override
+        public void onPacketSend(PacketSendEvent event) {
+            if (this.packetTypes != null && !this.packetTypes.contains(event.getPacketType())) {
+                unexpected.add(this.name + " received " + event.getPacketType());
+            }
+            calls.add(this.name);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.event.metrics.LatencyHistogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Verify percentiles stay within the bucket precision")
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getPercentile(50D));
+
+        for (long value = 1L; value <= 100_000L; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100_000L, histogram.getCount());
+        assertEquals(100_000L, histogram.getMax());
+        assertEquals(100_000L, histogram.getPercentile(100D));
+        assertEquals(1L, histogram.getPercentile(0D));
+        for (double percentile : new double[]{1D, 25D, 50D, 90D, 99D, 99.9D}) {
+            long exact = (long) Math.ceil(percentile * 1000D);
+            long estimate = histogram.getPercentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 8L,
+                    "p" + percentile + " estimated as " + estimate + ", expected " + exact);
+        }
+    }
+
+    @Test
+    @DisplayName("Verify huge durations are clamped to the largest recorded value")
+    public void testHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2L);
+        histogram.record(10L);
+        assertEquals(Long.MAX_VALUE / 2L, histogram.getPercentile(100D));
+        assertEquals(10L, histogram.getPercentile(50D));
+    }
+}
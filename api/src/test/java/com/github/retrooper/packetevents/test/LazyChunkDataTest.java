@@ -0,0 +1,143 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.exception.PacketProcessException;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBTLongArray;
+import com.github.retrooper.packetevents.protocol.nbt.NBTString;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.protocol.world.chunk.BaseChunk;
+import com.github.retrooper.packetevents.protocol.world.chunk.Column;
+import com.github.retrooper.packetevents.protocol.world.chunk.LazyColumn;
+import com.github.retrooper.packetevents.protocol.world.chunk.LightData;
+import com.github.retrooper.packetevents.protocol.world.chunk.TileEntity;
+import com.github.retrooper.packetevents.protocol.world.chunk.impl.v_1_18.Chunk_v1_18;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerChunkData;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyChunkDataTest extends BaseDummyAPITest {
+
+    private static final ServerVersion VERSION = ServerVersion.getLatest();
+
+    @Test
+    @DisplayName("Verify lazily read chunks are written back byte for byte")
+    public void testUntouchedRoundTrip() throws PacketProcessException {
+        String original = createPacket();
+
+        WrapperPlayServerChunkData lazy = read(original, true);
+        assertInstanceOf(LazyColumn.class, lazy.getColumn());
+        assertEquals(original, write(lazy));
+    }
+
+    @Test
+    @DisplayName("Verify lazily read chunks with a modified section are written like eagerly read chunks")
+    public void testModifiedRoundTrip() throws PacketProcessException {
+        String original = createPacket();
+
+        WrapperPlayServerChunkData lazy = read(original, true);
+        LazyColumn column = (LazyColumn) lazy.getColumn();
+        column.getChunk(3).set(4, 4, 4, 7);
+        assertTrue(column.isChunkParsed(3));
+        assertFalse(column.isChunkParsed(4));
+        WrapperPlayServerChunkData eager = read(original, false);
+        eager.getColumn().getChunks()[3].set(4, 4, 4, 7);
+
+        String expected = write(eager);
+        assertNotEquals(original, expected);
+        assertEquals(expected, write(lazy));
+    }
+
+    @Test
+    @DisplayName("Verify lazily read chunks are parsed completely when written for another version")
+    public void testOtherVersion() throws PacketProcessException {
+        String original = createPacket();
+
+        WrapperPlayServerChunkData eager = read(original, false);
+        eager.setServerVersion(ServerVersion.V_1_18);
+        WrapperPlayServerChunkData lazy = read(original, true);
+        lazy.setServerVersion(ServerVersion.V_1_18);
+        assertEquals(write(eager), write(lazy));
+    }
+
+    private static String createPacket() {
+        BaseChunk[] chunks = new BaseChunk[24];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk_v1_18();
+        }
+        chunks[0].set(0, 0, 0, 1);
+        chunks[3].set(1, 2, 3, 5);
+        chunks[23].set(15, 15, 15, 9);
+
+        NBTCompound heightMaps = new NBTCompound();
+        heightMaps.setTag("MOTION_BLOCKING", new NBTLongArray(new long[]{1L, 2L, 3L}));
+        NBTCompound tileEntityData = new NBTCompound();
+        tileEntityData.setTag("id", new NBTString("minecraft:chest"));
+        TileEntity[] tileEntities = {new TileEntity((byte) 0x12, (short) 70, 1, tileEntityData)};
+        Column column = new Column(2, -3, true, chunks, tileEntities, heightMaps);
+
+        BitSet skyLightMask = new BitSet();
+        skyLightMask.set(1);
+        byte[] skyLight = new byte[2048];
+        skyLight[5] = 0x7F;
+        LightData lightData = new LightData(false, new BitSet(), skyLightMask, new BitSet(), new BitSet(),
+                1, 0, new byte[][]{skyLight}, new byte[0][]);
+
+        WrapperPlayServerChunkData wrapper = new WrapperPlayServerChunkData(column, lightData);
+        wrapper.setServerVersion(VERSION);
+        return write(wrapper);
+    }
+
+    private static WrapperPlayServerChunkData read(String packet, boolean lazy) throws PacketProcessException {
+        User user = new User(null, ConnectionState.PLAY, VERSION.toClientVersion(), null);
+        ByteBuf buffer = Unpooled.wrappedBuffer(ByteBufUtil.decodeHexDump(packet));
+        PacketSendEvent event = new PacketSendEvent(0, PacketType.Play.Server.CHUNK_DATA,
+                VERSION, null, user, null, buffer) {
+        };
+        return new WrapperPlayServerChunkData(event, lazy);
+    }
+
+    private static String write(WrapperPlayServerChunkData wrapper) {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            wrapper.buffer = buffer;
+            wrapper.write();
+            return ByteBufUtil.hexDump(buffer);
+        } finally {
+            wrapper.buffer = null;
+            buffer.release();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.retrooper.packetevents.test;
 
+import com.github.retrooper.packetevents.PacketEvents;
 import com.github.retrooper.packetevents.protocol.attribute.Attributes;
 import com.github.retrooper.packetevents.protocol.item.enchantment.type.EnchantmentTypes;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
@@ -12,11 +13,20 @@ import com.github.retrooper.packetevents.protocol.world.states.enums.Orientation
 import com.github.retrooper.packetevents.protocol.world.states.enums.South;
 import com.github.retrooper.packetevents.protocol.world.states.enums.West;
 import com.github.retrooper.packetevents.protocol.world.states.type.StateTypes;
+import com.github.retrooper.packetevents.settings.PacketEventsSettings;
 import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import com.github.retrooper.packetevents.util.mappings.MappingIndex;
+import com.github.retrooper.packetevents.util.mappings.TypesBuilder;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 public class MappingIntegrityTest extends BaseDummyAPITest {
 
@@ -90,4 +100,50 @@ public class MappingIntegrityTest extends BaseDummyAPITest {
         state.setAxis(Axis.Z);
         assertEquals(159, state.getGlobalId());
     }
+
+    @Test
+    @DisplayName("Test block state modification")
+    public void testBlockStateModification() {
+        WrappedBlockState state = StateTypes.PALE_OAK_LOG.createBlockState(ClientVersion.V_1_21_2);
+        state.setAxis(Axis.Z);
+        assertEquals(Axis.Y, StateTypes.PALE_OAK_LOG.createBlockState(ClientVersion.V_1_21_2).getAxis());
+        assertEquals(WrappedBlockState.getByGlobalId(ClientVersion.V_1_21_2, 159), state);
+        assertEquals(WrappedBlockState.getByGlobalId(ClientVersion.V_1_21_2, 159).toString(), state.toString());
+
+        // logs have no age, the modification gets reverted
+        state.setAge(3);
+        assertEquals(159, state.getGlobalId());
+        assertEquals(Axis.Z, state.getAxis());
+    }
+
+    @Test
+    @DisplayName("Verify the generated mapping indexes resolve the same ids as the nbt mappings")
+    public void testMappingIndexes() {
+        String[] paths = {
+                "entity/entity_type_mappings", "entity/entity_data_type_mappings", "sound/sound_mappings",
+                "particle/particle_type_mappings", "block/block_type_mappings", "item/item_type_mappings"
+        };
+        PacketEventsSettings settings = PacketEvents.getAPI().getSettings();
+        Function<String, InputStream> resourceProvider = settings.getResourceProvider();
+        for (String path : paths) {
+            MappingIndex index = MappingIndex.read("mappings/" + path);
+            assertNotNull(index, path);
+            assertFalse(index.getKeys().isEmpty(), path);
+            TypesBuilder indexed = new TypesBuilder(path);
+
+            // hide the index, so the nbt mappings are loaded
+            settings.customResourceProvider(resource -> resource.endsWith(".idx") ? null : resourceProvider.apply(resource));
+            TypesBuilder nbt;
+            try {
+                nbt = new TypesBuilder(path);
+            } finally {
+                settings.customResourceProvider(resourceProvider);
+            }
+
+            assertArrayEquals(nbt.getVersions(), indexed.getVersions(), path);
+            for (String key : index.getKeys()) {
+                assertArrayEquals(nbt.define(key).getData(), indexed.define(key).getData(), path + " " + key);
+            }
+        }
+    }
 }
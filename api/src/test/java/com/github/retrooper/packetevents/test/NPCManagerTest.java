@@ -0,0 +1,121 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.npc.NPC;
+import com.github.retrooper.packetevents.protocol.npc.NPCManager;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.protocol.player.UserProfile;
+import com.github.retrooper.packetevents.protocol.world.Location;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import com.github.retrooper.packetevents.util.Vector3d;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NPCManagerTest extends BaseDummyAPITest {
+
+    private static PacketTypeCommon[] types(PacketWrapper<?>[] packets) {
+        PacketTypeCommon[] types = new PacketTypeCommon[packets.length];
+        for (int i = 0; i < packets.length; i++) {
+            types[i] = packets[i].getPacketTypeData().getPacketType();
+        }
+        return types;
+    }
+
+    private static void discardOutbound(EmbeddedChannel channel) {
+        Object message;
+        while ((message = channel.readOutbound()) != null) {
+            ByteBufHelper.release(message);
+        }
+    }
+
+    @Test
+    @DisplayName("Verify the packets created for movement deltas")
+    public void testMovePackets() {
+        Location from = new Location(0, 64, 0, 0f, 0f);
+        assertEquals(0, NPC.createMovePackets(1, from, from.clone()).length);
+        assertArrayEquals(new PacketTypeCommon[]{PacketType.Play.Server.ENTITY_RELATIVE_MOVE},
+                types(NPC.createMovePackets(1, from, new Location(1, 64, 0, 0f, 0f))));
+        assertArrayEquals(new PacketTypeCommon[]{PacketType.Play.Server.ENTITY_ROTATION,
+                        PacketType.Play.Server.ENTITY_HEAD_LOOK},
+                types(NPC.createMovePackets(1, from, new Location(0, 64, 0, 90f, 0f))));
+        assertArrayEquals(new PacketTypeCommon[]{PacketType.Play.Server.ENTITY_RELATIVE_MOVE_AND_ROTATION,
+                        PacketType.Play.Server.ENTITY_HEAD_LOOK},
+                types(NPC.createMovePackets(1, from, new Location(0, 65, 0, 0f, 45f))));
+        // relative moves are limited to 8 blocks
+        assertArrayEquals(new PacketTypeCommon[]{PacketType.Play.Server.ENTITY_TELEPORT},
+                types(NPC.createMovePackets(1, from, new Location(0, 64, 8.5, 0f, 0f))));
+    }
+
+    @Test
+    @DisplayName("Verify all movement within a tick is sent as a single delta")
+    public void testTickBatching() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        User viewer = new User(channel, ConnectionState.PLAY, ClientVersion.getLatest(),
+                new UserProfile(UUID.randomUUID(), "viewer"));
+        NPC npc = new NPC(new UserProfile(UUID.randomUUID(), "npc"), 1000);
+        npc.setLocation(new Location(0, 64, 0, 0f, 0f));
+
+        NPCManager manager = new NPCManager();
+        manager.register(npc);
+        manager.addViewer(npc, viewer);
+        manager.tick();
+        assertTrue(npc.hasSpawned(channel));
+        discardOutbound(channel);
+
+        // nothing moved
+        manager.tick();
+        assertNull(channel.readOutbound());
+
+        npc.getLocation().setPosition(new Vector3d(1, 64, 0));
+        npc.getLocation().setPosition(new Vector3d(2, 64, 0));
+        manager.tick();
+        ByteBuf packet = channel.readOutbound();
+        try {
+            assertEquals(PacketType.Play.Server.ENTITY_RELATIVE_MOVE.getId(ClientVersion.getLatest()),
+                    ByteBufHelper.readVarInt(packet));
+            assertEquals(1000, ByteBufHelper.readVarInt(packet));
+            // deltas are sent in 1/4096 blocks
+            assertEquals(2 * 4096, packet.readShort());
+            assertEquals(0, packet.readShort());
+            assertEquals(0, packet.readShort());
+        } finally {
+            packet.release();
+        }
+        assertNull(channel.readOutbound());
+
+        manager.unregister(npc);
+        discardOutbound(channel);
+        channel.finishAndReleaseAll();
+    }
+}
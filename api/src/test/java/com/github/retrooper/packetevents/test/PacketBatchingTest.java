@@ -0,0 +1,110 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.local.LocalChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PacketBatchingTest extends BaseDummyAPITest {
+
+    private static final int ROUNDS = 200;
+    private static final int PACKETS = 16;
+
+    @Test
+    @DisplayName("Verify packets queued while batching gets disabled are written or released")
+    public void testDisableWhileQueueing() throws InterruptedException {
+        DefaultEventLoop eventLoop = new DefaultEventLoop();
+        try {
+            Set<Object> written = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+            LocalChannel channel = new LocalChannel();
+            channel.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                    written.add(msg);
+                    promise.setSuccess();
+                }
+            });
+            eventLoop.register(channel).syncUninterruptibly();
+            User user = new User(channel, ConnectionState.PLAY, ClientVersion.getLatest(), null);
+
+            List<ByteBuf> buffers = new ArrayList<>(ROUNDS * PACKETS);
+            for (int round = 0; round < ROUNDS; round++) {
+                // without a size or delay limit, only disabling batching writes the queued packets
+                user.enablePacketBatching(0, 0L, TimeUnit.MILLISECONDS);
+                List<ByteBuf> roundBuffers = new ArrayList<>(PACKETS);
+                for (int i = 0; i < PACKETS; i++) {
+                    roundBuffers.add(Unpooled.buffer(1).writeByte(i));
+                }
+                buffers.addAll(roundBuffers);
+
+                CountDownLatch start = new CountDownLatch(1);
+                Thread queueing = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (ByteBuf buffer : roundBuffers) {
+                        user.sendPacket(buffer);
+                    }
+                });
+                queueing.start();
+                start.countDown();
+                user.disablePacketBatching();
+                queueing.join();
+            }
+            // runs after every write and drain scheduled before
+            eventLoop.submit(() -> {
+            }).syncUninterruptibly();
+
+            int lost = 0;
+            for (ByteBuf buffer : buffers) {
+                if (!written.contains(buffer) && buffer.refCnt() != 0) {
+                    lost++;
+                }
+            }
+            assertEquals(0, lost);
+            for (Object buffer : written) {
+                ((ByteBuf) buffer).release();
+            }
+        } finally {
+            eventLoop.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.world.dimension.DimensionTypes;
+import com.github.retrooper.packetevents.resources.ResourceLocation;
+import com.github.retrooper.packetevents.test.base.BaseDummyAPITest;
+import com.github.retrooper.packetevents.util.mappings.SimpleRegistry;
+import com.github.retrooper.packetevents.util.mappings.SynchronizedRegistriesHandler;
+import com.github.retrooper.packetevents.util.mappings.SynchronizedRegistriesHandler.RegistryEntry;
+import com.github.retrooper.packetevents.wrapper.configuration.server.WrapperConfigServerRegistryData.RegistryElement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RegistryInterningTest extends BaseDummyAPITest {
+
+    private static List<RegistryElement> elements(String... names) {
+        RegistryElement[] elements = new RegistryElement[names.length];
+        for (int i = 0; i < names.length; i++) {
+            elements[i] = new RegistryElement(new ResourceLocation(names[i]), null);
+        }
+        return Arrays.asList(elements);
+    }
+
+    @Test
+    @DisplayName("Verify identical synchronized registries are shared until released")
+    public void testInterning() {
+        RegistryEntry<?> entry = SynchronizedRegistriesHandler.getRegistryEntry(DimensionTypes.getRegistry().getRegistryKey());
+        int initialCount = entry.getInternedCount();
+
+        SimpleRegistry<?> first = entry.acquireInterned(elements("overworld", "the_nether"), ClientVersion.V_1_21);
+        SimpleRegistry<?> second = entry.acquireInterned(elements("overworld", "the_nether"), ClientVersion.V_1_21);
+        SimpleRegistry<?> reordered = entry.acquireInterned(elements("the_nether", "overworld"), ClientVersion.V_1_21);
+        assertSame(first, second);
+        assertNotSame(first, reordered);
+        assertEquals(initialCount + 2, entry.getInternedCount());
+
+        SynchronizedRegistriesHandler.releaseRegistry(first);
+        SynchronizedRegistriesHandler.releaseRegistry(reordered);
+        assertEquals(initialCount + 1, entry.getInternedCount());
+        SynchronizedRegistriesHandler.releaseRegistry(second);
+        assertEquals(initialCount, entry.getInternedCount());
+    }
+
+    @Test
+    @DisplayName("Verify cached synchronized registries stay interned after being released")
+    public void testCachedInterning() {
+        RegistryEntry<?> entry = SynchronizedRegistriesHandler.getRegistryEntry(DimensionTypes.getRegistry().getRegistryKey());
+        List<RegistryElement> elements = elements("overworld", "the_end");
+
+        SimpleRegistry<?> first = entry.acquireInterned(elements, ClientVersion.V_1_20_5);
+        assertSame(first, entry.computeSyncedRegistry(new Object(), () -> first));
+        // modifying the received list doesn't affect the interned content
+        elements.set(1, new RegistryElement(new ResourceLocation("the_nether"), null));
+        SynchronizedRegistriesHandler.releaseRegistry(first);
+
+        SimpleRegistry<?> second = entry.acquireInterned(elements("overworld", "the_end"), ClientVersion.V_1_20_5);
+        assertSame(first, second);
+        SynchronizedRegistriesHandler.releaseRegistry(second);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import io.github.retrooper.packetevents.impl.netty.buffer.VarIntCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VarIntCodecTest {
+
+    private static final int[] INT_EDGE_CASES = {0, 1, 127, 128, 255, 16383, 16384, 2097151, 2097152,
+            268435455, 268435456, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+    private static final long[] LONG_EDGE_CASES = {0L, 1L, 127L, 128L, 268435455L, 268435456L,
+            (1L << 56) - 1L, 1L << 56, Long.MAX_VALUE, -1L, Long.MIN_VALUE};
+
+    @Test
+    @DisplayName("Verify VarInts round-trip with and without trailing data")
+    public void testVarIntRoundTrip() {
+        Random random = new Random(0);
+        for (int value : INT_EDGE_CASES) {
+            assertVarInt(value);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertVarInt(random.nextInt() >> random.nextInt(32));
+        }
+    }
+
+    @Test
+    @DisplayName("Verify VarLongs round-trip with and without trailing data")
+    public void testVarLongRoundTrip() {
+        Random random = new Random(0);
+        for (long value : LONG_EDGE_CASES) {
+            assertVarLong(value);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertVarLong(random.nextLong() >> random.nextInt(64));
+        }
+    }
+
+    private static void assertVarInt(int value) {
+        // without trailing bytes the slow path is taken, with them the batched one
+        for (int trailing : new int[]{0, 8}) {
+            ByteBuf buffer = Unpooled.buffer();
+            VarIntCodec.writeVarInt(buffer, value);
+            int length = buffer.readableBytes();
+            assertEquals(referenceVarInt(value), length, () -> "Wrong length for " + value);
+            buffer.writeZero(trailing);
+            assertEquals(value, VarIntCodec.readVarInt(buffer));
+            assertEquals(length, buffer.readerIndex());
+            buffer.release();
+        }
+    }
+
+    private static void assertVarLong(long value) {
+        for (int trailing : new int[]{0, 8}) {
+            ByteBuf buffer = Unpooled.buffer();
+            VarIntCodec.writeVarLong(buffer, value);
+            int length = buffer.readableBytes();
+            buffer.writeZero(trailing);
+            assertEquals(value, VarIntCodec.readVarLong(buffer));
+            assertEquals(length, buffer.readerIndex());
+            buffer.release();
+        }
+    }
+
+    private static int referenceVarInt(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+}
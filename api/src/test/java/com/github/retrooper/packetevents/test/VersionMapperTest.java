@@ -0,0 +1,55 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.test;
+
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.util.VersionMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VersionMapperTest {
+
+    @Test
+    @DisplayName("Verify version indexes resolve to the newest version not newer than the client")
+    public void testIndexes() {
+        VersionMapper mapper = new VersionMapper(ClientVersion.V_1_12, ClientVersion.V_1_16, ClientVersion.V_1_20_5);
+        assertEquals(0, mapper.getIndex(ClientVersion.V_1_8));
+        assertEquals(0, mapper.getIndex(ClientVersion.V_1_15_2));
+        assertEquals(1, mapper.getIndex(ClientVersion.V_1_16));
+        assertEquals(1, mapper.getIndex(ClientVersion.V_1_20_3));
+        assertEquals(2, mapper.getIndex(ClientVersion.V_1_21_4));
+        assertEquals(0, mapper.getIndex(ClientVersion.UNKNOWN));
+    }
+
+    @Test
+    @DisplayName("Verify protocol version lookups")
+    public void testProtocolVersions() {
+        for (ClientVersion version : ClientVersion.values()) {
+            if (version.isRelease()) {
+                assertEquals(version.getProtocolVersion(), ClientVersion.getById(version.getProtocolVersion()).getProtocolVersion());
+            }
+        }
+        assertEquals(ClientVersion.V_1_21_4, ClientVersion.getById(769));
+        assertEquals(ClientVersion.UNKNOWN, ClientVersion.getById(669));
+        assertEquals(ClientVersion.getOldest(), ClientVersion.getById(1));
+        assertEquals(ClientVersion.getLatest(), ClientVersion.getById(100_000));
+    }
+}
@@ -0,0 +1,37 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":api"))
+    jmh(project(":netty-common"))
+    jmh(project(":patch:adventure-text-serializer-gson"))
+    jmh(libs.bundles.adventure)
+    jmh(libs.adventure.text.serializer.legacy)
+    jmh(libs.netty)
+    jmh(libs.gson)
+}
+
+java {
+    disableAutoTargetJvm()
+}
+
+tasks {
+    withType<JavaCompile> {
+        options.encoding = Charsets.UTF_8.name()
+        options.release = 8
+    }
+}
+
+// Run with ./gradlew :benchmarks:jmh, a subset can be selected with -PjmhIncludes=<regex>
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+    resultFormat = "JSON"
+    resultsFile = project.layout.buildDirectory.file("reports/jmh/results.json")
+}
@@ -0,0 +1,256 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.benchmark;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.PacketEventsAPI;
+import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.exception.PacketProcessException;
+import com.github.retrooper.packetevents.injector.ChannelInjector;
+import com.github.retrooper.packetevents.manager.player.PlayerManager;
+import com.github.retrooper.packetevents.manager.protocol.ProtocolManager;
+import com.github.retrooper.packetevents.manager.server.ServerManager;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.NettyManager;
+import com.github.retrooper.packetevents.protocol.ConnectionState;
+import com.github.retrooper.packetevents.protocol.ProtocolVersion;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.protocol.player.UserProfile;
+import com.github.retrooper.packetevents.settings.PacketEventsSettings;
+import com.github.retrooper.packetevents.util.EventCreationUtil;
+import com.github.retrooper.packetevents.util.LogManager;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import io.github.retrooper.packetevents.impl.netty.NettyManagerImpl;
+import io.github.retrooper.packetevents.impl.netty.manager.protocol.ProtocolManagerAbstract;
+import io.github.retrooper.packetevents.impl.netty.manager.server.ServerManagerAbstract;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal platform-less PacketEvents instance for the benchmarks.
+ * It uses the real netty-common {@link NettyManagerImpl}, so buffers go through the same
+ * operators as on a server, while injection and player management are stubbed out.
+ */
+public final class BenchmarkPacketEvents {
+
+    private static final Logger LOGGER = Logger.getLogger("packetevents");
+
+    private BenchmarkPacketEvents() {
+    }
+
+    public static synchronized PacketEventsAPI<?> init() {
+        PacketEventsAPI<?> api = PacketEvents.getAPI();
+        if (api == null) {
+            api = build(new PacketEventsSettings());
+            PacketEvents.setAPI(api);
+            api.init();
+        }
+        return api;
+    }
+
+    /**
+     * Creates a user on the latest version, which is already in the play state.
+     */
+    public static User createUser() {
+        UserProfile profile = new UserProfile(UUID.randomUUID(), "Benchmark");
+        User user = new User(new EmbeddedChannel(), ConnectionState.PLAY, ClientVersion.getLatest(), profile);
+        user.setEntityId(1);
+        return user;
+    }
+
+    /**
+     * Serializes the wrapper into a new buffer, prefixed by its packet id like a packet
+     * passed to the packetevents handlers.
+     */
+    public static ByteBuf encode(PacketWrapper<?> wrapper) {
+        ByteBuf buffer = Unpooled.buffer();
+        wrapper.buffer = buffer;
+        wrapper.writeVarInt(wrapper.getNativePacketId());
+        wrapper.write();
+        wrapper.buffer = null;
+        return buffer;
+    }
+
+    /**
+     * Creates the event a listener would receive for the encoded packet, without touching
+     * the indices of the encoded buffer.
+     */
+    public static PacketSendEvent createSendEvent(User user, ByteBuf encoded) throws PacketProcessException {
+        return EventCreationUtil.createSendEvent(user.getChannel(), user, null, encoded.duplicate(), true);
+    }
+
+    /**
+     * Serializes the wrapper into the given buffer, the same way packetevents re-encodes
+     * packets which were modified by a listener.
+     */
+    public static ByteBuf rewrite(PacketWrapper<?> wrapper, ByteBuf output) {
+        output.clear();
+        wrapper.buffer = output;
+        wrapper.writeVarInt(wrapper.getNativePacketId());
+        wrapper.write();
+        return output;
+    }
+
+    private static PacketEventsAPI<Object> build(PacketEventsSettings settings) {
+        Object plugin = new Object();
+        return new PacketEventsAPI<Object>() {
+            private final ProtocolManager protocolManager = new ProtocolManagerAbstract() {
+                @Override
+                public ProtocolVersion getPlatformVersion() {
+                    return ProtocolVersion.UNKNOWN;
+                }
+            };
+            private final ServerManager serverManager = new ServerManagerAbstract() {
+                @Override
+                public ServerVersion getVersion() {
+                    return ServerVersion.getLatest();
+                }
+            };
+            private final NettyManager nettyManager = new NettyManagerImpl();
+            private final ChannelInjector injector = new ChannelInjector() {
+                @Override
+                public void inject() {
+                }
+
+                @Override
+                public void uninject() {
+                }
+
+                @Override
+                public void updateUser(Object channel, User user) {
+                }
+
+                @Override
+                public void setPlayer(Object channel, Object player) {
+                }
+
+                @Override
+                public boolean isProxy() {
+                    return false;
+                }
+            };
+            private final LogManager logManager = new LogManager() {
+                @Override
+                protected void log(Level level, @Nullable NamedTextColor color, String message) {
+                    LOGGER.log(level, message);
+                }
+            };
+
+            private boolean loaded;
+            private boolean initialized;
+            private boolean terminated;
+
+            @Override
+            public void load() {
+                if (!loaded) {
+                    PacketEvents.IDENTIFIER = "pe-benchmark";
+                    PacketEvents.ENCODER_NAME = "pe-encoder-benchmark";
+                    PacketEvents.DECODER_NAME = "pe-decoder-benchmark";
+                    PacketEvents.CONNECTION_HANDLER_NAME = "pe-connection-handler-benchmark";
+                    PacketEvents.SERVER_CHANNEL_HANDLER_NAME = "pe-connection-initializer-benchmark";
+                    PacketEvents.TIMEOUT_HANDLER_NAME = "pe-timeout-handler-benchmark";
+
+                    if (!PacketType.isPrepared()) {
+                        PacketType.prepare();
+                    }
+
+                    loaded = true;
+                }
+            }
+
+            @Override
+            public boolean isLoaded() {
+                return loaded;
+            }
+
+            @Override
+            public void init() {
+                load();
+                initialized = true;
+            }
+
+            @Override
+            public boolean isInitialized() {
+                return initialized;
+            }
+
+            @Override
+            public void terminate() {
+                if (initialized) {
+                    initialized = false;
+                    terminated = true;
+                }
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return terminated;
+            }
+
+            @Override
+            public Object getPlugin() {
+                return plugin;
+            }
+
+            @Override
+            public ProtocolManager getProtocolManager() {
+                return protocolManager;
+            }
+
+            @Override
+            public ServerManager getServerManager() {
+                return serverManager;
+            }
+
+            @Override
+            public @Nullable PlayerManager getPlayerManager() {
+                return null;
+            }
+
+            @Override
+            public PacketEventsSettings getSettings() {
+                return settings;
+            }
+
+            @Override
+            public NettyManager getNettyManager() {
+                return nettyManager;
+            }
+
+            @Override
+            public ChannelInjector getInjector() {
+                return injector;
+            }
+
+            @Override
+            public LogManager getLogManager() {
+                return logManager;
+            }
+        };
+    }
+}
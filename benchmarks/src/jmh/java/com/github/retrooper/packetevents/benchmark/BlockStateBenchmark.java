@@ -0,0 +1,99 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.benchmark;
+
+import com.github.retrooper.packetevents.protocol.player.ClientVersion;
+import com.github.retrooper.packetevents.protocol.world.states.WrappedBlockState;
+import com.github.retrooper.packetevents.protocol.world.states.type.StateType;
+import com.github.retrooper.packetevents.protocol.world.states.type.StateTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Global id to block state lookups, as done for every block of a parsed chunk or block change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BlockStateBenchmark {
+
+    // power of two, so the next id can be picked with a mask
+    private static final int ID_COUNT = 1 << 12;
+
+    @Param({"V_1_12_2", "V_1_21_4"})
+    public ClientVersion version;
+
+    private int[] globalIds;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPacketEvents.init();
+        List<Integer> knownIds = new ArrayList<>();
+        for (StateType type : StateTypes.values()) {
+            int globalId = WrappedBlockState.getDefaultState(this.version, type, false).getGlobalId();
+            if (globalId > 0) {
+                knownIds.add(globalId);
+            }
+        }
+        // fixed seed, so every run looks up the same ids in the same order
+        Random random = new Random(0x5EEDL);
+        this.globalIds = new int[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            this.globalIds[i] = knownIds.get(random.nextInt(knownIds.size()));
+        }
+    }
+
+    private int nextId() {
+        return this.globalIds[this.index++ & (ID_COUNT - 1)];
+    }
+
+    @Benchmark
+    public WrappedBlockState getByGlobalId() {
+        return WrappedBlockState.getByGlobalId(this.version, this.nextId());
+    }
+
+    @Benchmark
+    public WrappedBlockState getByGlobalIdNoClone() {
+        return WrappedBlockState.getByGlobalId(this.version, this.nextId(), false);
+    }
+
+    @Benchmark
+    public int getGlobalId() {
+        return WrappedBlockState.getByGlobalId(this.version, this.nextId(), false).getGlobalId();
+    }
+}
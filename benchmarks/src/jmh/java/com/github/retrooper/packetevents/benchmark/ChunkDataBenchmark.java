@@ -0,0 +1,172 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.benchmark;
+
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBTInt;
+import com.github.retrooper.packetevents.protocol.nbt.NBTList;
+import com.github.retrooper.packetevents.protocol.nbt.NBTLongArray;
+import com.github.retrooper.packetevents.protocol.nbt.NBTString;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.protocol.world.chunk.BaseChunk;
+import com.github.retrooper.packetevents.protocol.world.chunk.Column;
+import com.github.retrooper.packetevents.protocol.world.chunk.LightData;
+import com.github.retrooper.packetevents.protocol.world.chunk.TileEntity;
+import com.github.retrooper.packetevents.protocol.world.chunk.impl.v_1_18.Chunk_v1_18;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerChunkData;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips of a full overworld chunk, the largest packet sent regularly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ChunkDataBenchmark {
+
+    // amount of different block states in the generated sections
+    private static final int PALETTE_SIZE = 24;
+
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    private User user;
+    private ByteBuf chunkData;
+    private ByteBuf output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPacketEvents.init();
+        this.user = BenchmarkPacketEvents.createUser();
+        this.output = Unpooled.buffer();
+
+        // fixed seed, so every run encodes exactly the same chunk
+        Random random = new Random(0x5EEDL);
+        int sectionCount = this.user.getTotalWorldHeight() >> 4;
+        BaseChunk[] chunks = new BaseChunk[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            Chunk_v1_18 chunk = new Chunk_v1_18();
+            // the upper half is left empty, like the sky above the terrain
+            if (i < sectionCount / 2) {
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        for (int x = 0; x < 16; x++) {
+                            chunk.set(x, y, z, 1 + random.nextInt(PALETTE_SIZE));
+                        }
+                    }
+                }
+            }
+            chunks[i] = chunk;
+        }
+
+        NBTCompound heightMaps = new NBTCompound();
+        heightMaps.setTag("MOTION_BLOCKING", new NBTLongArray(randomLongs(random, 37)));
+        heightMaps.setTag("WORLD_SURFACE", new NBTLongArray(randomLongs(random, 37)));
+
+        TileEntity[] tileEntities = new TileEntity[4];
+        for (int i = 0; i < tileEntities.length; i++) {
+            NBTCompound data = new NBTCompound();
+            data.setTag("id", new NBTString("minecraft:chest"));
+            data.setTag("CustomName", new NBTString("{\"text\":\"Chest " + i + "\"}"));
+            NBTList<NBTCompound> items = NBTList.createCompoundList();
+            for (int slot = 0; slot < 8; slot++) {
+                NBTCompound item = new NBTCompound();
+                item.setTag("Slot", new NBTInt(slot));
+                item.setTag("id", new NBTString("minecraft:cobblestone"));
+                item.setTag("count", new NBTInt(64));
+                items.addTag(item);
+            }
+            data.setTag("Items", items);
+            tileEntities[i] = new TileEntity((byte) (i << 4 | i), (short) (i * 8), 2, data);
+        }
+
+        int lightSections = sectionCount + 2;
+        BitSet skyLightMask = new BitSet(lightSections);
+        skyLightMask.set(0, lightSections);
+        byte[][] skyLight = new byte[lightSections][];
+        for (int i = 0; i < lightSections; i++) {
+            skyLight[i] = new byte[2048];
+            random.nextBytes(skyLight[i]);
+        }
+        LightData lightData = new LightData(false, new BitSet(), skyLightMask, new BitSet(), new BitSet(),
+                lightSections, 0, skyLight, new byte[0][]);
+
+        Column column = new Column(3, -7, true, chunks, tileEntities, heightMaps);
+        this.chunkData = BenchmarkPacketEvents.encode(new WrapperPlayServerChunkData(column, lightData));
+    }
+
+    private static long[] randomLongs(Random random, int length) {
+        long[] longs = new long[length];
+        for (int i = 0; i < length; i++) {
+            longs[i] = random.nextLong();
+        }
+        return longs;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.chunkData.release();
+        this.output.release();
+    }
+
+    @Benchmark
+    public Object read() throws Exception {
+        return new WrapperPlayServerChunkData(
+                BenchmarkPacketEvents.createSendEvent(this.user, this.chunkData), this.lazy);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        WrapperPlayServerChunkData wrapper = new WrapperPlayServerChunkData(
+                BenchmarkPacketEvents.createSendEvent(this.user, this.chunkData), this.lazy);
+        return BenchmarkPacketEvents.rewrite(wrapper, this.output);
+    }
+
+    /**
+     * Changes a single block before writing the chunk back, a common anti-xray style modification.
+     */
+    @Benchmark
+    public Object roundTripWithBlockChange() throws Exception {
+        WrapperPlayServerChunkData wrapper = new WrapperPlayServerChunkData(
+                BenchmarkPacketEvents.createSendEvent(this.user, this.chunkData), this.lazy);
+        wrapper.getColumn().getChunk(2).set(8, 8, 8, 0);
+        return BenchmarkPacketEvents.rewrite(wrapper, this.output);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.benchmark;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
+import com.github.retrooper.packetevents.protocol.nbt.NBTByte;
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBTDouble;
+import com.github.retrooper.packetevents.protocol.nbt.NBTInt;
+import com.github.retrooper.packetevents.protocol.nbt.NBTIntArray;
+import com.github.retrooper.packetevents.protocol.nbt.NBTList;
+import com.github.retrooper.packetevents.protocol.nbt.NBTString;
+import com.github.retrooper.packetevents.protocol.nbt.codec.NBTCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network NBT codec on a compound shaped like a block entity with an inventory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NBTCodecBenchmark {
+
+    // 1.20.2 switched to nameless root compounds
+    @Param({"V_1_20", "V_1_21_4"})
+    public ServerVersion version;
+
+    private NBTCompound compound;
+    private ByteBuf encoded;
+    private ByteBuf output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPacketEvents.init();
+        this.compound = new NBTCompound();
+        this.compound.setTag("id", new NBTString("minecraft:chest"));
+        this.compound.setTag("x", new NBTInt(120));
+        this.compound.setTag("y", new NBTInt(64));
+        this.compound.setTag("z", new NBTInt(-380));
+        this.compound.setTag("Lock", new NBTString(""));
+        NBTList<NBTCompound> items = NBTList.createCompoundList();
+        for (int slot = 0; slot < 27; slot++) {
+            NBTCompound item = new NBTCompound();
+            item.setTag("Slot", new NBTByte((byte) slot));
+            item.setTag("id", new NBTString("minecraft:diamond_sword"));
+            item.setTag("count", new NBTInt(1));
+            NBTCompound components = new NBTCompound();
+            components.setTag("minecraft:damage", new NBTInt(slot * 10));
+            components.setTag("minecraft:custom_name", new NBTString("{\"text\":\"Sword " + slot + "\",\"italic\":false}"));
+            components.setTag("minecraft:custom_data", new NBTIntArray(new int[]{slot, slot * 2, slot * 3, slot * 4}));
+            components.setTag("minecraft:repair_cost", new NBTDouble(slot / 2D));
+            item.setTag("components", components);
+            items.addTag(item);
+        }
+        this.compound.setTag("Items", items);
+
+        this.encoded = Unpooled.buffer();
+        NBTCodec.writeNBTToBuffer(this.encoded, this.version, this.compound);
+        this.output = Unpooled.buffer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.encoded.release();
+        this.output.release();
+    }
+
+    @Benchmark
+    public NBT read() {
+        this.encoded.readerIndex(0);
+        return NBTCodec.readNBTFromBuffer(this.encoded, this.version);
+    }
+
+    @Benchmark
+    public Object write() {
+        this.output.clear();
+        NBTCodec.writeNBTToBuffer(this.output, this.version, this.compound);
+        return this.output;
+    }
+
+    @Benchmark
+    public Object skip() {
+        this.encoded.readerIndex(0);
+        NBTCodec.skipNBTFromBuffer(this.encoded, this.version);
+        return this.encoded;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.benchmark;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.event.PacketListener;
+import com.github.retrooper.packetevents.event.PacketListenerCommon;
+import com.github.retrooper.packetevents.event.PacketListenerPriority;
+import com.github.retrooper.packetevents.event.PacketReceiveEvent;
+import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.util.PacketEventsImplHelper;
+import com.github.retrooper.packetevents.util.Vector3d;
+import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientPlayerPositionAndRotation;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerEntityVelocity;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost packetevents adds to every packet passing through the pipeline,
+ * from the interest check to the event call and the re-encoding of modified packets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PacketHandlingBenchmark {
+
+    private static final Collection<PacketTypeCommon> PACKET_TYPES = Arrays.asList(
+            PacketType.Play.Client.PLAYER_POSITION_AND_ROTATION, PacketType.Play.Server.ENTITY_VELOCITY);
+
+    /**
+     * none: no listener, packets are passed on untouched.
+     * type: a listener which only looks at the packet type.
+     * wrapper: a listener which reads the packet into its wrapper, so it gets re-encoded.
+     */
+    @Param({"none", "type", "wrapper"})
+    public String listener;
+
+    private User user;
+    private Object channel;
+    private ByteBuf serverbound;
+    private ByteBuf clientbound;
+    private PacketListenerCommon registeredListener;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPacketEvents.init();
+        this.user = BenchmarkPacketEvents.createUser();
+        this.channel = this.user.getChannel();
+        this.serverbound = BenchmarkPacketEvents.encode(new WrapperPlayClientPlayerPositionAndRotation(
+                new Vector3d(128.5D, 64D, -32.25D), 90f, 12.5f, true));
+        this.clientbound = BenchmarkPacketEvents.encode(new WrapperPlayServerEntityVelocity(
+                42, new Vector3d(0.1D, -0.08D, 0.25D)));
+
+        PacketListener packetListener;
+        switch (this.listener) {
+            case "none":
+                packetListener = null;
+                break;
+            case "type":
+                packetListener = new PacketListener() {
+                    @Override
+                    public Collection<PacketTypeCommon> getPacketTypes() {
+                        return PACKET_TYPES;
+                    }
+
+                    @Override
+                    public void onPacketReceive(PacketReceiveEvent event) {
+                        if (event.getPacketType() == PacketType.Play.Client.PLAYER_POSITION_AND_ROTATION) {
+                            event.setCancelled(false);
+                        }
+                    }
+
+                    @Override
+                    public void onPacketSend(PacketSendEvent event) {
+                        if (event.getPacketType() == PacketType.Play.Server.ENTITY_VELOCITY) {
+                            event.setCancelled(false);
+                        }
+                    }
+                };
+                break;
+            case "wrapper":
+                packetListener = new PacketListener() {
+                    @Override
+                    public Collection<PacketTypeCommon> getPacketTypes() {
+                        return PACKET_TYPES;
+                    }
+
+                    @Override
+                    public void onPacketReceive(PacketReceiveEvent event) {
+                        if (event.getPacketType() == PacketType.Play.Client.PLAYER_POSITION_AND_ROTATION) {
+                            new WrapperPlayClientPlayerPositionAndRotation(event).setOnGround(false);
+                        }
+                    }
+
+                    @Override
+                    public void onPacketSend(PacketSendEvent event) {
+                        if (event.getPacketType() == PacketType.Play.Server.ENTITY_VELOCITY) {
+                            new WrapperPlayServerEntityVelocity(event).setEntityId(43);
+                        }
+                    }
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown listener " + this.listener);
+        }
+        if (packetListener != null) {
+            this.registeredListener = PacketEvents.getAPI().getEventManager()
+                    .registerListener(packetListener, PacketListenerPriority.NORMAL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (this.registeredListener != null) {
+            PacketEvents.getAPI().getEventManager().unregisterListener(this.registeredListener);
+        }
+        this.serverbound.release();
+        this.clientbound.release();
+    }
+
+    @Benchmark
+    public Object handleServerBoundPacket() throws Exception {
+        this.serverbound.readerIndex(0);
+        return PacketEventsImplHelper.handleServerBoundPacket(this.channel, this.user, null, this.serverbound, true);
+    }
+
+    @Benchmark
+    public Object handleClientBoundPacket() throws Exception {
+        this.clientbound.readerIndex(0);
+        return PacketEventsImplHelper.handleClientBoundPacket(this.channel, this.user, null, this.clientbound, true);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.retrooper.packetevents.benchmark;
+
+import com.github.retrooper.packetevents.protocol.component.ComponentTypes;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityData;
+import com.github.retrooper.packetevents.protocol.entity.data.EntityDataTypes;
+import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.item.type.ItemTypes;
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.player.GameMode;
+import com.github.retrooper.packetevents.protocol.player.User;
+import com.github.retrooper.packetevents.protocol.world.Difficulty;
+import com.github.retrooper.packetevents.protocol.world.dimension.DimensionTypeRef;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerEntityMetadata;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerJoinGame;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerSetSlot;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write round-trips of clientbound wrappers, as done by a listener modifying them.
+ *
+ * @see ChunkDataBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class WrapperBenchmark {
+
+    private User user;
+    private ByteBuf entityMetadata;
+    private ByteBuf joinGame;
+    private ByteBuf setSlot;
+    private ByteBuf output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPacketEvents.init();
+        this.user = BenchmarkPacketEvents.createUser();
+        this.output = Unpooled.buffer();
+
+        List<EntityData> metadata = new ArrayList<>();
+        metadata.add(new EntityData(0, EntityDataTypes.BYTE, (byte) 0x02));
+        metadata.add(new EntityData(1, EntityDataTypes.INT, 300));
+        metadata.add(new EntityData(2, EntityDataTypes.OPTIONAL_ADV_COMPONENT,
+                Optional.of(Component.text("Benchmark", NamedTextColor.GOLD))));
+        metadata.add(new EntityData(3, EntityDataTypes.BOOLEAN, true));
+        metadata.add(new EntityData(4, EntityDataTypes.BOOLEAN, false));
+        metadata.add(new EntityData(5, EntityDataTypes.BOOLEAN, false));
+        metadata.add(new EntityData(7, EntityDataTypes.INT, 0));
+        metadata.add(new EntityData(8, EntityDataTypes.BYTE, (byte) 0));
+        metadata.add(new EntityData(9, EntityDataTypes.FLOAT, 20f));
+        metadata.add(new EntityData(10, EntityDataTypes.INT, 0));
+        metadata.add(new EntityData(11, EntityDataTypes.BOOLEAN, false));
+        metadata.add(new EntityData(12, EntityDataTypes.INT, 0));
+        this.entityMetadata = BenchmarkPacketEvents.encode(new WrapperPlayServerEntityMetadata(42, metadata));
+
+        this.joinGame = BenchmarkPacketEvents.encode(new WrapperPlayServerJoinGame(
+                1, false, GameMode.SURVIVAL, null,
+                Arrays.asList("minecraft:overworld", "minecraft:the_nether", "minecraft:the_end"),
+                new NBTCompound(), new DimensionTypeRef.IdRef(0), Difficulty.NORMAL,
+                "minecraft:overworld", 0x5EEDL, 100, 10, 10,
+                false, true, false, false, false, null,
+                0, 63, true));
+
+        ItemStack item = ItemStack.builder()
+                .type(ItemTypes.DIAMOND_SWORD)
+                .component(ComponentTypes.CUSTOM_NAME, Component.text("Excalibur", NamedTextColor.AQUA))
+                .component(ComponentTypes.DAMAGE, 12)
+                .build();
+        this.setSlot = BenchmarkPacketEvents.encode(new WrapperPlayServerSetSlot(0, 7, 36, item));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.entityMetadata.release();
+        this.joinGame.release();
+        this.setSlot.release();
+        this.output.release();
+    }
+
+    @Benchmark
+    public Object entityMetadata() throws Exception {
+        WrapperPlayServerEntityMetadata wrapper = new WrapperPlayServerEntityMetadata(
+                BenchmarkPacketEvents.createSendEvent(this.user, this.entityMetadata));
+        return BenchmarkPacketEvents.rewrite(wrapper, this.output);
+    }
+
+    @Benchmark
+    public Object joinGame() throws Exception {
+        WrapperPlayServerJoinGame wrapper = new WrapperPlayServerJoinGame(
+                BenchmarkPacketEvents.createSendEvent(this.user, this.joinGame));
+        return BenchmarkPacketEvents.rewrite(wrapper, this.output);
+    }
+
+    @Benchmark
+    public Object setSlot() throws Exception {
+        WrapperPlayServerSetSlot wrapper = new WrapperPlayServerSetSlot(
+                BenchmarkPacketEvents.createSendEvent(this.user, this.setSlot));
+        return BenchmarkPacketEvents.rewrite(wrapper, this.output);
+    }
+}
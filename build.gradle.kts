@@ -45,7 +45,7 @@ tasks {
                 buildOut.mkdirs()
 
             for (subproject in subprojects) {
-                if (subproject.path.startsWith(":patch")) continue
+                if (subproject.path.startsWith(":patch") || subproject.path == ":benchmarks") continue
                 val subIn = subproject.layout.buildDirectory.dir("libs").get()
 
                 copy {
@@ -24,13 +24,17 @@ import com.google.gson.Gson
 import com.google.gson.JsonArray
 import com.google.gson.JsonObject
 import com.google.gson.JsonPrimitive
+import java.io.DataOutputStream
 import java.io.IOException
 import java.nio.file.Path
 import java.util.*
 import kotlin.io.path.bufferedReader
+import kotlin.io.path.outputStream
 
 object CompressionUtil {
 
+    const val INDEX_VERSION: Byte = 1
+
     val GSON: Gson = Gson()
     val TAG_WRITER: TagWriter = NBTIO.writer().named()
 
@@ -52,6 +56,40 @@ object CompressionUtil {
         }
     }
 
+    /**
+     * Writes the resolved ids of every version, so they can be read without replaying any diffs.
+     *
+     * Format: index version (byte), version count (byte), version names (utf), key count (int), keys (utf),
+     * followed by one id per key for every version (int, -1 if the key doesn't exist in that version)
+     */
+    fun writeIndex(path: Path, versions: SortedMap<EntryVersion, Map<String, Int>>) {
+        val keys = LinkedHashSet<String>()
+        for (ids in versions.values) {
+            keys.addAll(ids.keys)
+        }
+
+        try {
+            DataOutputStream(path.outputStream().buffered()).use { out ->
+                out.writeByte(INDEX_VERSION.toInt())
+                out.writeByte(versions.size)
+                for (version in versions.keys) {
+                    out.writeUTF(version.toString())
+                }
+                out.writeInt(keys.size)
+                for (key in keys) {
+                    out.writeUTF(key)
+                }
+                for (ids in versions.values) {
+                    for (key in keys) {
+                        out.writeInt(ids[key] ?: -1)
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            throw RuntimeException("Failed to write mapping index: $path", e)
+        }
+    }
+
 }
 
 val JsonArray.asStringList: List<String>
@@ -37,10 +37,20 @@ abstract class JsonCompressionStrategy : CompressionStrategy {
         serialize(tag, json)
 
         CompressionUtil.writeNbt(to, tag)
+
+        val index = index(json)
+        if (index != null) {
+            CompressionUtil.writeIndex(to.resolveSibling(to.fileName.toString().removeSuffix(".nbt") + ".idx"), index)
+        }
     }
 
     abstract fun serialize(tag: CompoundTag, json: JsonObject)
 
+    /**
+     * @return the id of every key per version, or null if no index should be written next to the nbt file
+     */
+    protected open fun index(json: JsonObject): SortedMap<EntryVersion, Map<String, Int>>? = null
+
     protected fun separateVersions(json: JsonObject): TreeMap<EntryVersion, JsonElement> {
         return json.entrySet().associateTo(TreeMap()) { EntryVersion.fromString(it.key) to it.value }
     }
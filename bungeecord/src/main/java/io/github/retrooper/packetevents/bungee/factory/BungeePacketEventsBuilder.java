@@ -34,6 +34,7 @@ import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 import com.github.retrooper.packetevents.protocol.player.User;
 import com.github.retrooper.packetevents.protocol.player.UserProfile;
+import com.github.retrooper.packetevents.protocol.world.states.WrappedBlockState;
 import com.github.retrooper.packetevents.settings.PacketEventsSettings;
 import com.github.retrooper.packetevents.util.LogManager;
 import io.github.retrooper.packetevents.impl.netty.NettyManagerImpl;
@@ -201,6 +202,10 @@ public class BungeePacketEventsBuilder {
                     PacketEvents.TIMEOUT_HANDLER_NAME = "pe-timeout-handler-" + id;
 
                     injector.inject();
+                    // proxies don't need block states unless plugins ask for them
+                    if (!settings.getPreloadedBlockStateVersions().isEmpty()) {
+                        WrappedBlockState.ensureLoad();
+                    }
                     loaded = true;
 
                     // Register internal packet listener (should be the first listener)
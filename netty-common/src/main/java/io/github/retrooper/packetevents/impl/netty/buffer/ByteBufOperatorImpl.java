@@ -23,7 +23,7 @@ import io.netty.buffer.ByteBuf;
 
 import java.nio.charset.Charset;
 
-public class ByteBufOperatorImpl implements ByteBufOperator {
+public final class ByteBufOperatorImpl implements ByteBufOperator {
     @Override
     public int capacity(Object buffer) {
         return ((ByteBuf)buffer).capacity();
@@ -243,4 +243,90 @@ public class ByteBufOperatorImpl implements ByteBufOperator {
     public Object resetWriterIndex(Object buffer) {
         return ((ByteBuf)buffer).resetWriterIndex();
     }
+
+    // The defaults of these are built on top of other operator methods, call netty directly instead
+
+    @Override
+    public float readFloat(Object buffer) {
+        return ((ByteBuf)buffer).readFloat();
+    }
+
+    @Override
+    public void writeFloat(Object buffer, float value) {
+        ((ByteBuf)buffer).writeFloat(value);
+    }
+
+    @Override
+    public double readDouble(Object buffer) {
+        return ((ByteBuf)buffer).readDouble();
+    }
+
+    @Override
+    public void writeDouble(Object buffer, double value) {
+        ((ByteBuf)buffer).writeDouble(value);
+    }
+
+    @Override
+    public char readChar(Object buffer) {
+        return ((ByteBuf)buffer).readChar();
+    }
+
+    @Override
+    public void writeChar(Object buffer, int value) {
+        ((ByteBuf)buffer).writeChar(value);
+    }
+
+    @Override
+    public int readUnsignedShort(Object buffer) {
+        return ((ByteBuf)buffer).readUnsignedShort();
+    }
+
+    @Override
+    public short readUnsignedByte(Object buffer) {
+        return ((ByteBuf)buffer).readUnsignedByte();
+    }
+
+    @Override
+    public boolean readBoolean(Object buffer) {
+        return ((ByteBuf)buffer).readBoolean();
+    }
+
+    @Override
+    public void writeBoolean(Object buffer, boolean value) {
+        ((ByteBuf)buffer).writeBoolean(value);
+    }
+
+    @Override
+    public int readVarInt(Object buffer) {
+        return VarIntCodec.readVarInt((ByteBuf)buffer);
+    }
+
+    @Override
+    public void writeVarInt(Object buffer, int value) {
+        VarIntCodec.writeVarInt((ByteBuf)buffer, value);
+    }
+
+    @Override
+    public long readVarLong(Object buffer) {
+        return VarIntCodec.readVarLong((ByteBuf)buffer);
+    }
+
+    @Override
+    public void writeVarLong(Object buffer, long value) {
+        VarIntCodec.writeVarLong((ByteBuf)buffer, value);
+    }
+
+    @Override
+    public void readLongs(Object buffer, long[] destination, int offset, int length) {
+        ByteBuf buf = (ByteBuf) buffer;
+        int index = buf.readerIndex();
+        if (buf.writerIndex() - index < (long) length << 3) {
+            throw new IndexOutOfBoundsException("Can't read " + length + " longs, only "
+                    + (buf.writerIndex() - index) + " bytes are readable");
+        }
+        for (int i = 0; i < length; i++) {
+            destination[offset + i] = buf.getLong(index + (i << 3));
+        }
+        buf.readerIndex(index + (length << 3));
+    }
 }
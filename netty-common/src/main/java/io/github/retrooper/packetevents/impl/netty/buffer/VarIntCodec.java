@@ -0,0 +1,189 @@
+/*
+ * This file is part of packetevents - https://github.com/retrooper/packetevents
+ * Copyright (C) 2024 retrooper and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+/*
+ * MIT License
+
+ * Copyright (c) 2021 Andrew Steinborn
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.github.retrooper.packetevents.impl.netty.buffer;
+
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * VarInt and VarLong codec working directly on netty buffers.
+ * Reads peek multiple bytes at once and move the reader index a single time,
+ * writes compute the encoded length first and write it with as few calls as possible.
+ * <p>
+ * Only methods available since netty 4.0 are used, as 1.8 servers still ship with it.
+ */
+public final class VarIntCodec {
+
+    // Bit 7 of each of the first five bytes of a little endian word
+    private static final long VAR_INT_CONTINUATION_BITS = 0x8080808080L;
+    // Bit 7 of each byte of a little endian word
+    private static final long VAR_LONG_CONTINUATION_BITS = 0x8080808080808080L;
+
+    private VarIntCodec() {
+    }
+
+    public static int readVarInt(ByteBuf buffer) {
+        int index = buffer.readerIndex();
+        if (buffer.writerIndex() - index < Long.BYTES) {
+            return readVarIntSlow(buffer);
+        }
+        // Most VarInts (packet ids, entity ids, lengths) fit in a single byte
+        byte first = buffer.getByte(index);
+        if (first >= 0) {
+            buffer.readerIndex(index + 1);
+            return first;
+        }
+        // Peek 8 bytes at once, byte n of the VarInt is now at bits 8n to 8n+7
+        long word = Long.reverseBytes(buffer.getLong(index));
+        long terminators = ~word & VAR_INT_CONTINUATION_BITS;
+        if (terminators == 0L) {
+            throw new RuntimeException("VarInt is too large. Must be smaller than 5 bytes.");
+        }
+        int length = (Long.numberOfTrailingZeros(terminators) >>> 3) + 1;
+        // Drop the bytes following the VarInt, then squash the 7 bit groups together
+        long bits = word & (-1L >>> (64 - (length << 3)));
+        int value = (int) ((bits & 0x7FL)
+                | ((bits >>> 1) & 0x3F80L)
+                | ((bits >>> 2) & 0x1FC000L)
+                | ((bits >>> 3) & 0xFE00000L)
+                | ((bits >>> 4) & 0xF0000000L));
+        buffer.readerIndex(index + length);
+        return value;
+    }
+
+    private static int readVarIntSlow(ByteBuf buffer) {
+        int value = 0;
+        int length = 0;
+        byte currentByte;
+        do {
+            currentByte = buffer.readByte();
+            value |= (currentByte & 0x7F) << (length * 7);
+            length++;
+            if (length > 5) {
+                throw new RuntimeException("VarInt is too large. Must be smaller than 5 bytes.");
+            }
+        } while ((currentByte & 0x80) == 0x80);
+        return value;
+    }
+
+    public static void writeVarInt(ByteBuf buffer, int value) {
+        /* Got this code/optimization from https://steinborn.me/posts/performance/how-fast-can-you-write-a-varint/
+         * Copyright and permission notice above (above the class).
+         * Steinborn's post says that the code is under the MIT, last accessed 29.06.2024.
+         */
+        if ((value & (0xFFFFFFFF << 7)) == 0) {
+            buffer.writeByte(value);
+        } else if ((value & (0xFFFFFFFF << 14)) == 0) {
+            int w = (value & 0x7F | 0x80) << 8 | (value >>> 7);
+            buffer.writeShort(w);
+        } else if ((value & (0xFFFFFFFF << 21)) == 0) {
+            int w = (value & 0x7F | 0x80) << 16 | ((value >>> 7) & 0x7F | 0x80) << 8 | (value >>> 14);
+            buffer.writeMedium(w);
+        } else if ((value & (0xFFFFFFFF << 28)) == 0) {
+            int w = (value & 0x7F | 0x80) << 24 | (((value >>> 7) & 0x7F | 0x80) << 16)
+                    | ((value >>> 14) & 0x7F | 0x80) << 8 | (value >>> 21);
+            buffer.writeInt(w);
+        } else {
+            int w = (value & 0x7F | 0x80) << 24 | ((value >>> 7) & 0x7F | 0x80) << 16
+                    | ((value >>> 14) & 0x7F | 0x80) << 8 | ((value >>> 21) & 0x7F | 0x80);
+            buffer.ensureWritable(5);
+            buffer.writeInt(w);
+            buffer.writeByte(value >>> 28);
+        }
+    }
+
+    public static long readVarLong(ByteBuf buffer) {
+        int index = buffer.readerIndex();
+        if (buffer.writerIndex() - index < Long.BYTES) {
+            return readVarLongSlow(buffer);
+        }
+        byte first = buffer.getByte(index);
+        if (first >= 0) {
+            buffer.readerIndex(index + 1);
+            return first;
+        }
+        long word = Long.reverseBytes(buffer.getLong(index));
+        long terminators = ~word & VAR_LONG_CONTINUATION_BITS;
+        if (terminators == 0L) {
+            // Longer than 8 bytes, only happens for huge or negative values
+            return readVarLongSlow(buffer);
+        }
+        int length = (Long.numberOfTrailingZeros(terminators) >>> 3) + 1;
+        long bits = length == Long.BYTES ? word : word & ((1L << (length << 3)) - 1L);
+        long value = (bits & 0x7FL)
+                | ((bits >>> 1) & (0x7FL << 7))
+                | ((bits >>> 2) & (0x7FL << 14))
+                | ((bits >>> 3) & (0x7FL << 21))
+                | ((bits >>> 4) & (0x7FL << 28))
+                | ((bits >>> 5) & (0x7FL << 35))
+                | ((bits >>> 6) & (0x7FL << 42))
+                | ((bits >>> 7) & (0x7FL << 49));
+        buffer.readerIndex(index + length);
+        return value;
+    }
+
+    private static long readVarLongSlow(ByteBuf buffer) {
+        long value = 0;
+        int size = 0;
+        int b;
+        while (((b = buffer.readByte()) & 0x80) == 0x80) {
+            value |= (long) (b & 0x7F) << (size++ * 7);
+        }
+        return value | ((long) (b & 0x7F) << (size * 7));
+    }
+
+    public static void writeVarLong(ByteBuf buffer, long value) {
+        if ((value & (0xFFFFFFFFFFFFFFFFL << 28)) == 0L) {
+            // Up to 4 bytes, the int path writes those with a single call
+            writeVarInt(buffer, (int) value);
+            return;
+        }
+        // Reserve the whole encoded length at once, instead of growing byte by byte
+        buffer.ensureWritable(ByteBufHelper.getVarLongSize(value));
+        while ((value & ~0x7FL) != 0L) {
+            buffer.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer.writeByte((int) value);
+    }
+}
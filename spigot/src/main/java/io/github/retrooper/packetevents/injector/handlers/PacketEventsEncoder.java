@@ -69,12 +69,12 @@ public class PacketEventsEncoder extends MessageToMessageEncoder<ByteBuf> {
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf byteBuf, List<Object> list) throws Exception {
-        boolean needsRecompression = !handledCompression && handleCompression(ctx, byteBuf);
-        handleClientBoundPacket(ctx.channel(), user, player, byteBuf, this.promise);
-
-        if (needsRecompression) {
-            compress(ctx, byteBuf);
+        if (!handledCompression && handleCompression(ctx)) {
+            // The first packet after compression got enabled, it has already been compressed
+            encodeCompressed(ctx, byteBuf, list);
+            return;
         }
+        handleClientBoundPacket(ctx.channel(), user, player, byteBuf, this.promise);
 
         // So apparently, this is how ViaVersion hacks around bungeecord not supporting sending empty packets
         if (!ByteBufHelper.isReadable(byteBuf)) {
@@ -84,6 +84,25 @@ public class PacketEventsEncoder extends MessageToMessageEncoder<ByteBuf> {
         list.add(byteBuf.retain());
     }
 
+    private void encodeCompressed(ChannelHandlerContext ctx, ByteBuf compressed, List<Object> list) throws Exception {
+        ByteBuf decompressed = decompress(ctx, compressed);
+        if (decompressed == null) {
+            // Nothing to decompress with, pass the packet on as it is
+            list.add(compressed.retain());
+            return;
+        }
+        try {
+            handleClientBoundPacket(ctx.channel(), user, player, decompressed, this.promise);
+            if (!decompressed.isReadable()) {
+                throw CancelPacketException.INSTANCE;
+            }
+            // The recompressed packet replaces the original one, no need to copy it back
+            list.add(compress(ctx, decompressed));
+        } finally {
+            decompressed.release();
+        }
+    }
+
     private @Nullable PacketSendEvent handleClientBoundPacket(Channel channel, User user, Object player, ByteBuf buffer, ChannelPromise promise) throws Exception {
         PacketSendEvent packetSendEvent = PacketEventsImplHelper.handleClientBoundPacket(channel, user, player, buffer, true);
         if (packetSendEvent != null && packetSendEvent.hasTasksAfterSend()) {
@@ -160,47 +179,44 @@ public class PacketEventsEncoder extends MessageToMessageEncoder<ByteBuf> {
         }
     }
 
-    private void compress(ChannelHandlerContext ctx, ByteBuf input) throws InvocationTargetException {
+    private ByteBuf compress(ChannelHandlerContext ctx, ByteBuf input) throws InvocationTargetException {
         ChannelHandler compressor = ctx.pipeline().get("compress");
-        ByteBuf temp = ctx.alloc().buffer();
+        if (compressor == null) {
+            return input.retain();
+        }
+        ByteBuf output = ctx.alloc().buffer();
         try {
-            if (compressor != null) {
-                CustomPipelineUtil.callEncode(compressor, ctx, input, temp);
-            }
-        } finally {
-            input.clear().writeBytes(temp);
-            temp.release();
+            CustomPipelineUtil.callEncode(compressor, ctx, input, output);
+        } catch (Throwable t) {
+            output.release();
+            throw t;
         }
+        return output;
     }
 
-    private void decompress(ChannelHandlerContext ctx, ByteBuf input, ByteBuf output) throws InvocationTargetException {
+    private @Nullable ByteBuf decompress(ChannelHandlerContext ctx, ByteBuf input) throws InvocationTargetException {
         ChannelHandler decompressor = ctx.pipeline().get("decompress");
-        if (decompressor != null) {
-            ByteBuf temp = (ByteBuf) CustomPipelineUtil.callDecode(decompressor, ctx, input).get(0);
-            try {
-                output.clear().writeBytes(temp);
-            } finally {
-                temp.release();
-            }
+        if (decompressor == null) {
+            return null;
         }
+        return (ByteBuf) CustomPipelineUtil.callDecode(decompressor, ctx, input).get(0);
     }
 
-    private boolean handleCompression(ChannelHandlerContext ctx, ByteBuf buffer) throws InvocationTargetException {
-        if (handledCompression) return false;
-        int compressIndex = ctx.pipeline().names().indexOf("compress");
-        if (compressIndex == -1) return false;
+    private boolean handleCompression(ChannelHandlerContext ctx) {
+        // Cheap check for every packet until compression gets enabled
+        if (ctx.pipeline().get("compress") == null) return false;
+        // Only the first packet after that may need the fallback, whatever happens below
         handledCompression = true;
-        int peEncoderIndex = ctx.pipeline().names().indexOf(PacketEvents.ENCODER_NAME);
-        if (peEncoderIndex == -1) return false;
-        if (compressIndex > peEncoderIndex) {
-            //We are ahead of the decompression handler (they are added dynamically) so let us relocate.
-            //But first we need to compress the data and re-compress it after we do all our processing to avoid issues.
-            decompress(ctx, buffer, buffer);
-            //Let us relocate and no longer deal with compression.
-            PacketEventsDecoder decoder = (PacketEventsDecoder) ctx.pipeline().get(PacketEvents.DECODER_NAME);
+        List<String> names = ctx.pipeline().names();
+        int compressIndex = names.indexOf("compress");
+        int peEncoderIndex = names.indexOf(PacketEvents.ENCODER_NAME);
+        if (peEncoderIndex == -1 || compressIndex < peEncoderIndex) return false;
+        //We are ahead of the compression handler (they are added dynamically) so let us relocate,
+        //the packet which got us here still has to be decompressed and compressed again.
+        PacketEventsDecoder decoder = (PacketEventsDecoder) ctx.pipeline().get(PacketEvents.DECODER_NAME);
+        if (decoder != null) {
             ServerConnectionInitializer.relocateHandlers(ctx.channel(), decoder, user);
-            return true;
         }
-        return false;
+        return true;
     }
 }
@@ -23,6 +23,7 @@ import io.netty.channel.Channel;
 
 import java.net.SocketAddress;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class ChannelOperatorModernImpl implements ChannelOperator {
     @Override
@@ -110,6 +111,11 @@ public class ChannelOperatorModernImpl implements ChannelOperator {
         ((Channel) channel).eventLoop().execute(runnable);
     }
 
+    @Override
+    public void scheduleInEventLoop(Object channel, Runnable runnable, long delay, TimeUnit unit) {
+        ((Channel) channel).eventLoop().schedule(runnable, delay, unit);
+    }
+
     @Override
     public Object pooledByteBuf(Object o) {
         return ((Channel) o).alloc().buffer();
@@ -20,17 +20,27 @@ package io.github.retrooper.packetevents.handlers;
 
 import com.github.retrooper.packetevents.PacketEvents;
 import com.github.retrooper.packetevents.event.PacketSendEvent;
-import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.PacketSide;
 import com.github.retrooper.packetevents.protocol.player.User;
 import com.github.retrooper.packetevents.util.EventCreationUtil;
+import com.github.retrooper.packetevents.util.PacketEventsImplHelper;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import com.velocitypowered.api.proxy.Player;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
+import java.util.List;
+
+/**
+ * Passes outbound packets on without copying them. Listeners read the outgoing buffer directly,
+ * a new buffer is only allocated if a listener modified the packet through a wrapper.
+ * The outgoing buffer itself is never written to, as the proxy may still reference it.
+ */
 @ChannelHandler.Sharable
-public class PacketEventsEncoder extends MessageToByteEncoder<ByteBuf> {
+public class PacketEventsEncoder extends MessageToMessageEncoder<ByteBuf> {
     public Player player;
     public User user;
 
@@ -38,21 +48,26 @@ public class PacketEventsEncoder extends MessageToByteEncoder<ByteBuf> {
         this.user = user;
     }
 
-    public void read(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
+    public void read(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) throws Exception {
         int firstReaderIndex = buffer.readerIndex();
         PacketSendEvent packetSendEvent = EventCreationUtil.createSendEvent(ctx.channel(), user, player, buffer,
                 false);
         int readerIndex = buffer.readerIndex();
-        PacketEvents.getAPI().getEventManager().callEvent(packetSendEvent, () -> buffer.readerIndex(readerIndex));
+        try {
+            PacketEvents.getAPI().getEventManager().callEvent(packetSendEvent, () -> buffer.readerIndex(readerIndex));
+        } finally {
+            buffer.readerIndex(firstReaderIndex);
+        }
         if (!packetSendEvent.isCancelled()) {
-            if (packetSendEvent.getLastUsedWrapper() != null) {
-                ByteBufHelper.clear(packetSendEvent.getByteBuf());
-                packetSendEvent.getLastUsedWrapper().writeVarInt(packetSendEvent.getPacketId());
-                packetSendEvent.getLastUsedWrapper().write();
+            PacketWrapper<?> wrapper = packetSendEvent.getLastUsedWrapper();
+            if (wrapper != null) {
+                out.add(this.reEncode(ctx, packetSendEvent, wrapper));
+            } else {
+                out.add(buffer.retain());
             }
-            buffer.readerIndex(firstReaderIndex);
         } else {
-            ByteBufHelper.clear(packetSendEvent.getByteBuf());
+            // an encoder has to produce a message, write nothing instead
+            out.add(Unpooled.EMPTY_BUFFER);
         }
         if (packetSendEvent.hasPostTasks()) {
             for (Runnable task : packetSendEvent.getPostTasks()) {
@@ -61,17 +76,31 @@ public class PacketEventsEncoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
-    @Override
-    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
-        if (!msg.isReadable()) return;
-
-        ByteBuf transformed = ctx.alloc().buffer().writeBytes(msg);
+    private ByteBuf reEncode(ChannelHandlerContext ctx, PacketSendEvent event, PacketWrapper<?> wrapper) {
+        ByteBuf transformed = ctx.alloc().buffer();
         try {
-            read(ctx, transformed);
-            out.writeBytes(transformed);
-        } finally {
+            wrapper.buffer = transformed;
+            wrapper.writeVarInt(event.getPacketId());
+            wrapper.write();
+            return transformed;
+        } catch (Throwable throwable) {
             transformed.release();
+            throw throwable;
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        if (!msg.isReadable()) {
+            out.add(msg.retain());
+            return;
+        }
+        if (!PacketEventsImplHelper.isListened(user, msg, PacketSide.SERVER, false)) {
+            // nobody wants this packet, pass it on as it is
+            out.add(msg.retain());
+            return;
         }
+        read(ctx, msg, out);
     }
 
     @Override